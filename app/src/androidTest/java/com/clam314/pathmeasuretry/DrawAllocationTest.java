@@ -0,0 +1,261 @@
+package com.clam314.pathmeasuretry;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * 逐帧驱动每个自定义View跑完整个动画范围，先预热一遍，
+ * 再跑一遍并统计onDraw期间当前线程分配的对象数，必须为0
+ */
+@RunWith(AndroidJUnit4.class)
+public class DrawAllocationTest {
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+    private static final int FRAMES = 120;
+
+    private Context context;
+    //绘制到离屏Bitmap上，不需要Activity和真正的窗口
+    private Canvas canvas;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getTargetContext();
+        canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void searchViewAllStates() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            SearchView view;
+
+            @Override
+            public View create() {
+                return view = new SearchView(context);
+            }
+
+            @Override
+            public int count() {
+                return SearchView.State.values().length * FRAMES;
+            }
+
+            @Override
+            public void apply(int frame) {
+                view.setFrame(SearchView.State.values()[frame / FRAMES], progress(frame % FRAMES));
+            }
+        });
+    }
+
+    @Test
+    public void stickyCircleViewDragAndLoading() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            StickyCircleView view;
+
+            @Override
+            public View create() {
+                return view = new StickyCircleView(context);
+            }
+
+            @Override
+            public int count() {
+                return FRAMES * 2;
+            }
+
+            @Override
+            public void apply(int frame) {
+                if (frame < FRAMES) {
+                    //斜向下拖到最大距离
+                    float distance = view.getMaxMoveDistance() * progress(frame);
+                    view.setDragFrame(distance * 0.6f, distance * 0.8f);
+                } else {
+                    view.setLoadingFrame(progress(frame - FRAMES));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void pooledSearchViewAllStates() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            SearchView view;
+
+            @Override
+            public View create() {
+                return view = new SearchView(context, new RowPool());
+            }
+
+            @Override
+            public int count() {
+                return SearchView.State.values().length * FRAMES;
+            }
+
+            @Override
+            public void apply(int frame) {
+                view.setFrame(SearchView.State.values()[frame / FRAMES], progress(frame % FRAMES));
+            }
+        });
+    }
+
+    @Test
+    public void pooledStickyCircleViewDragAndLoading() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            StickyCircleView view;
+
+            @Override
+            public View create() {
+                return view = new StickyCircleView(context, new RowPool());
+            }
+
+            @Override
+            public int count() {
+                return FRAMES * 2;
+            }
+
+            @Override
+            public void apply(int frame) {
+                if (frame < FRAMES) {
+                    float distance = view.getMaxMoveDistance() * progress(frame);
+                    view.setDragFrame(distance * 0.6f, distance * 0.8f);
+                } else {
+                    view.setLoadingFrame(progress(frame - FRAMES));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void pierreBezierCircleViewFullRange() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            PierreBezierCircleView view;
+
+            @Override
+            public View create() {
+                return view = new PierreBezierCircleView(context);
+            }
+
+            @Override
+            public int count() {
+                return FRAMES;
+            }
+
+            @Override
+            public void apply(int frame) {
+                view.setInterpolatedTime(progress(frame));
+            }
+        });
+    }
+
+    @Test
+    public void polygonViewAllPointCounts() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            PolygonView view;
+
+            @Override
+            public View create() {
+                return view = new PolygonView(context);
+            }
+
+            @Override
+            public int count() {
+                return 5;
+            }
+
+            @Override
+            public void apply(int frame) {
+                view.setTestPoint(frame);
+            }
+        });
+    }
+
+    @Test
+    public void metaballViewTwelveBlobs() throws Exception {
+        assertNoAllocations(new ViewFrames() {
+            MetaballView view;
+            int[] blobs = new int[12];
+
+            @Override
+            public View create() {
+                view = new MetaballView(context);
+                for (int i = 0; i < blobs.length; i++) {
+                    blobs[i] = view.addBlob(0, 0, 60);
+                }
+                return view;
+            }
+
+            @Override
+            public int count() {
+                return FRAMES;
+            }
+
+            @Override
+            public void apply(int frame) {
+                //所有圆从中心散开，连接曲线的数量逐帧变化
+                float spread = 600 * progress(frame);
+                for (int i = 0; i < blobs.length; i++) {
+                    double angle = Math.PI * 2 * i / blobs.length;
+                    view.moveBlob(blobs[i], WIDTH / 2 + (float) Math.cos(angle) * spread,
+                            HEIGHT / 2 + (float) Math.sin(angle) * spread);
+                }
+            }
+        });
+    }
+
+    private static float progress(int frame) {
+        return (float) frame / (FRAMES - 1);
+    }
+
+    private void assertNoAllocations(final ViewFrames frames) {
+        final int[] allocations = new int[1];
+        final String[] name = new String[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                View view = frames.create();
+                name[0] = view.getClass().getSimpleName();
+                view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                view.layout(0, 0, WIDTH, HEIGHT);
+
+                //预热：缓存、懒加载的对象都在这一遍里创建
+                drawAll(view, frames, false);
+                allocations[0] = drawAll(view, frames, true);
+            }
+        });
+        assertEquals(name[0] + " allocated during onDraw after warm-up", 0, allocations[0]);
+    }
+
+    /**
+     * 只统计draw本身的分配，切换帧状态的开销不算在内
+     */
+    @SuppressWarnings("deprecation")
+    private int drawAll(View view, ViewFrames frames, boolean count) {
+        if (count) Debug.resetThreadAllocCount();
+        for (int i = 0; i < frames.count(); i++) {
+            frames.apply(i);
+            int save = canvas.save();
+            if (count) Debug.startAllocCounting();
+            view.draw(canvas);
+            if (count) Debug.stopAllocCounting();
+            canvas.restoreToCount(save);
+        }
+        return count ? Debug.getThreadAllocCount() : 0;
+    }
+
+    private interface ViewFrames {
+        View create();
+
+        int count();
+
+        void apply(int frame);
+    }
+}
@@ -0,0 +1,60 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.Matrix;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用随机的点对比较PolyToPoly和平台Matrix的setPolyToPoly、mapPoints结果
+ */
+@RunWith(AndroidJUnit4.class)
+public class PolyToPolyMatrixTest {
+    private static final int ROUNDS = 500;
+    private static final int POINTS = 64;
+
+    @Test
+    public void matchesPlatformMatrix() throws Exception {
+        Random random = new Random(2017);
+        PolyToPoly solver = new PolyToPoly();
+        Matrix matrix = new Matrix();
+        float[] values = new float[PolyToPoly.MATRIX_SIZE];
+        float[] src = new float[8];
+        float[] dst = new float[8];
+        float[] points = new float[POINTS * 2];
+        float[] expected = new float[POINTS * 2];
+        float[] actual = new float[POINTS * 2];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int count = round % 5;
+            for (int i = 0; i < 8; i++) {
+                src[i] = random.nextFloat() * 1000;
+                dst[i] = random.nextFloat() * 1000;
+            }
+            matrix.reset();
+            boolean platform = matrix.setPolyToPoly(src, 0, dst, 0, count);
+            assertEquals("round " + round, platform, solver.setPolyToPoly(src, 0, dst, 0, count, values));
+            if (!platform) continue;
+
+            for (int i = 0; i < points.length; i++) {
+                points[i] = random.nextFloat() * 1000;
+            }
+            matrix.mapPoints(expected, points);
+            PolyToPoly.mapPoints(values, actual, 0, points, 0, POINTS);
+            for (int i = 0; i < points.length; i++) {
+                //靠近消失线的点对误差极其敏感，跳过
+                int p = i & ~1;
+                float w = values[PolyToPoly.MPERSP_0] * points[p] + values[PolyToPoly.MPERSP_1] * points[p + 1] + values[PolyToPoly.MPERSP_2];
+                if (Math.abs(w) < 0.05f) continue;
+                //远离四个点的位置透视误差会放大，按相对误差比较
+                float tolerance = Math.max(0.05f, Math.abs(expected[i]) * 1e-3f);
+                assertEquals("round " + round + " index " + i, expected[i], actual[i], tolerance);
+            }
+        }
+    }
+}
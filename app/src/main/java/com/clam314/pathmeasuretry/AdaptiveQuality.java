@@ -0,0 +1,170 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.Canvas;
+import android.graphics.DrawFilter;
+import android.view.View;
+
+/**
+ * SearchView和StickyCircleView共用的绘制质量管理：持有QualityGovernor、当前应用的等级和预渲染的图
+ * 每次onDraw前后各调用一次beginDraw/endDraw，等级变化时回调Host按等级设置自己的取样
+ * 列表里的行共用一个QualityGovernor和画笔，每行比较自己上次应用的等级，抗锯齿通过Canvas的DrawFilter关闭，不修改共用的画笔
+ * 降级打开的预渲染在升级后还会保留一段时间，在预渲染等级附近来回切换时不用每次重新生成
+ */
+
+final class AdaptiveQuality {
+    //升级离开预渲染等级后，预渲染的图再保留这么多帧，比QualityGovernor最长的升级等待还长
+    static final int ATLAS_COOLDOWN_FRAMES = QualityGovernor.MAX_UPGRADE_WINDOW * 2;
+
+    interface Host {
+        //按等级设置片段缓存、折线取样等，画笔可能是列表里共用的，不直接修改
+        void onApplyLevel(int level);
+
+        SpriteAtlas newAtlas(int maxBytes);
+
+        //把所有帧画到getAtlas()上，尺寸还不知道时直接返回；保留中的图尺寸变了也要重新生成
+        void buildAtlas();
+    }
+
+    private final View mView;
+    private final Host mHost;
+
+    //按onDraw的耗时自动降低绘制质量，为null时一直完整质量
+    private QualityGovernor mGovernor;
+    //列表里共用的QualityGovernor，为null时自己生成一个
+    private QualityGovernor mShared;
+    private boolean mEnabled = true;
+    //上次apply()时的等级；列表里共用的QualityGovernor可能被别的行改变等级
+    private int mAppliedLevel = QualityGovernor.LEVEL_FULL;
+    private boolean mAntiAlias = true;
+    private DrawFilter mSavedFilter;
+
+    //预渲染的图，mAtlasActive为false时是升级后暂时保留的，不用来绘制
+    private SpriteAtlas mAtlas;
+    private boolean mAtlasActive = false;
+    //升级后预渲染的图还能保留的帧数，为0时没有在保留
+    private int mAtlasCooldown;
+    private int mAtlasMaxBytes;
+    //调用方自己打开的预渲染，和降级打开的区分开，升级回来时只关闭降级打开的
+    private boolean mAtlasRequested = false;
+
+    AdaptiveQuality(View view, Host host, int atlasMaxBytes) {
+        mView = view;
+        mHost = host;
+        mAtlasMaxBytes = atlasMaxBytes;
+    }
+
+    /**
+     * @param shared 列表里共用的QualityGovernor，为null时自己生成一个
+     */
+    void setSharedGovernor(QualityGovernor shared) {
+        mShared = shared;
+        mGovernor = mEnabled ? obtainGovernor() : null;
+        apply(false);
+    }
+
+    void setEnabled(boolean enabled) {
+        if (enabled == mEnabled) return;
+        mEnabled = enabled;
+        mGovernor = enabled ? obtainGovernor() : null;
+        apply(false);
+        mView.invalidate();
+    }
+
+    private QualityGovernor obtainGovernor() {
+        return mShared != null ? mShared
+                : new QualityGovernor(QualityGovernor.DEFAULT_BUDGET_NANOS, QualityGovernor.LEVEL_ATLAS);
+    }
+
+    /**
+     * 是否需要记录onDraw的耗时，传给FrameStats.begin(boolean)
+     */
+    boolean isTimed() {
+        return mGovernor != null;
+    }
+
+    int getLevel() {
+        return mGovernor != null ? mGovernor.getLevel() : QualityGovernor.LEVEL_FULL;
+    }
+
+    /**
+     * @param cooldown 是否是QualityGovernor自己调整了等级，这时预渲染的图先保留一段时间
+     */
+    private void apply(boolean cooldown) {
+        int level = getLevel();
+        mAppliedLevel = level;
+        mAntiAlias = level < QualityGovernor.LEVEL_NO_ANTI_ALIAS;
+        mHost.onApplyLevel(level);
+        updateAtlas(cooldown);
+    }
+
+    void beginDraw(Canvas canvas) {
+        //等级可能在上一帧由自己或者共用QualityGovernor的其他行改变
+        if (getLevel() != mAppliedLevel) apply(true);
+        mSavedFilter = canvas.getDrawFilter();
+        if (!mAntiAlias) canvas.setDrawFilter(QualityGovernor.noAntiAliasFilter());
+    }
+
+    /**
+     * @param drawNanos FrameStats.end()返回的耗时，没有计时为-1
+     */
+    void endDraw(Canvas canvas, long drawNanos) {
+        canvas.setDrawFilter(mSavedFilter);
+        mSavedFilter = null;
+        //等级变化后从下一帧开始生效
+        if (mGovernor != null && drawNanos >= 0) mGovernor.record(drawNanos);
+        //绘制是在onDraw里，保留到期时这一帧已经没有用它
+        if (mAtlasCooldown > 0 && --mAtlasCooldown == 0) releaseAtlas();
+    }
+
+    /**
+     * 持有的预渲染的图，包括升级后暂时保留的，生成和释放时用
+     */
+    SpriteAtlas getAtlas() {
+        return mAtlas;
+    }
+
+    /**
+     * 绘制时用的预渲染的图，为null时实时绘制
+     */
+    SpriteAtlas getActiveAtlas() {
+        return mAtlasActive ? mAtlas : null;
+    }
+
+    void setAtlasRequested(boolean requested) {
+        mAtlasRequested = requested;
+        updateAtlas(false);
+    }
+
+    void setAtlasMaxBytes(int maxBytes) {
+        mAtlasMaxBytes = maxBytes;
+        if (mAtlas == null) return;
+        //保留中的图直接释放，用到时再按新的大小生成
+        releaseAtlas();
+        updateAtlas(false);
+    }
+
+    private void updateAtlas(boolean cooldown) {
+        mAtlasActive = mAtlasRequested || getLevel() >= QualityGovernor.LEVEL_ATLAS;
+        if (mAtlasActive) {
+            mAtlasCooldown = 0;
+            if (mAtlas == null) {
+                mAtlas = mHost.newAtlas(mAtlasMaxBytes);
+                mHost.buildAtlas();
+            }
+        } else if (mAtlas != null) {
+            if (!cooldown) {
+                releaseAtlas();
+                mView.invalidate();
+            } else if (mAtlasCooldown == 0) {
+                mAtlasCooldown = ATLAS_COOLDOWN_FRAMES;
+            }
+        }
+    }
+
+    private void releaseAtlas() {
+        mAtlas.recycle();
+        mAtlas = null;
+        mAtlasActive = false;
+        mAtlasCooldown = 0;
+    }
+}
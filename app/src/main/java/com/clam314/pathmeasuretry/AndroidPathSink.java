@@ -0,0 +1,65 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * 把PathSink的输出写进android.graphics.Path，可以随时换目标Path，复用同一个对象
+ */
+
+final class AndroidPathSink implements PathSink {
+    private Path mPath;
+    private final RectF mOval = new RectF();
+
+    AndroidPathSink() {
+    }
+
+    AndroidPathSink(Path path) {
+        mPath = path;
+    }
+
+    AndroidPathSink setPath(Path path) {
+        mPath = path;
+        return this;
+    }
+
+    Path getPath() {
+        return mPath;
+    }
+
+    @Override
+    public void reset() {
+        mPath.reset();
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        mPath.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        mPath.lineTo(x, y);
+    }
+
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        mPath.quadTo(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        mPath.cubicTo(x1, y1, x2, y2, x3, y3);
+    }
+
+    @Override
+    public void arcTo(float centerX, float centerY, float radius, float startAngle, float sweepAngle, boolean forceMoveTo) {
+        mOval.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+        mPath.arcTo(mOval, startAngle, sweepAngle, forceMoveTo);
+    }
+
+    @Override
+    public void close() {
+        mPath.close();
+    }
+}
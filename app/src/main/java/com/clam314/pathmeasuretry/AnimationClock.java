@@ -0,0 +1,27 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 动画读取时间和等待下一帧都通过这个接口，默认由Choreographer驱动
+ * 测试和基准测试里换成ManualAnimationClock，手动推进时间，不需要真的等待
+ */
+
+public interface AnimationClock {
+    /**
+     * 当前时间，单位毫秒，只用来计算时间差
+     */
+    long uptimeMillis();
+
+    /**
+     * 下一帧时回调一次，需要继续的话在回调里再post一次
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    void removeFrameCallback(FrameCallback callback);
+
+    interface FrameCallback {
+        /**
+         * @param frameTimeMillis 这一帧的时间，和uptimeMillis()是同一个时间基准
+         */
+        void doFrame(long frameTimeMillis);
+    }
+}
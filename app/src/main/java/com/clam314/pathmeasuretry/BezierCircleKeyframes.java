@@ -0,0 +1,80 @@
+package com.clam314.pathmeasuretry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 把BezierCircleModel在0~1上的12个点预先烘焙成关键帧表，每帧只需要在相邻两帧之间线性插值，
+ * 不管模型分成多少个阶段，每帧的开销都是固定的
+ * 帧数是10的倍数，这样0.2、0.5、0.8、0.9这几个阶段分界点正好落在关键帧上，
+ * 插值误差只来自model5的正弦段，默认200帧时和解析模型的误差小于0.05px
+ */
+
+final class BezierCircleKeyframes {
+    static final int DEFAULT_FRAME_COUNT = 200;
+
+    private static final Map<Float, BezierCircleKeyframes> sCache = new HashMap<>();
+
+    private final float radius;
+    private final int frameCount;
+    //第i帧的24个值从i * POINT_SIZE开始
+    private final float[] table;
+
+    BezierCircleKeyframes(float radius, int frameCount) {
+        if (frameCount <= 0 || frameCount % 10 != 0) {
+            throw new IllegalArgumentException("frameCount must be a positive multiple of 10");
+        }
+        this.radius = radius;
+        this.frameCount = frameCount;
+        table = new float[(frameCount + 1) * BezierCircleModel.POINT_SIZE];
+
+        BezierCircleModel model = new BezierCircleModel(radius);
+        for (int i = 0; i <= frameCount; i++) {
+            model.compute((float) i / frameCount);
+            System.arraycopy(model.points, 0, table, i * BezierCircleModel.POINT_SIZE, BezierCircleModel.POINT_SIZE);
+        }
+    }
+
+    /**
+     * 同一个半径的关键帧表在所有View之间共用，只烘焙一次
+     */
+    static BezierCircleKeyframes forRadius(float radius) {
+        synchronized (sCache) {
+            BezierCircleKeyframes keyframes = sCache.get(radius);
+            if (keyframes == null) {
+                keyframes = new BezierCircleKeyframes(radius, DEFAULT_FRAME_COUNT);
+                sCache.put(radius, keyframes);
+            }
+            return keyframes;
+        }
+    }
+
+    float getRadius() {
+        return radius;
+    }
+
+    int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 插值出time时刻的12个点，并整体水平移动offsetX，结果写入out(长度至少为POINT_SIZE)
+     */
+    void sample(float time, float offsetX, float[] out) {
+        if (time < 0) time = 0;
+        if (time > 1) time = 1;
+        float position = time * frameCount;
+        int frame = (int) position;
+        if (frame >= frameCount) frame = frameCount - 1;
+        float fraction = position - frame;
+
+        int from = frame * BezierCircleModel.POINT_SIZE;
+        int to = from + BezierCircleModel.POINT_SIZE;
+        for (int i = 0; i < BezierCircleModel.POINT_SIZE; i += 2) {
+            float x = table[from + i];
+            float y = table[from + i + 1];
+            out[i] = x + (table[to + i] - x) * fraction + offsetX;
+            out[i + 1] = y + (table[to + i + 1] - y) * fraction;
+        }
+    }
+}
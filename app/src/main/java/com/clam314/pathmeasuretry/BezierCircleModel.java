@@ -0,0 +1,148 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * PierreBezierCircleView中四段三次贝塞尔曲线的12个点，按时间分成model0~model5几个阶段计算
+ * 所有点保存在一个float数组里，不依赖android.graphics，方便在JVM上做基准测试
+ */
+
+final class BezierCircleModel {
+    //每个点占x,y两个位置，p1、p3是上下两个点(带左右控制点)，p2、p4是左右两个点(带上下控制点)
+    static final int P1 = 0;
+    static final int P1_LEFT = 2;
+    static final int P1_RIGHT = 4;
+    static final int P2 = 6;
+    static final int P2_TOP = 8;
+    static final int P2_BOTTOM = 10;
+    static final int P3 = 12;
+    static final int P3_LEFT = 14;
+    static final int P3_RIGHT = 16;
+    static final int P4 = 18;
+    static final int P4_TOP = 20;
+    static final int P4_BOTTOM = 22;
+    static final int POINT_SIZE = 24;
+
+    static final float BLACK_MAGIC = 0.551915024494f;
+
+    final float[] points = new float[POINT_SIZE];
+
+    private final float radius;
+    private final float c;
+    private final float stretchDistance;
+    private final float cDistance;
+
+    BezierCircleModel(float radius) {
+        this.radius = radius;
+        c = radius * BLACK_MAGIC;
+        stretchDistance = radius;
+        cDistance = c * 0.45f;
+    }
+
+    float getRadius() {
+        return radius;
+    }
+
+    /**
+     * 根据动画进度计算所有点，time的范围为0~1
+     */
+    void compute(float time) {
+        if (time >= 0 && time <= 0.2) {
+            model1(time);
+        } else if (time > 0.2 && time <= 0.5) {
+            model2(time);
+        } else if (time > 0.5 && time <= 0.8) {
+            model3(time);
+        } else if (time > 0.8 && time <= 0.9) {
+            model4(time);
+        } else if (time > 0.9 && time <= 1) {
+            model5(time);
+        }
+    }
+
+    void model0() {
+        setHY(P1, radius);
+        setHY(P3, -radius);
+        points[P3] = points[P1] = 0;
+        points[P3_LEFT] = points[P1_LEFT] = -c;
+        points[P3_RIGHT] = points[P1_RIGHT] = c;
+
+        setVX(P2, radius);
+        setVX(P4, -radius);
+        points[P2 + 1] = points[P4 + 1] = 0;
+        points[P2_TOP + 1] = points[P4_TOP + 1] = -c;
+        points[P2_BOTTOM + 1] = points[P4_BOTTOM + 1] = c;
+    }
+
+    void model1(float time) {//0~0.2
+        model0();
+        setVX(P2, radius + stretchDistance * time * 5);
+    }
+
+    void model2(float time) {//0.2~0.5
+        model1(0.2f);
+        time = (time - 0.2f) * (10f / 3);
+        adjustAllX(P1, stretchDistance / 2 * time);
+        adjustAllX(P3, stretchDistance / 2 * time);
+        adjustY(P2, cDistance * time);
+        adjustY(P4, cDistance * time);
+    }
+
+    void model3(float time) {//0.5~0.8
+        model2(0.5f);
+        time = (time - 0.5f) * (10f / 3);
+        adjustAllX(P1, stretchDistance / 2 * time);
+        adjustAllX(P3, stretchDistance / 2 * time);
+        adjustY(P2, -cDistance * time);
+        adjustY(P4, -cDistance * time);
+
+        adjustAllX(P4, stretchDistance / 2 * time);
+    }
+
+    void model4(float time) {//0.8~0.9
+        model3(0.8f);
+        time = (time - 0.8f) * 10;
+        adjustAllX(P4, stretchDistance / 2 * time);
+    }
+
+    void model5(float time) {//0.9~1
+        model4(0.9f);
+        time = time - 0.9f;
+        adjustAllX(P4, VectorMath.sin(VectorMath.PI * time * 10f) * (2 / 10f * radius));
+    }
+
+    /**
+     * 按p1->p2->p3->p4->p1的顺序输出四段三次贝塞尔曲线，不会先reset
+     */
+    static void buildPath(float[] p, PathSink sink) {
+        sink.moveTo(p[P1], p[P1 + 1]);
+        sink.cubicTo(p[P1_RIGHT], p[P1_RIGHT + 1], p[P2_BOTTOM], p[P2_BOTTOM + 1], p[P2], p[P2 + 1]);
+        sink.cubicTo(p[P2_TOP], p[P2_TOP + 1], p[P3_RIGHT], p[P3_RIGHT + 1], p[P3], p[P3 + 1]);
+        sink.cubicTo(p[P3_LEFT], p[P3_LEFT + 1], p[P4_TOP], p[P4_TOP + 1], p[P4], p[P4 + 1]);
+        sink.cubicTo(p[P4_BOTTOM], p[P4_BOTTOM + 1], p[P1_LEFT], p[P1_LEFT + 1], p[P1], p[P1 + 1]);
+    }
+
+    //p1、p3及其左右控制点的y相同
+    private void setHY(int point, float y) {
+        points[point + 1] = y;
+        points[point + 3] = y;
+        points[point + 5] = y;
+    }
+
+    //p2、p4及其上下控制点的x相同
+    private void setVX(int point, float x) {
+        points[point] = x;
+        points[point + 2] = x;
+        points[point + 4] = x;
+    }
+
+    //p2、p4的上下控制点沿y轴往外拉
+    private void adjustY(int point, float offset) {
+        points[point + 3] -= offset;
+        points[point + 5] += offset;
+    }
+
+    private void adjustAllX(int point, float offset) {
+        points[point] += offset;
+        points[point + 2] += offset;
+        points[point + 4] += offset;
+    }
+}
@@ -0,0 +1,299 @@
+package com.clam314.pathmeasuretry;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 在后台线程按View的大小采样解码图片资源，所有实例共用一个按字节数限制的LRU缓存
+ * 被挤出缓存、并且已经没有View在用的图片会放进复用池，之后解码时通过inBitmap复用它的内存
+ * 复用池也有字节数上限，和缓存加起来不超过总预算，超出时最早放进去的图片被回收
+ */
+
+final class BitmapLoader {
+    private static BitmapLoader sInstance;
+
+    private final LruCache<String, Bitmap> mCache;
+    //正在被View显示的图片和引用次数，引用次数不为0的图片不能被inBitmap覆盖
+    //mInUse同时作为锁：从缓存取图片并加引用、图片被挤出缓存这两步都在这个锁里做，保证不会把正在交出去的图片放进复用池
+    private final Map<Bitmap, Integer> mInUse = new IdentityHashMap<>();
+    //还在缓存里的图片，由put和entryRemoved维护，release时不用复制整个缓存来判断
+    private final Set<Bitmap> mCached = Collections.newSetFromMap(new IdentityHashMap<Bitmap, Boolean>());
+    //可以被inBitmap复用的图片
+    private final ReusePool<Bitmap, BitmapFactory.Options> mReusable;
+
+    private final ExecutorService mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    static synchronized BitmapLoader getInstance() {
+        if (sInstance == null) {
+            //默认占用最大可用内存的1/8
+            int budget = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+            sInstance = new BitmapLoader(budget);
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param maxBytes 缓存和复用池中所有图片加起来的最大字节数，复用池占其中的1/4
+     */
+    BitmapLoader(int maxBytes) {
+        int reusableBytes = maxBytes / 4;
+        mReusable = new ReusePool<Bitmap, BitmapFactory.Options>(reusableBytes) {
+            @Override
+            int sizeOf(Bitmap item) {
+                return byteCount(item);
+            }
+
+            @Override
+            boolean isStale(Bitmap item) {
+                return item.isRecycled();
+            }
+
+            @Override
+            boolean canReuse(Bitmap item, BitmapFactory.Options request) {
+                return canUseForInBitmap(item, request);
+            }
+
+            @Override
+            void onDropped(Bitmap item) {
+                //复用池里的图片既不在缓存里，也没有View在用
+                item.recycle();
+            }
+        };
+        mCache = new LruCache<String, Bitmap>(maxBytes - reusableBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return byteCount(value);
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                onRemovedFromCache(oldValue);
+            }
+        };
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BitmapLoader");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 异步加载图片，按2的幂采样，解码后的宽高都不小于reqWidth、reqHeight
+     * 回调在主线程执行，拿到的图片不再使用时要调用release
+     */
+    void load(final Resources res, final int resId, final int reqWidth, final int reqHeight, final Callback callback) {
+        final String key = resId + ":" + reqWidth + "x" + reqHeight;
+        Bitmap cached;
+        synchronized (mInUse) {
+            cached = mCache.get(key);
+            if (cached != null) acquireLocked(cached);
+        }
+        if (cached != null) {
+            callback.onBitmapLoaded(resId, cached);
+            return;
+        }
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = decode(res, resId, reqWidth, reqHeight);
+                if (bitmap == null) return;
+                synchronized (mInUse) {
+                    acquireLocked(bitmap);
+                    mCached.add(bitmap);
+                }
+                mCache.put(key, bitmap);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onBitmapLoaded(resId, bitmap);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * View不再显示这张图片时调用
+     */
+    void release(Bitmap bitmap) {
+        synchronized (mInUse) {
+            Integer count = mInUse.get(bitmap);
+            if (count == null) return;
+            if (count > 1) {
+                mInUse.put(bitmap, count - 1);
+                return;
+            }
+            mInUse.remove(bitmap);
+            //已经不在缓存里的图片没人再用了，可以复用
+            if (!mCached.contains(bitmap)) addReusable(bitmap);
+        }
+    }
+
+    //调用时必须持有mInUse
+    private void acquireLocked(Bitmap bitmap) {
+        Integer count = mInUse.get(bitmap);
+        mInUse.put(bitmap, count == null ? 1 : count + 1);
+    }
+
+    private void onRemovedFromCache(Bitmap bitmap) {
+        synchronized (mInUse) {
+            mCached.remove(bitmap);
+            if (mInUse.containsKey(bitmap)) return;
+            addReusable(bitmap);
+        }
+    }
+
+    private void addReusable(Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) return;
+        mReusable.add(bitmap);
+    }
+
+    /**
+     * 图片实际占用的内存：4.4之后复用更大的图片解码时，占用的是原来那张图片的内存
+     */
+    private static int byteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    private Bitmap decode(Resources res, int resId, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(res, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inBitmap = mReusable.take(options);
+        try {
+            return BitmapFactory.decodeResource(res, resId, options);
+        } catch (IllegalArgumentException e) {
+            //复用的图片不满足条件时退回普通解码
+            options.inBitmap = null;
+            return BitmapFactory.decodeResource(res, resId, options);
+        }
+    }
+
+    private static boolean canUseForInBitmap(Bitmap candidate, BitmapFactory.Options options) {
+        int width = options.outWidth / options.inSampleSize;
+        int height = options.outHeight / options.inSampleSize;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            //4.4之后只要内存够大就可以复用，按ARGB_8888每个像素4字节估算
+            return width * height * 4 <= candidate.getAllocationByteCount();
+        }
+        //4.4之前要求尺寸完全一致，并且不能采样
+        return options.inSampleSize == 1 && candidate.getWidth() == width && candidate.getHeight() == height;
+    }
+
+    /**
+     * 取最大的2的幂，保证采样后的宽高都不小于要求的宽高
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) return inSampleSize;
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    interface Callback {
+        void onBitmapLoaded(int resId, Bitmap bitmap);
+    }
+
+    /**
+     * 按字节数限制的复用池，放进去时超出上限就丢掉最早放进去的；可以在多个线程使用
+     *
+     * @param <T> 复用的对象
+     * @param <R> 取出时的要求，由canReuse判断是否满足
+     */
+    abstract static class ReusePool<T, R> {
+        private final int maxBytes;
+        //按放进去的先后排列，大小在放进去时记下，之后对象被回收也能正确扣除
+        private final ArrayList<T> mItems = new ArrayList<>();
+        private final ArrayList<Integer> mSizes = new ArrayList<>();
+        private int mBytes;
+
+        ReusePool(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        abstract int sizeOf(T item);
+
+        abstract boolean canReuse(T item, R request);
+
+        //已经不能再用的对象，取出时顺便移除
+        boolean isStale(T item) {
+            return false;
+        }
+
+        //超出上限被丢掉时回调
+        void onDropped(T item) {
+        }
+
+        synchronized void add(T item) {
+            int size = sizeOf(item);
+            if (size > maxBytes) {
+                onDropped(item);
+                return;
+            }
+            mItems.add(item);
+            mSizes.add(size);
+            mBytes += size;
+            while (mBytes > maxBytes) {
+                onDropped(removeAt(0));
+            }
+        }
+
+        /**
+         * 取出最早放进去的满足要求的对象，没有时返回null
+         */
+        synchronized T take(R request) {
+            for (int i = 0; i < mItems.size(); i++) {
+                T item = mItems.get(i);
+                if (isStale(item)) {
+                    removeAt(i--);
+                } else if (canReuse(item, request)) {
+                    return removeAt(i);
+                }
+            }
+            return null;
+        }
+
+        synchronized int getBytes() {
+            return mBytes;
+        }
+
+        synchronized int getCount() {
+            return mItems.size();
+        }
+
+        private T removeAt(int index) {
+            mBytes -= mSizes.remove(index);
+            return mItems.remove(index);
+        }
+    }
+}
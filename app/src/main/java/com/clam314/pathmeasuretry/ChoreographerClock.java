@@ -0,0 +1,54 @@
+package com.clam314.pathmeasuretry;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 默认的动画时钟：时间取SystemClock.uptimeMillis()，帧回调交给主线程的Choreographer，和ValueAnimator同步
+ */
+
+final class ChoreographerClock implements AnimationClock {
+    private final Choreographer mChoreographer;
+    //Choreographer的回调带的是纳秒，每个FrameCallback包一层，包装对象按callback缓存，post时不再分配
+    private final Map<FrameCallback, Choreographer.FrameCallback> mWrappers = new HashMap<>();
+
+    /**
+     * 只能在主线程创建；包装对象的缓存跟着时钟走，每个View各自持有一个，View回收时一起回收
+     */
+    ChoreographerClock() {
+        mChoreographer = Choreographer.getInstance();
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        mChoreographer.postFrameCallback(wrap(callback));
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        Choreographer.FrameCallback wrapper = mWrappers.get(callback);
+        if (wrapper != null) mChoreographer.removeFrameCallback(wrapper);
+    }
+
+    private Choreographer.FrameCallback wrap(final FrameCallback callback) {
+        Choreographer.FrameCallback wrapper = mWrappers.get(callback);
+        if (wrapper == null) {
+            wrapper = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    callback.doFrame(frameTimeNanos / 1000000L);
+                }
+            };
+            mWrappers.put(callback, wrapper);
+        }
+        return wrapper;
+    }
+}
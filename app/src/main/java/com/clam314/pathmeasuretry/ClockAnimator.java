@@ -0,0 +1,194 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 代替ValueAnimator的简单动画：进度只由AnimationClock给出的帧时间算出来，不读取系统时间
+ * 换成ManualAnimationClock后，整个动画可以在测试里逐帧跑完
+ * 和ValueAnimator一样，start之后的第一帧作为开始时间，进度从0开始
+ */
+
+final class ClockAnimator implements AnimationClock.FrameCallback {
+    static final int INFINITE = -1;
+
+    static final Interpolator LINEAR = new Interpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input;
+        }
+    };
+
+    //和AccelerateDecelerateInterpolator的曲线一致
+    static final Interpolator ACCELERATE_DECELERATE = new Interpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            //两端直接返回，保证动画结束时正好停在终点
+            if (input <= 0) return 0;
+            if (input >= 1) return 1;
+            return VectorMath.cos((input + 1) * VectorMath.PI) / 2f + 0.5f;
+        }
+    };
+
+    private AnimationClock mClock;
+    private final Listener mListener;
+    private Interpolator mInterpolator = LINEAR;
+    private long mDuration = 300;
+    private int mRepeatCount = 0;
+
+    private boolean mRunning;
+    //-1表示还没有收到start后的第一帧
+    private long mStartTime = -1;
+    private long mPlayTime;
+    private float mFraction;
+
+    ClockAnimator(AnimationClock clock, Listener listener) {
+        mClock = clock;
+        mListener = listener;
+    }
+
+    /**
+     * 切换时钟，正在执行的动画会在新的时钟上从头开始
+     */
+    void setClock(AnimationClock clock) {
+        if (clock == mClock) return;
+        boolean running = mRunning;
+        if (running) mClock.removeFrameCallback(this);
+        mClock = clock;
+        if (running) {
+            mStartTime = -1;
+            mClock.postFrameCallback(this);
+        }
+    }
+
+    ClockAnimator setDuration(long duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        mDuration = duration;
+        return this;
+    }
+
+    long getDuration() {
+        return mDuration;
+    }
+
+    ClockAnimator setInterpolator(Interpolator interpolator) {
+        mInterpolator = interpolator != null ? interpolator : LINEAR;
+        return this;
+    }
+
+    /**
+     * 重复的次数，INFINITE表示一直重复直到cancel
+     */
+    ClockAnimator setRepeatCount(int repeatCount) {
+        mRepeatCount = repeatCount;
+        return this;
+    }
+
+    /**
+     * 从头开始，已经在执行时重新计时
+     */
+    void start() {
+        mStartTime = -1;
+        mPlayTime = 0;
+        mFraction = mInterpolator.getInterpolation(0);
+        if (!mRunning) {
+            mRunning = true;
+            mClock.postFrameCallback(this);
+        }
+        mListener.onAnimationStart(this);
+    }
+
+    /**
+     * 停在当前进度，回调onAnimationEnd(cancelled = true)
+     */
+    void cancel() {
+        if (!mRunning) return;
+        finish(true);
+    }
+
+    /**
+     * 直接跳到最后，回调onAnimationEnd(cancelled = false)；无限重复的动画停在当前进度
+     */
+    void end() {
+        if (!mRunning) return;
+        if (mRepeatCount != INFINITE) {
+            mPlayTime = mDuration * (mRepeatCount + 1);
+            mFraction = mInterpolator.getInterpolation(1);
+            mListener.onAnimationUpdate(this);
+        }
+        finish(false);
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * 插值后的进度
+     */
+    float getAnimatedFraction() {
+        return mFraction;
+    }
+
+    /**
+     * 从第一帧开始经过的时间，重复的动画也一直累加
+     */
+    long getCurrentPlayTime() {
+        return mPlayTime;
+    }
+
+    @Override
+    public void doFrame(long frameTimeMillis) {
+        if (!mRunning) return;
+        if (mStartTime < 0) mStartTime = frameTimeMillis;
+        //暂停恢复后的第一帧，帧时间可能比恢复时记录的时间略早
+        mPlayTime = Math.max(0, frameTimeMillis - mStartTime);
+
+        boolean finished = false;
+        float linear;
+        if (mRepeatCount != INFINITE && mPlayTime >= mDuration * (mRepeatCount + 1)) {
+            linear = 1;
+            finished = true;
+        } else {
+            linear = (float) (mPlayTime % mDuration) / mDuration;
+        }
+        mFraction = mInterpolator.getInterpolation(linear);
+        mListener.onAnimationUpdate(this);
+        //回调里可能已经cancel或者重新start
+        if (!mRunning) return;
+        if (finished && mStartTime >= 0) {
+            finish(false);
+        } else {
+            mClock.postFrameCallback(this);
+        }
+    }
+
+    private void finish(boolean cancelled) {
+        mRunning = false;
+        mClock.removeFrameCallback(this);
+        mListener.onAnimationEnd(this, cancelled);
+    }
+
+    interface Interpolator {
+        /**
+         * @param input 0~1的线性进度
+         */
+        float getInterpolation(float input);
+    }
+
+    /**
+     * 按需覆盖，和AnimatorListenerAdapter的用法一样
+     */
+    abstract static class Listener {
+        void onAnimationStart(ClockAnimator animator) {
+        }
+
+        void onAnimationUpdate(ClockAnimator animator) {
+        }
+
+        /**
+         * cancel或者自然结束都会回调
+         */
+        void onAnimationEnd(ClockAnimator animator, boolean cancelled) {
+        }
+    }
+}
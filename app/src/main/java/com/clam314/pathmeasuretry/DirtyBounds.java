@@ -0,0 +1,107 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 记录上一帧和这一帧画出内容的范围，刷新时只invalidate两者的并集
+ * 上一帧的范围要一起刷新，否则移走的部分会留在屏幕上；一帧内用reset/union累加，commit后这一帧变成上一帧
+ */
+
+final class DirtyBounds {
+    private float left, top, right, bottom;
+    private boolean empty = true;
+
+    private float lastLeft, lastTop, lastRight, lastBottom;
+    private boolean lastEmpty = true;
+
+    /**
+     * 开始记录新一帧的范围
+     */
+    void reset() {
+        empty = true;
+    }
+
+    void union(float l, float t, float r, float b) {
+        if (l > r || t > b) return;
+        if (empty) {
+            left = l;
+            top = t;
+            right = r;
+            bottom = b;
+            empty = false;
+            return;
+        }
+        if (l < left) left = l;
+        if (t < top) top = t;
+        if (r > right) right = r;
+        if (b > bottom) bottom = b;
+    }
+
+    void unionCircle(float cx, float cy, float radius) {
+        union(cx - radius, cy - radius, cx + radius, cy + radius);
+    }
+
+    void unionPoint(float x, float y) {
+        union(x, y, x, y);
+    }
+
+    /**
+     * 从offset开始的count个点，x,y交替存放
+     */
+    void unionPoints(float[] points, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            unionPoint(points[offset + i * 2], points[offset + i * 2 + 1]);
+        }
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * 上一帧和这一帧的并集向外扩outset(画笔宽度的一半加上抗锯齿)，再向外取整写到out(left,top,right,bottom)
+     * 之后这一帧的范围变成上一帧
+     *
+     * @return 两帧都没有内容时返回false，不需要刷新
+     */
+    boolean commit(float outset, int[] out) {
+        boolean hasDirty = !empty || !lastEmpty;
+        if (hasDirty) {
+            float l, t, r, b;
+            if (empty) {
+                l = lastLeft;
+                t = lastTop;
+                r = lastRight;
+                b = lastBottom;
+            } else if (lastEmpty) {
+                l = left;
+                t = top;
+                r = right;
+                b = bottom;
+            } else {
+                l = Math.min(left, lastLeft);
+                t = Math.min(top, lastTop);
+                r = Math.max(right, lastRight);
+                b = Math.max(bottom, lastBottom);
+            }
+            out[0] = floor(l - outset);
+            out[1] = floor(t - outset);
+            out[2] = ceil(r + outset);
+            out[3] = ceil(b + outset);
+        }
+        lastLeft = left;
+        lastTop = top;
+        lastRight = right;
+        lastBottom = bottom;
+        lastEmpty = empty;
+        return hasDirty;
+    }
+
+    private static int floor(float value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    private static int ceil(float value) {
+        int i = (int) value;
+        return value > i ? i + 1 : i;
+    }
+}
@@ -0,0 +1,55 @@
+package com.clam314.pathmeasuretry;
+
+import java.util.ArrayList;
+
+/**
+ * 等待下一帧的FrameCallback队列，ManualAnimationClock和FrameScheduler共用
+ * 两个列表交替使用：回调里重新post的进入下一帧，不会在这一帧里重复执行；列表复用，派发时不分配对象
+ */
+
+final class FrameCallbackQueue {
+    private ArrayList<AnimationClock.FrameCallback> mPending = new ArrayList<>();
+    private ArrayList<AnimationClock.FrameCallback> mRunning = new ArrayList<>();
+
+    void add(AnimationClock.FrameCallback callback) {
+        mPending.add(callback);
+    }
+
+    /**
+     * 和Choreographer一样移除所有相同的回调，这一帧里还没执行到的也不再执行
+     */
+    void remove(AnimationClock.FrameCallback callback) {
+        while (mPending.remove(callback)) {
+            //同一个回调可能被post了多次
+        }
+        int index = mRunning.indexOf(callback);
+        while (index >= 0) {
+            mRunning.set(index, null);
+            index = mRunning.indexOf(callback);
+        }
+    }
+
+    boolean isEmpty() {
+        return mPending.isEmpty();
+    }
+
+    /**
+     * 执行当前等待的所有回调
+     *
+     * @return 执行的回调个数
+     */
+    int dispatch(long frameTimeMillis) {
+        ArrayList<AnimationClock.FrameCallback> running = mPending;
+        mPending = mRunning;
+        mRunning = running;
+        int count = 0;
+        for (int i = 0; i < running.size(); i++) {
+            AnimationClock.FrameCallback callback = running.get(i);
+            if (callback == null) continue;
+            callback.doFrame(frameTimeMillis);
+            count++;
+        }
+        running.clear();
+        return count;
+    }
+}
@@ -0,0 +1,216 @@
+package com.clam314.pathmeasuretry;
+
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+
+/**
+ * 所有View共用的帧调度：每个View持有一个Client作为自己的AnimationClock，
+ * 不管有多少个View在动，每一帧只向底层时钟post一个回调，再分发给需要这一帧的Client
+ * View不可见或者离开窗口时Client暂停：回调留在Client里不派发，时间也停住，恢复后动画从暂停的地方继续
+ * View只需要调用一次Client.bind(this)，attach、可见性的变化由Client自己跟踪
+ * 只有正在等待下一帧的Client会被调度器引用，暂停或者动画结束的View不会因为调度器而泄漏
+ */
+
+final class FrameScheduler implements AnimationClock.FrameCallback {
+    private static FrameScheduler sDefault;
+
+    private final AnimationClock mBase;
+    private boolean mScheduled;
+    //等待下一帧的Client，两个列表交替使用
+    private ArrayList<Client> mRequested = new ArrayList<>();
+    private ArrayList<Client> mDispatching = new ArrayList<>();
+
+    FrameScheduler(AnimationClock base) {
+        mBase = base;
+    }
+
+    /**
+     * 主线程共用的调度器，由Choreographer驱动，只能在主线程调用
+     */
+    static FrameScheduler getDefault() {
+        if (sDefault == null) {
+            sDefault = new FrameScheduler(new ChoreographerClock());
+        }
+        return sDefault;
+    }
+
+    /**
+     * view已经attach，自己、所有父View和窗口都可见
+     */
+    static boolean isVisible(View view) {
+        return view.getWindowToken() != null && view.getWindowVisibility() == View.VISIBLE && view.isShown();
+    }
+
+    /**
+     * 新建一个Client，初始为暂停状态，bind(View)之后随View的可见性自动恢复和暂停
+     */
+    Client newClient() {
+        return new Client();
+    }
+
+    /**
+     * 当前在等待下一帧的Client个数
+     */
+    int getRequestedCount() {
+        return mRequested.size();
+    }
+
+    @Override
+    public void doFrame(long frameTimeMillis) {
+        mScheduled = false;
+        ArrayList<Client> dispatching = mRequested;
+        mRequested = mDispatching;
+        mDispatching = dispatching;
+        for (int i = 0; i < dispatching.size(); i++) {
+            //派发过程中暂停的Client会被置为null
+            Client client = dispatching.get(i);
+            if (client != null) client.dispatch(frameTimeMillis);
+        }
+        dispatching.clear();
+    }
+
+    private void request(Client client) {
+        if (mRequested.contains(client)) return;
+        mRequested.add(client);
+        if (!mScheduled) {
+            mScheduled = true;
+            mBase.postFrameCallback(this);
+        }
+    }
+
+    private void cancel(Client client) {
+        mRequested.remove(client);
+        int index = mDispatching.indexOf(client);
+        if (index >= 0) mDispatching.set(index, null);
+        if (mRequested.isEmpty() && mScheduled) {
+            mScheduled = false;
+            mBase.removeFrameCallback(this);
+        }
+    }
+
+    final class Client implements AnimationClock {
+        private final FrameCallbackQueue mQueue = new FrameCallbackQueue();
+        private View mView;
+        private boolean mActive;
+        private boolean mRequesting;
+        //暂停的总时长，Client的时间 = 底层时钟的时间 - 暂停的总时长
+        private long mPausedTotal;
+        private long mPausedAt;
+
+        private Client() {
+            mPausedAt = mBase.uptimeMillis();
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return (mActive ? mBase.uptimeMillis() : mPausedAt) - mPausedTotal;
+        }
+
+        @Override
+        public void postFrameCallback(FrameCallback callback) {
+            mQueue.add(callback);
+            if (mActive && !mRequesting) {
+                mRequesting = true;
+                request(this);
+            }
+        }
+
+        @Override
+        public void removeFrameCallback(FrameCallback callback) {
+            mQueue.remove(callback);
+            if (mQueue.isEmpty() && mRequesting) {
+                mRequesting = false;
+                cancel(this);
+            }
+        }
+
+        /**
+         * View attach并且可见时为true，暂停期间的时间不计入动画
+         */
+        void setActive(boolean active) {
+            if (active == mActive) return;
+            mActive = active;
+            if (active) {
+                mPausedTotal += mBase.uptimeMillis() - mPausedAt;
+                if (!mQueue.isEmpty()) {
+                    mRequesting = true;
+                    request(this);
+                }
+            } else {
+                mPausedAt = mBase.uptimeMillis();
+                if (mRequesting) {
+                    mRequesting = false;
+                    cancel(this);
+                }
+            }
+        }
+
+        boolean isActive() {
+            return mActive;
+        }
+
+        /**
+         * 按view的状态自动暂停和恢复：attach之后，view、所有父View和窗口都可见时才派发帧
+         * 父View或者窗口的可见性没有回调，attach期间每次onPreDraw、每次派发帧之前重新判断一次
+         */
+        void bind(View view) {
+            mView = view;
+            view.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+                //窗口被遮住后不会再绘制，这时由派发帧之前的检查负责暂停
+                private final ViewTreeObserver.OnPreDrawListener mPreDraw = new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        refresh();
+                        return true;
+                    }
+                };
+
+                @Override
+                public void onViewAttachedToWindow(View v) {
+                    v.getViewTreeObserver().addOnPreDrawListener(mPreDraw);
+                    refresh();
+                }
+
+                @Override
+                public void onViewDetachedFromWindow(View v) {
+                    v.getViewTreeObserver().removeOnPreDrawListener(mPreDraw);
+                    refresh();
+                }
+            });
+            refresh();
+        }
+
+        /**
+         * 按绑定的view重新判断是否暂停，没有绑定时直接返回当前状态
+         *
+         * @return 是否在派发帧
+         */
+        boolean refresh() {
+            if (mView == null) return mActive;
+            boolean active = isVisible(mView);
+            setActive(active);
+            return active;
+        }
+
+        /**
+         * 有动画在等待下一帧，暂停时也可能为true
+         */
+        boolean hasPendingFrame() {
+            return !mQueue.isEmpty();
+        }
+
+        private void dispatch(long frameTimeMillis) {
+            mRequesting = false;
+            //变成不可见时回调留在队列里，恢复后再派发
+            if (!refresh()) return;
+            mQueue.dispatch(frameTimeMillis - mPausedTotal);
+            //回调里重新post的动画需要下一帧
+            if (mActive && !mRequesting && !mQueue.isEmpty()) {
+                mRequesting = true;
+                request(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.clam314.pathmeasuretry;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按View统计onDraw耗时的工具，默认关闭，调用setEnabled(true)后才开始记录
+ * 耗时记录在固定大小的直方图里，内存不会随帧数增长，可以随时查询p50/p95/p99
+ * 另外记录帧数、Path重建次数以及各View自己上报的对象分配数
+ */
+
+public final class FrameStats {
+    //每个桶100微秒，覆盖0~50ms，超出的都算进最后一个桶
+    private static final long BUCKET_NANOS = 100000L;
+    private static final int BUCKET_COUNT = 501;
+
+    private static volatile boolean sEnabled = false;
+    private static final Map<String, FrameStats> sRegistry = new LinkedHashMap<>();
+
+    private final String mName;
+    private final int[] mBuckets = new int[BUCKET_COUNT];
+    private long mFrameCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+    private long mPathRebuilds;
+    private long mAllocations;
+
+    private FrameStats(String name) {
+        mName = name;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * 获取name对应的统计，同名的View共用一份
+     */
+    public static FrameStats get(String name) {
+        synchronized (sRegistry) {
+            FrameStats stats = sRegistry.get(name);
+            if (stats == null) {
+                stats = new FrameStats(name);
+                sRegistry.put(name, stats);
+            }
+            return stats;
+        }
+    }
+
+    public static String dumpAll() {
+        StringBuilder builder = new StringBuilder();
+        synchronized (sRegistry) {
+            for (FrameStats stats : sRegistry.values()) {
+                builder.append(stats.dump()).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    public static void resetAll() {
+        synchronized (sRegistry) {
+            for (FrameStats stats : sRegistry.values()) {
+                stats.reset();
+            }
+        }
+    }
+
+    /**
+     * 在onDraw开始时调用，没有开启时返回-1，end()会直接忽略
+     */
+    long begin() {
+        return begin(false);
+    }
+
+    /**
+     * @param timed 没有开启统计时也计时，例如耗时还要交给QualityGovernor
+     */
+    long begin(boolean timed) {
+        return sEnabled || timed ? System.nanoTime() : -1;
+    }
+
+    /**
+     * @return 从begin()到现在的耗时，begin()返回-1时也返回-1
+     */
+    long end(long beginNanos) {
+        if (beginNanos < 0) return -1;
+        long nanos = System.nanoTime() - beginNanos;
+        if (sEnabled) record(nanos);
+        return nanos;
+    }
+
+    synchronized void record(long nanos) {
+        int bucket = (int) Math.min(nanos / BUCKET_NANOS, BUCKET_COUNT - 1);
+        mBuckets[bucket]++;
+        mFrameCount++;
+        mTotalNanos += nanos;
+        if (nanos > mMaxNanos) mMaxNanos = nanos;
+    }
+
+    void countPathRebuild() {
+        if (!sEnabled) return;
+        synchronized (this) {
+            mPathRebuilds++;
+        }
+    }
+
+    void countAllocations(int count) {
+        if (!sEnabled) return;
+        synchronized (this) {
+            mAllocations += count;
+        }
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public synchronized long getFrameCount() {
+        return mFrameCount;
+    }
+
+    public synchronized long getPathRebuilds() {
+        return mPathRebuilds;
+    }
+
+    public synchronized float getAllocationsPerFrame() {
+        return mFrameCount == 0 ? 0 : (float) mAllocations / mFrameCount;
+    }
+
+    public synchronized float getAverageMillis() {
+        return mFrameCount == 0 ? 0 : mTotalNanos / 1e6f / mFrameCount;
+    }
+
+    public synchronized float getMaxMillis() {
+        return mMaxNanos / 1e6f;
+    }
+
+    /**
+     * @param percentile 0~1，例如0.95表示p95
+     * @return 对应分位的耗时上界，精度为一个桶(0.1ms)
+     */
+    public synchronized float getPercentileMillis(float percentile) {
+        if (mFrameCount == 0) return 0;
+        long target = (long) Math.ceil(mFrameCount * percentile);
+        if (target < 1) target = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets[i];
+            if (seen >= target) {
+                if (i == BUCKET_COUNT - 1) return getMaxMillis();
+                return (i + 1) * BUCKET_NANOS / 1e6f;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets[i] = 0;
+        }
+        mFrameCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+        mPathRebuilds = 0;
+        mAllocations = 0;
+    }
+
+    public synchronized String dump() {
+        return String.format(Locale.US,
+                "%s: frames=%d avg=%.2fms p50=%.1fms p95=%.1fms p99=%.1fms max=%.2fms rebuilds=%d allocs/frame=%.2f",
+                mName, mFrameCount, getAverageMillis(), getPercentileMillis(0.5f), getPercentileMillis(0.95f),
+                getPercentileMillis(0.99f), getMaxMillis(), mPathRebuilds, getAllocationsPerFrame());
+    }
+}
@@ -0,0 +1,182 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 拖动点的均匀网格索引：按坐标把点分到边长为cellSize的格子里，查找只看触控点周围的几个格子
+ * 格子通过哈希映射到固定数量的桶，每个桶是一条双向链表，移动一个点只需要把它从旧桶摘到新桶
+ */
+
+final class HandleGrid {
+    private final float cellSize;
+    private final int bucketMask;
+    private final int[] bucketHead;
+
+    private int[] next;
+    private int[] prev;
+    private int[] bucketOf;
+    private float[] xs;
+    private float[] ys;
+    private int count;
+
+    /**
+     * @param cellSize 格子边长，取触发半径时查找只需要看3x3个格子
+     * @param capacity 预计的点数，用来决定桶的数量
+     */
+    HandleGrid(float cellSize, int capacity) {
+        this.cellSize = cellSize;
+        int buckets = Integer.highestOneBit(Math.max(16, capacity) * 4 - 1);
+        bucketMask = buckets - 1;
+        bucketHead = new int[buckets];
+        ensureCapacity(capacity);
+        clear();
+    }
+
+    void clear() {
+        for (int i = 0; i < bucketHead.length; i++) {
+            bucketHead[i] = -1;
+        }
+        count = 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * 添加一个点，返回它的编号(按添加顺序从0开始)
+     */
+    int add(float x, float y) {
+        ensureCapacity(count + 1);
+        int handle = count++;
+        xs[handle] = x;
+        ys[handle] = y;
+        link(handle, bucket(x, y));
+        return handle;
+    }
+
+    void move(int handle, float x, float y) {
+        xs[handle] = x;
+        ys[handle] = y;
+        int bucket = bucket(x, y);
+        if (bucket == bucketOf[handle]) return;
+        unlink(handle);
+        link(handle, bucket);
+    }
+
+    float getX(int handle) {
+        return xs[handle];
+    }
+
+    float getY(int handle) {
+        return ys[handle];
+    }
+
+    /**
+     * 查找radius范围内离(x,y)最近的点，没有则返回-1
+     */
+    int findNearest(float x, float y, float radius) {
+        int minCellX = cell(x - radius);
+        int maxCellX = cell(x + radius);
+        int minCellY = cell(y - radius);
+        int maxCellY = cell(y + radius);
+
+        int nearest = -1;
+        float nearestDistance = radius * radius;
+        for (int cy = minCellY; cy <= maxCellY; cy++) {
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                //不同的格子可能哈希到同一个桶，所以这里按真实距离判断
+                for (int h = bucketHead[hash(cx, cy)]; h != -1; h = next[h]) {
+                    float dx = xs[h] - x;
+                    float dy = ys[h] - y;
+                    float distance = dx * dx + dy * dy;
+                    if (distance <= nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = h;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * 把radius范围内的所有点写入out，返回找到的个数，超过out长度的部分会被丢弃
+     */
+    int query(float x, float y, float radius, int[] out) {
+        int minCellX = cell(x - radius);
+        int maxCellX = cell(x + radius);
+        int minCellY = cell(y - radius);
+        int maxCellY = cell(y + radius);
+
+        int found = 0;
+        float radiusSquare = radius * radius;
+        for (int cy = minCellY; cy <= maxCellY; cy++) {
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                int bucket = hash(cx, cy);
+                for (int h = bucketHead[bucket]; h != -1; h = next[h]) {
+                    float dx = xs[h] - x;
+                    float dy = ys[h] - y;
+                    if (dx * dx + dy * dy > radiusSquare) continue;
+                    //两个相邻格子哈希到同一个桶时，桶里的点会被看到两次，只在点真正所在的格子里收集
+                    if (cell(xs[h]) != cx || cell(ys[h]) != cy) continue;
+                    if (found < out.length) out[found] = h;
+                    found++;
+                }
+            }
+        }
+        return Math.min(found, out.length);
+    }
+
+    private int cell(float value) {
+        return (int) Math.floor(value / cellSize);
+    }
+
+    private int bucket(float x, float y) {
+        return hash(cell(x), cell(y));
+    }
+
+    private int hash(int cx, int cy) {
+        return (cx * 73856093 ^ cy * 19349663) & bucketMask;
+    }
+
+    private void link(int handle, int bucket) {
+        int head = bucketHead[bucket];
+        next[handle] = head;
+        prev[handle] = -1;
+        if (head != -1) prev[head] = handle;
+        bucketHead[bucket] = handle;
+        bucketOf[handle] = bucket;
+    }
+
+    private void unlink(int handle) {
+        int p = prev[handle];
+        int n = next[handle];
+        if (p != -1) {
+            next[p] = n;
+        } else {
+            bucketHead[bucketOf[handle]] = n;
+        }
+        if (n != -1) prev[n] = p;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (xs != null && xs.length >= capacity) return;
+        int size = Math.max(capacity, xs == null ? 16 : xs.length * 2);
+        next = grow(next, size);
+        prev = grow(prev, size);
+        bucketOf = grow(bucketOf, size);
+        xs = grow(xs, size);
+        ys = grow(ys, size);
+    }
+
+    private int[] grow(int[] array, int size) {
+        int[] grown = new int[size];
+        if (array != null) System.arraycopy(array, 0, grown, 0, count);
+        return grown;
+    }
+
+    private float[] grow(float[] array, int size) {
+        float[] grown = new float[size];
+        if (array != null) System.arraycopy(array, 0, grown, 0, count);
+        return grown;
+    }
+}
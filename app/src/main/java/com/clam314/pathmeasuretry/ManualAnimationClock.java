@@ -0,0 +1,82 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 手动推进的动画时钟，供测试和基准测试使用：step一次就是一帧，时间不会自己走
+ * 可以在不等待的情况下把整个动画按固定帧间隔跑完，每帧只剩下动画本身的计算
+ */
+
+final class ManualAnimationClock implements AnimationClock {
+    //60fps的帧间隔，取整到毫秒
+    static final long DEFAULT_FRAME_INTERVAL = 16;
+
+    private long mNow;
+    private final FrameCallbackQueue mQueue = new FrameCallbackQueue();
+    private long mFrameCount;
+
+    ManualAnimationClock() {
+        this(0);
+    }
+
+    ManualAnimationClock(long startMillis) {
+        mNow = startMillis;
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mNow;
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        mQueue.add(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mQueue.remove(callback);
+    }
+
+    /**
+     * 时间前进frameMillis毫秒，然后执行所有在等待下一帧的回调
+     *
+     * @return 执行的回调个数
+     */
+    int step(long frameMillis) {
+        mNow += frameMillis;
+        mFrameCount++;
+        return mQueue.dispatch(mNow);
+    }
+
+    /**
+     * 按frameMillis的间隔一帧一帧地推进，直到经过durationMillis或者没有回调在等待
+     *
+     * @return 实际推进的帧数
+     */
+    int advance(long durationMillis, long frameMillis) {
+        if (frameMillis <= 0) {
+            throw new IllegalArgumentException("frameMillis must be positive");
+        }
+        int frames = 0;
+        long end = mNow + durationMillis;
+        while (mNow + frameMillis <= end && hasPendingFrame()) {
+            step(frameMillis);
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * 不执行回调，只让时间前进，模拟主线程卡顿
+     */
+    void skip(long millis) {
+        mNow += millis;
+    }
+
+    boolean hasPendingFrame() {
+        return !mQueue.isEmpty();
+    }
+
+    long getFrameCount() {
+        return mFrameCount;
+    }
+}
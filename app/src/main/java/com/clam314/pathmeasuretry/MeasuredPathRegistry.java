@@ -0,0 +1,141 @@
+package com.clam314.pathmeasuretry;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 进程内共享的测量结果：几何参数相同的路径只测量一次，所有View实例共用同一份
+ * 放在列表里的几十个SearchView、StickyCircleView不会各自重复展开圆弧、生成Path和片段缓存
+ * 共享的对象用SoftReference持有，有View在用时一直有效，都不用之后内存紧张时会被回收，下次用到再重新生成
+ * 共享的PathLengthTable在放进来之前已经seal，不能再修改；其它共享对象也只能在主线程读取
+ */
+
+final class MeasuredPathRegistry {
+    private static final Map<Key, Entry> sEntries = new HashMap<>();
+    private static final ReferenceQueue<Object> sQueue = new ReferenceQueue<>();
+
+    private MeasuredPathRegistry() {
+    }
+
+    /**
+     * 和PathLengthTable.addArc参数一致的圆弧
+     */
+    static PathLengthTable arc(final float centerX, final float centerY, final float radius,
+                               final float startAngle, final float sweepAngle) {
+        return get(new Key("arc", centerX, centerY, radius, startAngle, sweepAngle), new Factory<PathLengthTable>() {
+            @Override
+            public PathLengthTable create() {
+                PathLengthTable table = new PathLengthTable();
+                table.addArc(centerX, centerY, radius, startAngle, sweepAngle);
+                return table;
+            }
+        });
+    }
+
+    /**
+     * 圆弧之后再连一条直线到(lineX,lineY)
+     */
+    static PathLengthTable arcThenLine(final float centerX, final float centerY, final float radius,
+                                       final float startAngle, final float sweepAngle,
+                                       final float lineX, final float lineY) {
+        return get(new Key("arcThenLine", centerX, centerY, radius, startAngle, sweepAngle, lineX, lineY),
+                new Factory<PathLengthTable>() {
+                    @Override
+                    public PathLengthTable create() {
+                        PathLengthTable table = new PathLengthTable();
+                        table.addArc(centerX, centerY, radius, startAngle, sweepAngle);
+                        table.lineTo(lineX, lineY);
+                        return table;
+                    }
+                });
+    }
+
+    /**
+     * 取key对应的共享对象，没有或者已经被回收时用factory生成；生成的PathLengthTable会被seal
+     */
+    @SuppressWarnings("unchecked")
+    static synchronized <T> T get(Key key, Factory<T> factory) {
+        purge();
+        Entry entry = sEntries.get(key);
+        Object value = entry != null ? entry.get() : null;
+        if (value == null) {
+            value = factory.create();
+            if (value instanceof PathLengthTable) ((PathLengthTable) value).seal();
+            sEntries.put(key, new Entry(key, value));
+        }
+        return (T) value;
+    }
+
+    /**
+     * 当前还有效的共享对象个数
+     */
+    static synchronized int size() {
+        purge();
+        return sEntries.size();
+    }
+
+    /**
+     * 只影响之后的get，已经拿到共享对象的View继续使用原来的
+     */
+    static synchronized void clear() {
+        sEntries.clear();
+        purge();
+    }
+
+    //移除已经被回收的对象对应的key
+    private static void purge() {
+        Entry entry;
+        while ((entry = (Entry) sQueue.poll()) != null) {
+            if (sEntries.get(entry.key) == entry) sEntries.remove(entry.key);
+        }
+    }
+
+    interface Factory<T> {
+        T create();
+    }
+
+    /**
+     * 共享对象的种类加上它的几何参数，参数按float比较
+     */
+    static final class Key {
+        private final String kind;
+        private final float[] params;
+        private final int hash;
+
+        Key(String kind, float... params) {
+            this.kind = kind;
+            this.params = params;
+            hash = kind.hashCode() * 31 + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && kind.equals(other.kind) && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return kind + Arrays.toString(params);
+        }
+    }
+
+    private static final class Entry extends SoftReference<Object> {
+        final Key key;
+
+        Entry(Key key, Object value) {
+            super(value, sQueue);
+            this.key = key;
+        }
+    }
+}
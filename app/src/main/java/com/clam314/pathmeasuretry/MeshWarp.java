@@ -0,0 +1,68 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * drawBitmapMesh用的网格：把图片分成cols x rows格，每个顶点都可以拖动
+ * 顶点坐标直接保存在drawBitmapMesh需要的数组里，拖动时只改一个顶点和它在索引中的位置
+ */
+
+final class MeshWarp {
+    final int cols;
+    final int rows;
+    //x,y交替存放，按行排列，可以直接传给Canvas.drawBitmapMesh
+    final float[] vertices;
+
+    private final float[] origin;
+    private final HandleGrid grid;
+
+    MeshWarp(float width, float height, int cols, int rows, float cellSize) {
+        if (cols <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("cols and rows must be positive");
+        }
+        this.cols = cols;
+        this.rows = rows;
+        int count = (cols + 1) * (rows + 1);
+        vertices = new float[count * 2];
+        origin = new float[count * 2];
+        grid = new HandleGrid(cellSize, count);
+
+        int index = 0;
+        for (int y = 0; y <= rows; y++) {
+            float fy = height * y / rows;
+            for (int x = 0; x <= cols; x++) {
+                float fx = width * x / cols;
+                origin[index * 2] = fx;
+                origin[index * 2 + 1] = fy;
+                index++;
+            }
+        }
+        reset();
+    }
+
+    int getVertexCount() {
+        return vertices.length / 2;
+    }
+
+    /**
+     * 所有顶点回到初始位置
+     */
+    void reset() {
+        System.arraycopy(origin, 0, vertices, 0, origin.length);
+        grid.clear();
+        for (int i = 0; i < origin.length; i += 2) {
+            grid.add(origin[i], origin[i + 1]);
+        }
+    }
+
+    /**
+     * 查找radius范围内离(x,y)最近的顶点，没有则返回-1
+     */
+    int findHandle(float x, float y, float radius) {
+        return grid.findNearest(x, y, radius);
+    }
+
+    void moveHandle(int handle, float x, float y) {
+        vertices[handle * 2] = x;
+        vertices[handle * 2 + 1] = y;
+        grid.move(handle, x, y);
+    }
+}
@@ -0,0 +1,261 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 多个圆的粘性效果：每个触控点对应一个圆，也可以用代码添加圆
+ * 圆的状态保存在按槽位复用的基本类型数组里，删除的槽位放进空闲栈，下次添加时优先使用
+ * 每次update把存活的圆放进均匀网格，只对连接距离内的相邻圆计算StickyGeometry的连接曲线
+ * 数组只在圆或连接曲线的数量超过历史最大值时扩容，之后的每一帧都不分配对象
+ */
+
+final class MetaballEngine {
+    static final int NO_POINTER = -1;
+
+    private final float defaultRadius;
+    private final float linkDistance;
+    private final HandleGrid grid;
+
+    //按槽位存放，alive为false的槽位在空闲栈里
+    private float[] xs;
+    private float[] ys;
+    private float[] radii;
+    private int[] pointerIds;
+    private boolean[] alive;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    private int blobCount;
+
+    //网格里的编号到槽位的映射，以及查询相邻圆用的缓冲
+    private int[] handleToSlot;
+    private int[] neighbors;
+
+    //所有连接曲线连续存放，每条占BRIDGE_SIZE个位置，下标见StickyGeometry
+    float[] bridges;
+    private int bridgeCount;
+    private boolean dirty = true;
+
+    /**
+     * @param defaultRadius 触控点对应的圆的半径
+     * @param linkDistance  两个圆心的距离小于这个值才会被连接起来
+     * @param capacity      预计同时存在的圆的个数
+     */
+    MetaballEngine(float defaultRadius, float linkDistance, int capacity) {
+        if (linkDistance <= 0) {
+            throw new IllegalArgumentException("linkDistance must be positive");
+        }
+        this.defaultRadius = defaultRadius;
+        this.linkDistance = linkDistance;
+        capacity = Math.max(1, capacity);
+        //格子边长取连接距离，查找相邻圆时只需要看3x3个格子
+        grid = new HandleGrid(linkDistance, capacity);
+        ensureSlots(capacity);
+        handleToSlot = new int[capacity];
+        neighbors = new int[capacity];
+        bridges = new float[capacity * StickyGeometry.BRIDGE_SIZE];
+    }
+
+    float getLinkDistance() {
+        return linkDistance;
+    }
+
+    /**
+     * 添加一个圆，返回它的编号，删除之前编号不会变
+     */
+    int addBlob(float x, float y, float radius) {
+        return addBlob(x, y, radius, NO_POINTER);
+    }
+
+    void moveBlob(int blob, float x, float y) {
+        if (!isAlive(blob)) return;
+        xs[blob] = x;
+        ys[blob] = y;
+        dirty = true;
+    }
+
+    void setRadius(int blob, float radius) {
+        if (!isAlive(blob)) return;
+        radii[blob] = radius;
+        dirty = true;
+    }
+
+    void removeBlob(int blob) {
+        if (!isAlive(blob)) return;
+        alive[blob] = false;
+        pointerIds[blob] = NO_POINTER;
+        freeSlots[freeCount++] = blob;
+        blobCount--;
+        dirty = true;
+    }
+
+    void clear() {
+        for (int i = 0; i < slotCount; i++) {
+            alive[i] = false;
+            pointerIds[i] = NO_POINTER;
+        }
+        slotCount = 0;
+        freeCount = 0;
+        blobCount = 0;
+        bridgeCount = 0;
+        dirty = true;
+    }
+
+    /**
+     * 手指按下时添加一个默认半径的圆，同一个pointerId已经有圆时只移动它
+     */
+    int pointerDown(int pointerId, float x, float y) {
+        int blob = findPointer(pointerId);
+        if (blob != -1) {
+            moveBlob(blob, x, y);
+            return blob;
+        }
+        return addBlob(x, y, defaultRadius, pointerId);
+    }
+
+    void pointerMove(int pointerId, float x, float y) {
+        moveBlob(findPointer(pointerId), x, y);
+    }
+
+    void pointerUp(int pointerId) {
+        removeBlob(findPointer(pointerId));
+    }
+
+    /**
+     * 返回pointerId对应的圆，没有则返回-1；同时触控的点不多，直接遍历
+     */
+    int findPointer(int pointerId) {
+        if (pointerId == NO_POINTER) return -1;
+        for (int i = 0; i < slotCount; i++) {
+            if (alive[i] && pointerIds[i] == pointerId) return i;
+        }
+        return -1;
+    }
+
+    boolean isAlive(int blob) {
+        return blob >= 0 && blob < slotCount && alive[blob];
+    }
+
+    /**
+     * 槽位的上界，遍历所有圆时配合isAlive使用
+     */
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    int getBlobCount() {
+        return blobCount;
+    }
+
+    float getX(int blob) {
+        return xs[blob];
+    }
+
+    float getY(int blob) {
+        return ys[blob];
+    }
+
+    float getRadius(int blob) {
+        return radii[blob];
+    }
+
+    int getBridgeCount() {
+        return bridgeCount;
+    }
+
+    /**
+     * 圆有变化时重新计算所有连接曲线，没有变化直接返回false
+     */
+    boolean update() {
+        if (!dirty) return false;
+        dirty = false;
+
+        grid.clear();
+        for (int i = 0; i < slotCount; i++) {
+            if (!alive[i]) continue;
+            int handle = grid.add(xs[i], ys[i]);
+            handleToSlot[handle] = i;
+        }
+
+        bridgeCount = 0;
+        int handles = grid.size();
+        for (int h = 0; h < handles; h++) {
+            int a = handleToSlot[h];
+            int found = grid.query(xs[a], ys[a], linkDistance, neighbors);
+            for (int n = 0; n < found; n++) {
+                //每一对只算一次
+                int other = neighbors[n];
+                if (other <= h) continue;
+                addBridge(a, handleToSlot[other]);
+            }
+        }
+        return true;
+    }
+
+    private void addBridge(int a, int b) {
+        //先用距离的平方排除，不需要开方
+        float distanceSquare = VectorMath.dist2(xs[a], ys[a], xs[b], ys[b]);
+        float inner = radii[a] - radii[b];
+        //一个圆完全盖住另一个圆时不需要连接
+        if (distanceSquare >= linkDistance * linkDistance || distanceSquare <= inner * inner) return;
+        float distance = distanceSquare * VectorMath.invSqrt(distanceSquare);
+
+        //离得越远连接处越细，和StickyCircleView里拉开时开始圆变小的效果一致
+        float scale = 1 - distance / linkDistance;
+        int offset = bridgeCount * StickyGeometry.BRIDGE_SIZE;
+        if (offset + StickyGeometry.BRIDGE_SIZE > bridges.length) {
+            float[] grown = new float[bridges.length * 2];
+            System.arraycopy(bridges, 0, grown, 0, offset);
+            bridges = grown;
+        }
+        if (StickyGeometry.calculateBezierCurve(xs[a], ys[a], radii[a] * scale,
+                xs[b], ys[b], radii[b] * scale, bridges, offset)) {
+            bridgeCount++;
+        }
+    }
+
+    private int addBlob(float x, float y, float radius, int pointerId) {
+        int blob;
+        if (freeCount > 0) {
+            blob = freeSlots[--freeCount];
+        } else {
+            ensureSlots(slotCount + 1);
+            blob = slotCount++;
+        }
+        xs[blob] = x;
+        ys[blob] = y;
+        radii[blob] = radius;
+        pointerIds[blob] = pointerId;
+        alive[blob] = true;
+        blobCount++;
+        dirty = true;
+        return blob;
+    }
+
+    private void ensureSlots(int capacity) {
+        if (xs != null && xs.length >= capacity) return;
+        int size = Math.max(capacity, xs == null ? 0 : xs.length * 2);
+        xs = grow(xs, size);
+        ys = grow(ys, size);
+        radii = grow(radii, size);
+        pointerIds = grow(pointerIds, size);
+        freeSlots = grow(freeSlots, size);
+        boolean[] grownAlive = new boolean[size];
+        if (alive != null) System.arraycopy(alive, 0, grownAlive, 0, alive.length);
+        alive = grownAlive;
+        if (handleToSlot != null) {
+            handleToSlot = grow(handleToSlot, size);
+            neighbors = grow(neighbors, size);
+        }
+    }
+
+    private static float[] grow(float[] array, int size) {
+        float[] grown = new float[size];
+        if (array != null) System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    private static int[] grow(int[] array, int size) {
+        int[] grown = new int[size];
+        if (array != null) System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,133 @@
+package com.clam314.pathmeasuretry;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * 多点触控的粘性圆：每根手指拖出一个圆，离得近的圆之间用贝塞尔曲线连起来
+ * 计算交给MetaballEngine，这里只负责把触控事件转给它，以及把圆和连接曲线画出来
+ */
+
+public class MetaballView extends View {
+    private static final float DEFAULT_RADIUS = 80f;
+    private static final float LINK_DISTANCE = 400f;
+    //一般设备最多同时识别10个触控点
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private int circleColor = Color.parseColor("#00ffad");
+
+    private MetaballEngine mEngine;
+    private Paint mPaint;
+    //所有连接曲线放在同一个path里，一帧只画一次
+    private Path mBridgePath;
+    private AndroidPathSink mBridgeSink;
+
+    private FrameStats mFrameStats;
+
+    public MetaballView(Context context) {
+        this(context, null);
+    }
+
+    public MetaballView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MetaballView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        //关闭硬件加速，否则部分path的绘制不生效
+        setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        mFrameStats = FrameStats.get(getClass().getSimpleName());
+        mEngine = new MetaballEngine(DEFAULT_RADIUS, LINK_DISTANCE, DEFAULT_CAPACITY);
+
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(circleColor);
+
+        mBridgePath = new Path();
+        mBridgeSink = new AndroidPathSink(mBridgePath);
+    }
+
+    /**
+     * 用代码添加一个不跟随手指的圆，返回的编号用于moveBlob和removeBlob
+     */
+    public int addBlob(float x, float y, float radius) {
+        int blob = mEngine.addBlob(x, y, radius);
+        invalidate();
+        return blob;
+    }
+
+    public void moveBlob(int blob, float x, float y) {
+        mEngine.moveBlob(blob, x, y);
+        invalidate();
+    }
+
+    public void removeBlob(int blob) {
+        mEngine.removeBlob(blob);
+        invalidate();
+    }
+
+    public void clearBlobs() {
+        mEngine.clear();
+        invalidate();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        int index = event.getActionIndex();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                mEngine.pointerDown(event.getPointerId(index), event.getX(index), event.getY(index));
+                break;
+            case MotionEvent.ACTION_MOVE:
+                //一个MOVE事件里包含所有手指的位置，圆只需要跟到每根手指最新的位置，不用处理历史点
+                for (int i = 0; i < event.getPointerCount(); i++) {
+                    mEngine.pointerMove(event.getPointerId(i), event.getX(i), event.getY(i));
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                mEngine.pointerUp(event.getPointerId(index));
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                //只移除手指对应的圆，代码添加的圆保留
+                for (int i = 0; i < event.getPointerCount(); i++) {
+                    mEngine.pointerUp(event.getPointerId(i));
+                }
+                break;
+        }
+        postInvalidateOnAnimation();
+        return true;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long drawStart = mFrameStats.begin();
+        //连接曲线只在圆有变化时重新计算
+        if (mEngine.update()) {
+            rebuildBridgePath();
+        }
+
+        for (int i = 0; i < mEngine.getSlotCount(); i++) {
+            if (!mEngine.isAlive(i)) continue;
+            canvas.drawCircle(mEngine.getX(i), mEngine.getY(i), mEngine.getRadius(i), mPaint);
+        }
+        canvas.drawPath(mBridgePath, mPaint);
+        mFrameStats.end(drawStart);
+    }
+
+    private void rebuildBridgePath() {
+        mBridgeSink.reset();
+        for (int i = 0; i < mEngine.getBridgeCount(); i++) {
+            StickyGeometry.buildBridgePath(mEngine.bridges, i * StickyGeometry.BRIDGE_SIZE, mBridgeSink);
+        }
+        mFrameStats.countPathRebuild();
+    }
+}
@@ -0,0 +1,226 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 纯Java实现的PathMeasure：把路径一次性展开成折线并记录累计长度，
+ * 之后的getPosTan和getSegment都只是在累计长度数组上二分查找，不走JNI，也能在JVM上测试
+ * 只支持一条连续的轮廓(相当于PathMeasure只测量第一段contour)
+ */
+
+class PathLengthTable {
+    static final float DEFAULT_DEGREES_PER_SEGMENT = 2f;
+
+    private final float mDegreesPerSegment;
+
+    private float[] mPoints = new float[64];    // x,y交替存放
+    private float[] mLengths = new float[32];   // mLengths[i]为起点到第i个点的长度
+    private int mCount = 0;
+    //共享给多个View之后不能再修改，见MeasuredPathRegistry
+    private boolean mSealed = false;
+
+    PathLengthTable() {
+        this(DEFAULT_DEGREES_PER_SEGMENT);
+    }
+
+    /**
+     * @param degreesPerSegment 圆弧展开成折线时每一段对应的最大角度，越小越精确
+     */
+    PathLengthTable(float degreesPerSegment) {
+        mDegreesPerSegment = degreesPerSegment;
+    }
+
+    void reset() {
+        checkMutable();
+        mCount = 0;
+    }
+
+    /**
+     * 之后再修改会抛出IllegalStateException，多个线程同时读取也是安全的
+     */
+    void seal() {
+        mSealed = true;
+    }
+
+    boolean isSealed() {
+        return mSealed;
+    }
+
+    void moveTo(float x, float y) {
+        checkMutable();
+        if (mCount > 0) {
+            throw new IllegalStateException("PathLengthTable only supports a single contour");
+        }
+        append(x, y);
+    }
+
+    void lineTo(float x, float y) {
+        checkMutable();
+        if (mCount == 0) {
+            append(0, 0);
+        }
+        append(x, y);
+    }
+
+    /**
+     * 和Path.addArc一样，oval为以(centerX,centerY)为中心、radius为半径的圆，角度单位为度
+     * 如果之前已经有点，会先连一条直线到圆弧的起点
+     */
+    void addArc(float centerX, float centerY, float radius, float startAngle, float sweepAngle) {
+        int segments = Math.max(1, (int) Math.ceil(Math.abs(sweepAngle) / mDegreesPerSegment));
+        double start = Math.toRadians(startAngle);
+        double step = Math.toRadians(sweepAngle) / segments;
+        for (int i = 0; i <= segments; i++) {
+            double angle = start + step * i;
+            float x = centerX + (float) (radius * Math.cos(angle));
+            float y = centerY + (float) (radius * Math.sin(angle));
+            if (i == 0 && mCount == 0) {
+                moveTo(x, y);
+            } else {
+                lineTo(x, y);
+            }
+        }
+    }
+
+    float getLength() {
+        return mCount == 0 ? 0 : mLengths[mCount - 1];
+    }
+
+    int getPointCount() {
+        return mCount;
+    }
+
+    /**
+     * 所有点的范围，按left,top,right,bottom写到out；没有点时返回false
+     */
+    boolean getBounds(float[] out) {
+        if (mCount == 0) return false;
+        float left = mPoints[0], top = mPoints[1], right = left, bottom = top;
+        for (int i = 1; i < mCount; i++) {
+            float x = mPoints[i * 2];
+            float y = mPoints[i * 2 + 1];
+            if (x < left) left = x;
+            if (x > right) right = x;
+            if (y < top) top = y;
+            if (y > bottom) bottom = y;
+        }
+        out[0] = left;
+        out[1] = top;
+        out[2] = right;
+        out[3] = bottom;
+        return true;
+    }
+
+    /**
+     * getSegment输出需要的float数组的最大长度
+     */
+    int getMaxSegmentSize() {
+        return (mCount + 1) * 2;
+    }
+
+    /**
+     * 获取距离起点distance处的坐标和单位切线，pos和tan都可以为null
+     */
+    boolean getPosTan(float distance, float[] pos, float[] tan) {
+        if (mCount < 2) return false;
+        float length = getLength();
+        if (distance < 0) distance = 0;
+        if (distance > length) distance = length;
+
+        int i = findSegment(distance);
+        float x0 = mPoints[i * 2];
+        float y0 = mPoints[i * 2 + 1];
+        float dx = mPoints[i * 2 + 2] - x0;
+        float dy = mPoints[i * 2 + 3] - y0;
+        float segmentLength = mLengths[i + 1] - mLengths[i];
+        if (pos != null) {
+            float t = segmentLength > 0 ? (distance - mLengths[i]) / segmentLength : 0;
+            pos[0] = x0 + dx * t;
+            pos[1] = y0 + dy * t;
+        }
+        if (tan != null) {
+            if (segmentLength > 0) {
+                tan[0] = dx / segmentLength;
+                tan[1] = dy / segmentLength;
+            } else {
+                tan[0] = 1;
+                tan[1] = 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 截取startD到stopD之间的折线，坐标按x,y交替写入out
+     * 和PathMeasure.getSegment一样，起止距离会被限制在[0, getLength()]内，startD>=stopD时不输出
+     *
+     * @return 写入的点数，out至少要有getMaxSegmentSize()的长度
+     */
+    int getSegment(float startD, float stopD, float[] out) {
+        if (mCount < 2) return 0;
+        float length = getLength();
+        if (startD < 0) startD = 0;
+        if (stopD > length) stopD = length;
+        if (startD >= stopD) return 0;
+
+        int first = findSegment(startD);
+        int last = findSegment(stopD);
+        getPosTan(startD, out, null);
+        int n = 1;
+        for (int i = first + 1; i <= last; i++) {
+            out[n * 2] = mPoints[i * 2];
+            out[n * 2 + 1] = mPoints[i * 2 + 1];
+            n++;
+        }
+        out[n * 2] = lerp(last, stopD, 0);
+        out[n * 2 + 1] = lerp(last, stopD, 1);
+        return n + 1;
+    }
+
+    /**
+     * 返回distance所在线段的起点下标，线段为第i个点到第i+1个点
+     */
+    private int findSegment(float distance) {
+        int low = 0;
+        int high = mCount - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mLengths[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private float lerp(int segment, float distance, int axis) {
+        float segmentLength = mLengths[segment + 1] - mLengths[segment];
+        float t = segmentLength > 0 ? (distance - mLengths[segment]) / segmentLength : 0;
+        float from = mPoints[segment * 2 + axis];
+        return from + (mPoints[segment * 2 + 2 + axis] - from) * t;
+    }
+
+    private void checkMutable() {
+        if (mSealed) {
+            throw new IllegalStateException("PathLengthTable is sealed");
+        }
+    }
+
+    private void append(float x, float y) {
+        if (mCount * 2 + 2 > mPoints.length) {
+            float[] points = new float[mPoints.length * 2];
+            System.arraycopy(mPoints, 0, points, 0, mCount * 2);
+            mPoints = points;
+            float[] lengths = new float[mLengths.length * 2];
+            System.arraycopy(mLengths, 0, lengths, 0, mCount);
+            mLengths = lengths;
+        }
+        if (mCount == 0) {
+            mLengths[0] = 0;
+        } else {
+            mLengths[mCount] = mLengths[mCount - 1] + VectorMath.dist(mPoints[mCount * 2 - 2], mPoints[mCount * 2 - 1], x, y);
+        }
+        mPoints[mCount * 2] = x;
+        mPoints[mCount * 2 + 1] = y;
+        mCount++;
+    }
+}
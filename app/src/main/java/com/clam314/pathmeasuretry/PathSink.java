@@ -0,0 +1,27 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 几何计算输出路径的接口，方法和android.graphics.Path对应
+ * View里用AndroidPathSink写进Path，单元测试里可以换成java.awt.geom的实现，在JVM上直接渲染
+ */
+
+interface PathSink {
+    void reset();
+
+    void moveTo(float x, float y);
+
+    void lineTo(float x, float y);
+
+    void quadTo(float x1, float y1, float x2, float y2);
+
+    void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3);
+
+    /**
+     * 和Path.arcTo一样，oval为以(centerX,centerY)为中心、radius为半径的圆，角度单位为度，顺时针为正
+     *
+     * @param forceMoveTo 为true时从圆弧起点开始新的轮廓，否则先连一条直线到圆弧的起点
+     */
+    void arcTo(float centerX, float centerY, float radius, float startAngle, float sweepAngle, boolean forceMoveTo);
+
+    void close();
+}
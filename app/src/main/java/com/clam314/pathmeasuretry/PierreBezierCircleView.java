@@ -4,12 +4,8 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PointF;
 import android.util.AttributeSet;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.Animation;
-import android.view.animation.Transformation;
 
 /**
  * Created by clam314 on 2017/3/2
@@ -17,6 +13,7 @@ import android.view.animation.Transformation;
 
 public class PierreBezierCircleView extends View {
     private Path mPath;
+    private AndroidPathSink mPathSink;
     private Paint mFillCirclePaint;
 
     /** View的宽度 **/
@@ -30,14 +27,17 @@ public class PierreBezierCircleView extends View {
 
     private float maxLength;
     private float mInterpolatedTime;
-    private float stretchDistance;
-//    private float moveDistance;
-    private float cDistance;
     private float radius;
-    private float c;
-    private float blackMagic = 0.551915024494f;
-    private VPoint p2,p4;
-    private HPoint p1,p3;
+    //12个点按半径预先烘焙成关键帧，onLayout后才知道半径
+    private BezierCircleKeyframes mKeyframes;
+    //当前帧插值出来的12个点，下标见BezierCircleModel
+    private final float[] mPoints = new float[BezierCircleModel.POINT_SIZE];
+
+    private FrameStats mFrameStats;
+    //动画的时间由AnimationClock提供，测试时可以换成手动推进的时钟
+    private ClockAnimator mMoveAnimator;
+    //由共用的FrameScheduler派发帧，离开窗口或者不可见时动画暂停
+    private FrameScheduler.Client mFrameClient;
 
 
     public PierreBezierCircleView(Context context) {
@@ -54,17 +54,25 @@ public class PierreBezierCircleView extends View {
     }
 
     private void init() {
+        mFrameStats = FrameStats.get(getClass().getSimpleName());
         mFillCirclePaint = new Paint();
         mFillCirclePaint.setColor(0xFFfe626d);
         mFillCirclePaint.setStyle(Paint.Style.FILL);
         mFillCirclePaint.setStrokeWidth(1);
         mFillCirclePaint.setAntiAlias(true);
         mPath = new Path();
-        p2 = new VPoint();
-        p4 = new VPoint();
-
-        p1 = new HPoint();
-        p3 = new HPoint();
+        mPathSink = new AndroidPathSink(mPath);
+        mFrameClient = FrameScheduler.getDefault().newClient();
+        mFrameClient.bind(this);
+        mMoveAnimator = new ClockAnimator(mFrameClient, new ClockAnimator.Listener() {
+            @Override
+            void onAnimationUpdate(ClockAnimator animator) {
+                mInterpolatedTime = animator.getAnimatedFraction();
+                invalidate();
+            }
+        });
+        mMoveAnimator.setDuration(10000);
+        mMoveAnimator.setInterpolator(ClockAnimator.ACCELERATE_DECELERATE);
     }
 
     @Override protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
@@ -74,160 +82,59 @@ public class PierreBezierCircleView extends View {
         centerX = width / 2;
         centerY = height / 2;
         radius = 50;
-        c = radius*blackMagic;
-        stretchDistance = radius;
-//        moveDistance = radius*(3/5f);
-        cDistance = c*0.45f;
+        if(mKeyframes == null || mKeyframes.getRadius() != radius){
+            mKeyframes = BezierCircleKeyframes.forRadius(radius);
+        }
         maxLength = width - radius;
     }
 
     @Override protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        long drawStart = mFrameStats.begin();
         mPath.reset();
         canvas.translate(radius, radius);
 
-        if(mInterpolatedTime>=0&&mInterpolatedTime<=0.2){
-            model1(mInterpolatedTime);
-        }else if(mInterpolatedTime>0.2&&mInterpolatedTime<=0.5){
-            model2(mInterpolatedTime);
-        }else if(mInterpolatedTime>0.5&&mInterpolatedTime<=0.8){
-            model3(mInterpolatedTime);
-        }else if(mInterpolatedTime>0.8&&mInterpolatedTime<=0.9){
-            model4(mInterpolatedTime);
-        }else if(mInterpolatedTime>0.9&&mInterpolatedTime<=1){
-            model5(mInterpolatedTime);
-        }
-
         float offset = maxLength*(mInterpolatedTime-0.2f);
         offset = offset>0?offset:0;
-        p1.adjustAllX(offset);
-        p2.adjustAllX(offset);
-        p3.adjustAllX(offset);
-        p4.adjustAllX(offset);
+        mKeyframes.sample(mInterpolatedTime, offset, mPoints);
 
-        mPath.moveTo(p1.x,p1.y);
-        mPath.cubicTo(p1.right.x, p1.right.y, p2.bottom.x, p2.bottom.y, p2.x,p2.y);
-        mPath.cubicTo(p2.top.x, p2.top.y, p3.right.x, p3.right.y, p3.x,p3.y);
-        mPath.cubicTo(p3.left.x, p3.left.y, p4.top.x, p4.top.y, p4.x,p4.y);
-        mPath.cubicTo(p4.bottom.x,p4.bottom.y,p1.left.x,p1.left.y,p1.x,p1.y);
+        BezierCircleModel.buildPath(mPoints, mPathSink);
 
         canvas.drawPath(mPath,mFillCirclePaint);
+        mFrameStats.countPathRebuild();
+        mFrameStats.end(drawStart);
 
     }
 
-    private void model0(){
-        p1.setY(radius);
-        p3.setY(-radius);
-        p3.x = p1.x = 0;
-        p3.left.x =  p1.left.x = -c;
-        p3.right.x = p1.right.x = c;
-
-        p2.setX(radius);
-        p4.setX(-radius);
-        p2.y = p4.y = 0;
-        p2.top.y =  p4.top.y = -c;
-        p2.bottom.y = p4.bottom.y = c;
-    }
-
-    private void model1(float time){//0~0.2
-        model0();
-        p2.setX(radius+stretchDistance*time*5);
-    }
-
-    private void model2(float time){//0.2~0.5
-        model1(0.2f);
-        time = (time - 0.2f) * (10f / 3);
-        p1.adjustAllX(stretchDistance/2 * time );
-        p3.adjustAllX(stretchDistance/2 * time );
-        p2.adjustY(cDistance * time);
-        p4.adjustY(cDistance * time);
+    /**
+     * 供测试逐帧驱动，time的范围为0~1
+     */
+    void setInterpolatedTime(float time) {
+        mInterpolatedTime = time;
     }
 
-    private void model3(float time){//0.5~0.8
-        model2(0.5f);
-        time = (time - 0.5f) * (10f / 3);
-        p1.adjustAllX(stretchDistance / 2 * time);
-        p3.adjustAllX(stretchDistance / 2 * time);
-        p2.adjustY(-cDistance * time);
-        p4.adjustY(-cDistance * time);
-
-        p4.adjustAllX(stretchDistance / 2 * time);
-
+    /**
+     * 替换动画使用的时钟，为null时恢复为共用的FrameScheduler；自己指定的时钟不会随可见性暂停
+     */
+    public void setAnimationClock(AnimationClock clock) {
+        mMoveAnimator.setClock(clock != null ? clock : mFrameClient);
     }
 
-    private void model4(float time){//0.8~0.9
-        model3(0.8f);
-        time = (time - 0.8f) * 10;
-        p4.adjustAllX(stretchDistance / 2 * time);
+    float getInterpolatedTime() {
+        return mInterpolatedTime;
     }
 
-    private void model5(float time){
-        model4(0.9f);
-        time = time - 0.9f;
-        p4.adjustAllX((float) (Math.sin(Math.PI*time*10f)*(2/10f*radius)));
-    }
-
-    static class VPoint{
-        float x;
-        float y;
-        PointF top = new PointF();
-        PointF bottom = new PointF();
-
-        void setX(float x){
-            this.x = x;
-            top.x = x;
-            bottom.x = x;
-        }
-
-        void adjustY(float offset){
-            top.y -= offset;
-            bottom.y += offset;
-        }
-
-        void adjustAllX(float offset){
-            this.x+= offset;
-            top.x+= offset;
-            bottom.x+=offset;
-        }
-    }
-
-    static class HPoint{
-        float x;
-        float y;
-        PointF left = new PointF();
-        PointF right = new PointF();
-
-        void setY(float y){
-            this.y = y;
-            left.y = y;
-            right.y = y;
-        }
-
-        void adjustAllX(float offset){
-            this.x +=offset;
-            left.x +=offset;
-            right.x +=offset;
-        }
-    }
-
-    private class MoveAnimation extends Animation {
-
-        @Override
-        protected void applyTransformation(float interpolatedTime, Transformation t) {
-            super.applyTransformation(interpolatedTime, t);
-            mInterpolatedTime = interpolatedTime;
-            invalidate();
-        }
+    public boolean isAnimating() {
+        return mMoveAnimator.isRunning();
     }
 
     public void startAnimation() {
         mPath.reset();
         mInterpolatedTime = 0;
-        MoveAnimation move = new MoveAnimation();
-        move.setDuration(10000);
-        move.setInterpolator(new AccelerateDecelerateInterpolator());
-        //move.setRepeatCount(Animation.INFINITE);
-        //move.setRepeatMode(Animation.REVERSE);
-        startAnimation(move);
+        mMoveAnimator.start();
+    }
+
+    public void stopAnimation() {
+        mMoveAnimator.cancel();
     }
 }
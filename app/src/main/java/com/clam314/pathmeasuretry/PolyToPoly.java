@@ -0,0 +1,230 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 纯Java实现的Matrix.setPolyToPoly和mapPoints，按Skia的做法：
+ * 0个点为单位矩阵，1个点为平移，2个点为旋转+缩放，3个点为仿射变换，4个点为透视变换
+ * 矩阵按android.graphics.Matrix.getValues()的顺序保存在float[9]里，可以直接setValues
+ * 所有方法都不分配对象，批量映射按仿射/透视分成两个循环：仿射循环体内没有分支，方便JIT展开和向量化；透视循环每个点要判断w是否为0
+ */
+
+final class PolyToPoly {
+    static final int MSCALE_X = 0;
+    static final int MSKEW_X = 1;
+    static final int MTRANS_X = 2;
+    static final int MSKEW_Y = 3;
+    static final int MSCALE_Y = 4;
+    static final int MTRANS_Y = 5;
+    static final int MPERSP_0 = 6;
+    static final int MPERSP_1 = 7;
+    static final int MPERSP_2 = 8;
+    static final int MATRIX_SIZE = 9;
+
+    //和Skia一样，行列式或者分母小于这个值就认为是奇异的
+    private static final float NEARLY_ZERO = 1f / (1 << 12);
+
+    //计算过程中用到的临时矩阵，每个实例复用，避免每次分配
+    private final float[] mSrcMap = new float[MATRIX_SIZE];
+    private final float[] mInverse = new float[MATRIX_SIZE];
+    private final float[] mDstMap = new float[MATRIX_SIZE];
+
+    /**
+     * 计算把src的前count个点映射到dst的矩阵，写入out
+     *
+     * @return 点共线等无法求解时返回false，out不会被修改
+     */
+    boolean setPolyToPoly(float[] src, int srcIndex, float[] dst, int dstIndex, int count, float[] out) {
+        if (count < 0 || count > 4) {
+            throw new IllegalArgumentException("count must be between 0 and 4");
+        }
+        if (count == 0) {
+            setIdentity(out);
+            return true;
+        }
+        if (count == 1) {
+            setIdentity(out);
+            out[MTRANS_X] = dst[dstIndex] - src[srcIndex];
+            out[MTRANS_Y] = dst[dstIndex + 1] - src[srcIndex + 1];
+            return true;
+        }
+
+        //先求出单位正方形分别到src和dst的映射，再用src映射的逆矩阵拼起来
+        if (!polyMap(src, srcIndex, count, mSrcMap)) return false;
+        if (!invert(mSrcMap, mInverse)) return false;
+        if (!polyMap(dst, dstIndex, count, mDstMap)) return false;
+        concat(mDstMap, mInverse, out);
+        return true;
+    }
+
+    /**
+     * 和Matrix.mapPoints一样，把src中count个点(x,y交替)经过matrix映射后写入dst，src和dst可以是同一个数组
+     */
+    static void mapPoints(float[] matrix, float[] dst, int dstIndex, float[] src, int srcIndex, int count) {
+        float sx = matrix[MSCALE_X];
+        float kx = matrix[MSKEW_X];
+        float tx = matrix[MTRANS_X];
+        float ky = matrix[MSKEW_Y];
+        float sy = matrix[MSCALE_Y];
+        float ty = matrix[MTRANS_Y];
+        float p0 = matrix[MPERSP_0];
+        float p1 = matrix[MPERSP_1];
+        float p2 = matrix[MPERSP_2];
+
+        if (p0 == 0 && p1 == 0 && p2 == 1) {
+            //仿射变换不需要除法
+            for (int i = 0; i < count * 2; i += 2) {
+                float x = src[srcIndex + i];
+                float y = src[srcIndex + i + 1];
+                dst[dstIndex + i] = sx * x + kx * y + tx;
+                dst[dstIndex + i + 1] = ky * x + sy * y + ty;
+            }
+            return;
+        }
+
+        for (int i = 0; i < count * 2; i += 2) {
+            float x = src[srcIndex + i];
+            float y = src[srcIndex + i + 1];
+            float w = p0 * x + p1 * y + p2;
+            float iw = w != 0 ? 1 / w : 0;
+            dst[dstIndex + i] = (sx * x + kx * y + tx) * iw;
+            dst[dstIndex + i + 1] = (ky * x + sy * y + ty) * iw;
+        }
+    }
+
+    static void setIdentity(float[] matrix) {
+        for (int i = 0; i < MATRIX_SIZE; i++) {
+            matrix[i] = 0;
+        }
+        matrix[MSCALE_X] = matrix[MSCALE_Y] = matrix[MPERSP_2] = 1;
+    }
+
+    /**
+     * 单位正方形到pts前count个点的映射，对应Skia的Poly2Proc/Poly3Proc/Poly4Proc
+     */
+    private static boolean polyMap(float[] pts, int index, int count, float[] out) {
+        float x0 = pts[index];
+        float y0 = pts[index + 1];
+        float x1 = pts[index + 2];
+        float y1 = pts[index + 3];
+        switch (count) {
+            case 2:
+                out[MSCALE_X] = y1 - y0;
+                out[MSKEW_Y] = x0 - x1;
+                out[MPERSP_0] = 0;
+                out[MSKEW_X] = x1 - x0;
+                out[MSCALE_Y] = y1 - y0;
+                out[MPERSP_1] = 0;
+                out[MTRANS_X] = x0;
+                out[MTRANS_Y] = y0;
+                out[MPERSP_2] = 1;
+                return true;
+            case 3: {
+                float x2 = pts[index + 4];
+                float y2 = pts[index + 5];
+                out[MSCALE_X] = x2 - x0;
+                out[MSKEW_Y] = y2 - y0;
+                out[MPERSP_0] = 0;
+                out[MSKEW_X] = x1 - x0;
+                out[MSCALE_Y] = y1 - y0;
+                out[MPERSP_1] = 0;
+                out[MTRANS_X] = x0;
+                out[MTRANS_Y] = y0;
+                out[MPERSP_2] = 1;
+                return true;
+            }
+            default:
+                return poly4Map(pts, index, out);
+        }
+    }
+
+    private static boolean poly4Map(float[] pts, int index, float[] out) {
+        float px0 = pts[index], py0 = pts[index + 1];
+        float px1 = pts[index + 2], py1 = pts[index + 3];
+        float px2 = pts[index + 4], py2 = pts[index + 5];
+        float px3 = pts[index + 6], py3 = pts[index + 7];
+
+        float x0 = px2 - px0;
+        float y0 = py2 - py0;
+        float x1 = px2 - px1;
+        float y1 = py2 - py1;
+        float x2 = px2 - px3;
+        float y2 = py2 - py3;
+
+        float a1, a2;
+        //|x2| > |y2|
+        if (x2 > 0 ? y2 > 0 ? x2 > y2 : x2 > -y2 : y2 > 0 ? -x2 > y2 : x2 < y2) {
+            float denom = x1 * y2 / x2 - y1;
+            if (isNearlyZero(denom)) return false;
+            a1 = ((x0 - x1) * y2 / x2 - y0 + y1) / denom;
+        } else {
+            float denom = x1 - y1 * x2 / y2;
+            if (isNearlyZero(denom)) return false;
+            a1 = (x0 - x1 - (y0 - y1) * x2 / y2) / denom;
+        }
+
+        //|x1| > |y1|
+        if (x1 > 0 ? y1 > 0 ? x1 > y1 : x1 > -y1 : y1 > 0 ? -x1 > y1 : x1 < y1) {
+            float denom = y2 - x2 * y1 / x1;
+            if (isNearlyZero(denom)) return false;
+            a2 = (y0 - y2 - (x0 - x2) * y1 / x1) / denom;
+        } else {
+            float denom = y2 * x1 / y1 - x2;
+            if (isNearlyZero(denom)) return false;
+            a2 = ((y0 - y2) * x1 / y1 - x0 + x2) / denom;
+        }
+
+        out[MSCALE_X] = a2 * px3 + px3 - px0;
+        out[MSKEW_Y] = a2 * py3 + py3 - py0;
+        out[MPERSP_0] = a2;
+        out[MSKEW_X] = a1 * px1 + px1 - px0;
+        out[MSCALE_Y] = a1 * py1 + py1 - py0;
+        out[MPERSP_1] = a1;
+        out[MTRANS_X] = px0;
+        out[MTRANS_Y] = py0;
+        out[MPERSP_2] = 1;
+        return true;
+    }
+
+    /**
+     * 3x3矩阵求逆，用double计算行列式减少误差
+     */
+    static boolean invert(float[] m, float[] out) {
+        double a = m[0], b = m[1], c = m[2];
+        double d = m[3], e = m[4], f = m[5];
+        double g = m[6], h = m[7], i = m[8];
+
+        double c00 = e * i - f * h;
+        double c01 = c * h - b * i;
+        double c02 = b * f - c * e;
+        double det = a * c00 + d * c01 + g * c02;
+        if (Math.abs(det) < (double) NEARLY_ZERO * NEARLY_ZERO * NEARLY_ZERO) return false;
+        double inv = 1 / det;
+
+        out[0] = (float) (c00 * inv);
+        out[1] = (float) (c01 * inv);
+        out[2] = (float) (c02 * inv);
+        out[3] = (float) ((f * g - d * i) * inv);
+        out[4] = (float) ((a * i - c * g) * inv);
+        out[5] = (float) ((c * d - a * f) * inv);
+        out[6] = (float) ((d * h - e * g) * inv);
+        out[7] = (float) ((b * g - a * h) * inv);
+        out[8] = (float) ((a * e - b * d) * inv);
+        return true;
+    }
+
+    /**
+     * out = a * b，out不能和a、b是同一个数组
+     */
+    static void concat(float[] a, float[] b, float[] out) {
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                out[row * 3 + col] = a[row * 3] * b[col]
+                        + a[row * 3 + 1] * b[3 + col]
+                        + a[row * 3 + 2] * b[6 + col];
+            }
+        }
+    }
+
+    private static boolean isNearlyZero(float value) {
+        return Math.abs(value) <= NEARLY_ZERO;
+    }
+}
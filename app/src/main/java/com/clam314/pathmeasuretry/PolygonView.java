@@ -2,7 +2,6 @@ package com.clam314.pathmeasuretry;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
@@ -22,13 +21,28 @@ public class PolygonView extends View{
     private int testPoint = 0;
     private int triggerRadius = 180;    // 触发半径为180px
 
-    private Bitmap mBitmap;             // 要绘制的图片
+    private int bitmapRes = R.drawable.poly_test3;
+    private Bitmap mBitmap;             // 要绘制的图片，按View的大小在后台解码，加载完之前为null
+    private boolean attached = false;
     private Matrix mPolyMatrix;         // 测试setPolyToPoly用的Matrix
+    private PolyToPoly mPolySolver;     // 在Java层求解矩阵，结果通过setValues交给mPolyMatrix
+    private float[] polyValues = new float[PolyToPoly.MATRIX_SIZE];
 
     private float[] src = new float[8];
     private float[] dst = new float[8];
+    private float[] mapped = new float[8];   // 绘制触控点时src映射后的坐标，复用避免每帧分配
 
     private Paint pointPaint;
+    private Paint meshPointPaint;
+
+    private int meshCols = 0;           // 大于0时使用drawBitmapMesh的网格模式
+    private int meshRows = 0;
+    private MeshWarp mMesh;             // 图片加载后按图片大小生成
+    private int draggingHandle = -1;    // 网格模式下正在拖动的顶点
+
+    private boolean polyDirty = false;  // dst改变后还没有重新计算Matrix，留到下一帧绘制前统一计算
+
+    private FrameStats mFrameStats;
 
     public PolygonView(Context context) {
         this(context, null);
@@ -40,12 +54,30 @@ public class PolygonView extends View{
 
     public PolygonView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        initBitmapAndMatrix();
+        mFrameStats = FrameStats.get(getClass().getSimpleName());
+        initPaintAndMatrix();
     }
 
-    private void initBitmapAndMatrix() {
-        mBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.poly_test3);
+    private void initPaintAndMatrix() {
+        pointPaint = new Paint();
+        pointPaint.setAntiAlias(true);
+        pointPaint.setStrokeWidth(50);
+        pointPaint.setColor(0xffd19165);
+        pointPaint.setStrokeCap(Paint.Cap.ROUND);
 
+        meshPointPaint = new Paint(pointPaint);
+        meshPointPaint.setStrokeWidth(16);
+
+        mPolyMatrix = new Matrix();
+        mPolySolver = new PolyToPoly();
+        PolyToPoly.setIdentity(polyValues);
+    }
+
+    private void setBitmap(Bitmap bitmap) {
+        if (mBitmap != null) {
+            BitmapLoader.getInstance().release(mBitmap);
+        }
+        mBitmap = bitmap;
 
         float[] temp = {0, 0,                                    // 左上
                 mBitmap.getWidth(), 0,                          // 右上
@@ -53,72 +85,188 @@ public class PolygonView extends View{
                 0, mBitmap.getHeight()};                        // 左下
         src = temp.clone();
         dst = temp.clone();
+        resetPolyMatrix(testPoint);
+        polyDirty = false;
+        buildMesh();
+        invalidate();
+    }
 
-        pointPaint = new Paint();
-        pointPaint.setAntiAlias(true);
-        pointPaint.setStrokeWidth(50);
-        pointPaint.setColor(0xffd19165);
-        pointPaint.setStrokeCap(Paint.Cap.ROUND);
+    /**
+     * 切换到网格变形模式，图片被分成cols x rows格，每个顶点都可以拖动；cols或rows不大于0时回到setPolyToPoly模式
+     */
+    public void setMeshMode(int cols, int rows) {
+        meshCols = cols > 0 && rows > 0 ? cols : 0;
+        meshRows = cols > 0 && rows > 0 ? rows : 0;
+        buildMesh();
+        invalidate();
+    }
 
-        mPolyMatrix = new Matrix();
-        mPolyMatrix.setPolyToPoly(src, 0, src, 0, 4);
+    private void buildMesh() {
+        draggingHandle = -1;
+        if (meshCols == 0 || mBitmap == null) {
+            mMesh = null;
+            return;
+        }
+        // 格子边长取触发半径，查找顶点时只需要看周围3x3个格子
+        mMesh = new MeshWarp(mBitmap.getWidth(), mBitmap.getHeight(), meshCols, meshRows, triggerRadius);
+    }
+
+    private void loadBitmap() {
+        int width = getWidth() - 100;
+        int height = getHeight() - 100;
+        if (width <= 0 || height <= 0) return;
+        final int res = bitmapRes;
+        BitmapLoader.getInstance().load(getResources(), res, width, height, new BitmapLoader.Callback() {
+            @Override
+            public void onBitmapLoaded(int resId, Bitmap bitmap) {
+                // 解码期间View可能已经被移除，或者换了图片
+                if (resId != bitmapRes || !attached) {
+                    BitmapLoader.getInstance().release(bitmap);
+                    return;
+                }
+                if (bitmap == mBitmap) {
+                    BitmapLoader.getInstance().release(bitmap);
+                    return;
+                }
+                setBitmap(bitmap);
+            }
+        });
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // 绘制时画布平移了(100,100)，按剩下的区域采样
+        loadBitmap();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attached = true;
+        if (mBitmap == null) loadBitmap();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        attached = false;
+        if (mBitmap != null) {
+            BitmapLoader.getInstance().release(mBitmap);
+            mBitmap = null;
+        }
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (mMesh != null) {
+            return onMeshTouchEvent(event);
+        }
 
         switch (event.getAction()){
             case MotionEvent.ACTION_MOVE:
-                float tempX = event.getX();
-                float tempY = event.getY();
-
-                // 根据触控位置改变dst
-                for (int i=0; i<testPoint*2; i+=2 ) {
-                    if (Math.abs(tempX - dst[i]) <= triggerRadius && Math.abs(tempY - dst[i+1]) <= triggerRadius){
-                        dst[i]   = tempX-100;
-                        dst[i+1] = tempY-100;
-                        break;  // 防止两个点的位置重合
-                    }
+                // 高采样率的屏幕一帧内会合并多个触控点，按顺序处理历史点，不丢失拖动轨迹
+                for (int h = 0; h < event.getHistorySize(); h++) {
+                    moveTouchedPoint(event.getHistoricalX(h), event.getHistoricalY(h));
                 }
+                moveTouchedPoint(event.getX(), event.getY());
 
-                resetPolyMatrix(testPoint);
-                invalidate();
+                // 这里只记录dst的变化，Matrix在下一次vsync绘制前只计算一次
+                polyDirty = true;
+                postInvalidateOnAnimation();
                 break;
         }
 
         return true;
     }
 
+    private boolean onMeshTouchEvent(MotionEvent event) {
+        // 网格坐标是画布平移(100,100)之后的坐标
+        float x = event.getX() - 100;
+        float y = event.getY() - 100;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                draggingHandle = mMesh.findHandle(x, y, triggerRadius);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                // 只拖动一个顶点，一帧内合并的历史点只有最后一个有意义
+                if (draggingHandle != -1) {
+                    mMesh.moveHandle(draggingHandle, x, y);
+                    postInvalidateOnAnimation();
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                draggingHandle = -1;
+                break;
+        }
+        return true;
+    }
+
+    private void moveTouchedPoint(float tempX, float tempY) {
+        // 根据触控位置改变dst，用距离的平方比较，不用开方
+        float radiusSquare = triggerRadius * triggerRadius;
+        for (int i=0; i<testPoint*2; i+=2 ) {
+            if (VectorMath.dist2(tempX, tempY, dst[i], dst[i+1]) <= radiusSquare){
+                dst[i]   = tempX-100;
+                dst[i+1] = tempY-100;
+                break;  // 防止两个点的位置重合
+            }
+        }
+    }
+
     public void resetPolyMatrix(int pointCount){
-        mPolyMatrix.reset();
-        // 核心要点
-        mPolyMatrix.setPolyToPoly(src, 0, dst, 0, pointCount);
+        // 核心要点，和Matrix.setPolyToPoly一样，点共线等无解的情况退回单位矩阵
+        if (!mPolySolver.setPolyToPoly(src, 0, dst, 0, pointCount, polyValues)) {
+            PolyToPoly.setIdentity(polyValues);
+        }
+        mPolyMatrix.setValues(polyValues);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long drawStart = mFrameStats.begin();
+        if (polyDirty) {
+            resetPolyMatrix(testPoint);
+            polyDirty = false;
+        }
+
         canvas.translate(100,100);
 
         // 绘制坐标系
 //        CanvasAidUtils.setCoordinateLen(900, 0, 1200, 0);
         CanvasAidUtils.draw2DCoordinateSpace(canvas);
 
+        // 图片还在后台解码
+        if (mBitmap == null) {
+            mFrameStats.end(drawStart);
+            return;
+        }
+
+        if (mMesh != null) {
+            canvas.drawBitmapMesh(mBitmap, mMesh.cols, mMesh.rows, mMesh.vertices, 0, null, 0, null);
+            canvas.drawPoints(mMesh.vertices, meshPointPaint);
+            mFrameStats.end(drawStart);
+            return;
+        }
+
         // 根据Matrix绘制一个变换后的图片
         canvas.drawBitmap(mBitmap, mPolyMatrix, null);
 
-        float[] dst = new float[8];
-        mPolyMatrix.mapPoints(dst,src);
+        PolyToPoly.mapPoints(polyValues, mapped, 0, src, 0, testPoint);
 
         // 绘制触控点
         for (int i=0; i<testPoint*2; i+=2 ) {
-            canvas.drawPoint(dst[i], dst[i+1],pointPaint);
+            canvas.drawPoint(mapped[i], mapped[i+1],pointPaint);
         }
+        mFrameStats.end(drawStart);
     }
 
     public void setTestPoint(int testPoint) {
         this.testPoint = testPoint > 4 || testPoint < 0 ? 4 : testPoint;
         dst = src.clone();
         resetPolyMatrix(this.testPoint);
+        polyDirty = false;
         invalidate();
     }
 }
@@ -0,0 +1,128 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.DrawFilter;
+import android.graphics.Paint;
+import android.graphics.PaintFlagsDrawFilter;
+
+/**
+ * 按最近的onDraw耗时自动调整绘制质量：连续超出预算就降一级，长时间有余量再升一级
+ * 等级从高到低依次为：完整质量、关闭抗锯齿、折线隔点取样、预渲染的Bitmap
+ * 升级后很快又超出预算时，下一次升级需要等待的帧数翻倍，避免在两个等级之间来回切换；
+ * 翻倍到上限后按上限的间隔一直尝试，负载变轻后还能回到完整质量
+ * 列表里的行共用一个QualityGovernor和画笔，每行在onDraw里比较自己上次应用的等级，不修改共用的画笔
+ */
+
+final class QualityGovernor {
+    static final int LEVEL_FULL = 0;
+    static final int LEVEL_NO_ANTI_ALIAS = 1;
+    static final int LEVEL_COARSE = 2;
+    static final int LEVEL_ATLAS = 3;
+
+    //软件绘制时单个View的onDraw最多占一帧(16ms)的一半
+    static final long DEFAULT_BUDGET_NANOS = 8000000L;
+    //最近WINDOW帧里超出预算的帧数达到MISS_LIMIT就降级
+    static final int WINDOW = 32;
+    static final int MISS_LIMIT = 4;
+    //最近的帧都在预算的一半以内才算有余量
+    static final float HEADROOM = 0.5f;
+    //升级等待的帧数最多翻倍到WINDOW的8倍
+    static final int MAX_UPGRADE_WINDOW = WINDOW * 8;
+
+    //关闭抗锯齿时设置到Canvas上，只在主线程使用
+    private static DrawFilter sNoAntiAliasFilter;
+
+    private final long budgetNanos;
+    private final int maxLevel;
+
+    //最近WINDOW帧是否超出预算，环形存放
+    private final boolean[] mMisses = new boolean[WINDOW];
+    private int mHead;
+    private int mMissCount;
+    //上次调整等级之后记录的帧数
+    private int mSamples;
+    //连续有余量的帧数
+    private int mHeadroomRun;
+    private int mUpgradeWindow = WINDOW;
+    private boolean mJustUpgraded;
+    private int mLevel = LEVEL_FULL;
+
+    /**
+     * @param budgetNanos 每次onDraw的预算
+     * @param maxLevel    最多降到的等级，例如列表里不适合每行生成一张预渲染的图
+     */
+    QualityGovernor(long budgetNanos, int maxLevel) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("budgetNanos must be positive");
+        }
+        this.budgetNanos = budgetNanos;
+        this.maxLevel = Math.max(LEVEL_FULL, Math.min(maxLevel, LEVEL_ATLAS));
+    }
+
+    int getLevel() {
+        return mLevel;
+    }
+
+    int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * 绘制期间设置到Canvas上关闭抗锯齿，画笔本身不变，共用的画笔不会影响其他View
+     */
+    static DrawFilter noAntiAliasFilter() {
+        if (sNoAntiAliasFilter == null) {
+            sNoAntiAliasFilter = new PaintFlagsDrawFilter(Paint.ANTI_ALIAS_FLAG, 0);
+        }
+        return sNoAntiAliasFilter;
+    }
+
+    /**
+     * 记录一次onDraw的耗时
+     *
+     * @return 等级是否发生了变化，变化后调用方按getLevel()重新设置画笔等
+     */
+    boolean record(long drawNanos) {
+        boolean miss = drawNanos > budgetNanos;
+        if (mSamples >= WINDOW && mMisses[mHead]) mMissCount--;
+        mMisses[mHead] = miss;
+        if (miss) mMissCount++;
+        mHead = (mHead + 1) % WINDOW;
+        mSamples++;
+        mHeadroomRun = drawNanos <= budgetNanos * HEADROOM ? mHeadroomRun + 1 : 0;
+
+        if (mMissCount >= MISS_LIMIT && mLevel < maxLevel) {
+            //刚升级就又超出预算，说明上一级撑不住，下次多等一段时间
+            if (mJustUpgraded) mUpgradeWindow = Math.min(mUpgradeWindow * 2, MAX_UPGRADE_WINDOW);
+            setLevel(mLevel + 1, false);
+            return true;
+        }
+        if (mHeadroomRun >= mUpgradeWindow && mLevel > LEVEL_FULL) {
+            setLevel(mLevel - 1, true);
+            return true;
+        }
+        //升级后撑过了一个完整的窗口，之后的降级不再算作来回切换
+        if (mJustUpgraded && mSamples >= WINDOW) mJustUpgraded = false;
+        return false;
+    }
+
+    /**
+     * 回到完整质量，等待帧数也恢复初始值，例如设备从省电模式恢复时
+     */
+    void reset() {
+        mUpgradeWindow = WINDOW;
+        setLevel(LEVEL_FULL, false);
+    }
+
+    private void setLevel(int level, boolean upgraded) {
+        mLevel = level;
+        mJustUpgraded = upgraded;
+        //换了等级之后之前的耗时不再有参考意义
+        for (int i = 0; i < WINDOW; i++) {
+            mMisses[i] = false;
+        }
+        mHead = 0;
+        mMissCount = 0;
+        mSamples = 0;
+        mHeadroomRun = 0;
+    }
+}
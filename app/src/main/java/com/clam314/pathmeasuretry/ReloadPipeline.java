@@ -0,0 +1,128 @@
+package com.clam314.pathmeasuretry;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 把刷新的工作放到后台执行：同一时间只有一个刷新任务，任务没结束之前重复触发直接返回同一个Handle
+ * 任务结束或被取消后，回调通过callbackExecutor(一般是主线程)执行，刷新工作抛出的异常也通过回调传出去
+ */
+
+public final class ReloadPipeline {
+    private static ExecutorService sDefaultExecutor;
+
+    private final Executor mCallbackExecutor;
+    private Executor mExecutor;
+    private Handle mCurrent;
+
+    /**
+     * @param executor         执行刷新工作的线程池，为null时使用默认的后台线程
+     * @param callbackExecutor 执行完成回调的线程
+     */
+    ReloadPipeline(Executor executor, Executor callbackExecutor) {
+        mExecutor = executor != null ? executor : getDefaultExecutor();
+        mCallbackExecutor = callbackExecutor;
+    }
+
+    static synchronized ExecutorService getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ReloadPipeline");
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    void setExecutor(Executor executor) {
+        mExecutor = executor != null ? executor : getDefaultExecutor();
+    }
+
+    /**
+     * 在后台执行work，结束后在回调线程执行callback；上一个任务还没结束时不会重复执行，直接返回它的Handle
+     */
+    Handle submit(Runnable work, Callback callback) {
+        if (mCurrent != null && !mCurrent.isDone()) {
+            return mCurrent;
+        }
+        Handle handle = new Handle(work, callback);
+        mCurrent = handle;
+        mExecutor.execute(handle.task);
+        return handle;
+    }
+
+    /**
+     * 当前还没结束的任务，没有则返回null
+     */
+    Handle getCurrent() {
+        return mCurrent != null && !mCurrent.isDone() ? mCurrent : null;
+    }
+
+    void cancel() {
+        if (mCurrent != null) mCurrent.cancel();
+    }
+
+    public final class Handle {
+        private final FutureTask<Void> task;
+
+        private Handle(Runnable work, final Callback callback) {
+            task = new FutureTask<Void>(work, null) {
+                @Override
+                protected void done() {
+                    //正常结束、抛出异常、被取消都会走到这里
+                    final boolean cancelled = isCancelled();
+                    Throwable failure = null;
+                    if (!cancelled) {
+                        try {
+                            //已经结束了，get()不会阻塞，只是为了取出FutureTask吞掉的异常
+                            get();
+                        } catch (ExecutionException e) {
+                            failure = e.getCause();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    final Throwable error = failure;
+                    mCallbackExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (mCurrent == Handle.this) mCurrent = null;
+                            if (callback != null) callback.onReloadFinished(Handle.this, cancelled, error);
+                        }
+                    });
+                }
+            };
+        }
+
+        /**
+         * 取消刷新，还没开始的任务不会执行，正在执行的任务会被中断
+         */
+        public void cancel() {
+            task.cancel(true);
+        }
+
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        public boolean isDone() {
+            return task.isDone();
+        }
+    }
+
+    interface Callback {
+        /**
+         * @param error 刷新工作抛出的异常，正常结束或被取消时为null
+         */
+        void onReloadFinished(Handle handle, boolean cancelled, Throwable error);
+    }
+}
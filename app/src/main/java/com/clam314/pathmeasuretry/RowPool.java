@@ -0,0 +1,156 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.Paint;
+
+import java.util.ArrayList;
+
+/**
+ * 列表里大量SearchView、StickyCircleView共用的资源：画笔、几何数据(见MeasuredPathRegistry)和驱动动画的时钟
+ * 每一行只保存很小的RowState(动画开始的时间等)，动画进度在每一帧由状态和池的时间算出来，
+ * 整个列表只有一个ClockAnimator，由它给所有正在动的行派发帧；行被复用时只需要bind新的RowState
+ * 用new SearchView(context, pool)、new StickyCircleView(context, pool)创建的行不会生成自己的画笔、动画和时钟，
+ * 绘制和拖动时临时用的Path、数组也由池提供；行是否可见在派发每一帧时检查，不可见的行从池里移除，重新绘制时再加入
+ * 只能在主线程使用
+ */
+
+public final class RowPool {
+    //每一行onDraw的预算
+    static final long ROW_BUDGET_NANOS = QualityGovernor.DEFAULT_BUDGET_NANOS / 4;
+
+    private final FrameScheduler.Client mClient;
+    private final ClockAnimator mTicker;
+    //正在动画并且attach、可见的行；派发时先复制到mDispatching，回调里可以增删
+    private final ArrayList<Row> mRows = new ArrayList<>();
+    private final ArrayList<Row> mDispatching = new ArrayList<>();
+
+    private Paint mSearchPaint;
+    private Paint mStickyBezierPaint;
+    private Paint mStickyLoadPaint;
+    private QualityGovernor mGovernor;
+    //所有行轮流使用的临时对象，只在一次计算或者一次onDraw里有效
+    private SearchTimeline mSearchTimeline;
+    private int[] mSearchDirty;
+    private StickyCircleView.Scratch mStickyScratch;
+
+    public RowPool() {
+        this(FrameScheduler.getDefault());
+    }
+
+    /**
+     * 测试时可以传入由手动时钟驱动的FrameScheduler
+     */
+    RowPool(FrameScheduler scheduler) {
+        mClient = scheduler.newClient();
+        mTicker = new ClockAnimator(mClient, new ClockAnimator.Listener() {
+            @Override
+            void onAnimationUpdate(ClockAnimator animator) {
+                dispatch();
+            }
+        });
+        //只用来逐帧回调，时长不影响进度
+        mTicker.setRepeatCount(ClockAnimator.INFINITE);
+    }
+
+    /**
+     * 池的时间，单位毫秒；没有行在动画时时间停住，RowState里记录的时间都以它为准
+     */
+    long now() {
+        return mClient.uptimeMillis();
+    }
+
+    Paint getSearchPaint() {
+        if (mSearchPaint == null) mSearchPaint = SearchView.createPaint();
+        return mSearchPaint;
+    }
+
+    Paint getStickyBezierPaint() {
+        if (mStickyBezierPaint == null) mStickyBezierPaint = StickyCircleView.createBezierPaint();
+        return mStickyBezierPaint;
+    }
+
+    Paint getStickyLoadPaint() {
+        if (mStickyLoadPaint == null) mStickyLoadPaint = StickyCircleView.createLoadPaint();
+        return mStickyLoadPaint;
+    }
+
+    /**
+     * SearchView的行按RowState算当前帧时用的时间轴，每次使用前都会reset
+     */
+    SearchTimeline getSearchTimeline() {
+        if (mSearchTimeline == null) mSearchTimeline = SearchView.createTimeline();
+        return mSearchTimeline;
+    }
+
+    /**
+     * SearchView的行每帧刷新的范围，相对View的中心；所有状态的路径范围是固定的，所有行都一样
+     */
+    int[] getSearchDirty() {
+        if (mSearchDirty == null) mSearchDirty = SearchView.createPoolDirty(getSearchPaint());
+        return mSearchDirty;
+    }
+
+    /**
+     * StickyCircleView的行绘制、计算几何、预测手指位置时用的临时对象
+     */
+    StickyCircleView.Scratch getStickyScratch() {
+        if (mStickyScratch == null) mStickyScratch = new StickyCircleView.Scratch();
+        return mStickyScratch;
+    }
+
+    /**
+     * 所有行共用的质量调节，画笔也是共用的；一帧里要画好几行，每行的预算更小，也不降到预渲染
+     */
+    QualityGovernor getGovernor() {
+        if (mGovernor == null) {
+            mGovernor = new QualityGovernor(ROW_BUDGET_NANOS, QualityGovernor.LEVEL_COARSE);
+        }
+        return mGovernor;
+    }
+
+    /**
+     * 行开始需要每帧刷新，重复调用只登记一次
+     */
+    void register(Row row) {
+        if (mRows.contains(row)) return;
+        mRows.add(row);
+        if (!mTicker.isRunning()) {
+            mClient.setActive(true);
+            mTicker.start();
+        }
+    }
+
+    void unregister(Row row) {
+        mRows.remove(row);
+        int index = mDispatching.indexOf(row);
+        if (index >= 0) mDispatching.set(index, null);
+        if (mRows.isEmpty() && mTicker.isRunning()) {
+            mTicker.cancel();
+            mClient.setActive(false);
+        }
+    }
+
+    /**
+     * 当前需要每帧刷新的行数
+     */
+    int getActiveRowCount() {
+        return mRows.size();
+    }
+
+    private void dispatch() {
+        long now = now();
+        ArrayList<Row> dispatching = mDispatching;
+        dispatching.addAll(mRows);
+        for (int i = 0; i < dispatching.size(); i++) {
+            Row row = dispatching.get(i);
+            if (row != null) row.onPoolFrame(now);
+        }
+        dispatching.clear();
+    }
+
+    interface Row {
+        /**
+         * 每一帧回调，now为池的时间
+         */
+        void onPoolFrame(long now);
+    }
+}
@@ -0,0 +1,108 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * SearchView的整条动画时间轴：STARING -> SEARCHING(循环若干次) -> ENDING -> NONE
+ * 直接由动画开始后经过的时间算出当前的状态和进度，状态切换不需要额外的消息或者回调
+ * 进度是插值后的值，每个阶段和每一圈都先加速后减速
+ */
+
+class SearchTimeline {
+    static final int LOOP_INFINITE = -1;
+
+    private final long mDuration;
+    private int mSearchingLoops;
+    //收到停止信号时的时间，-1表示还没有收到
+    private long mStopRequestedAt = -1;
+
+    private SearchView.State mState = SearchView.State.NONE;
+    private float mProgress = 0;
+
+    /**
+     * @param duration 每个阶段(以及每一圈搜索)的时长，单位毫秒
+     * @param searchingLoops SEARCHING阶段循环的次数，LOOP_INFINITE表示一直循环直到requestStop
+     */
+    SearchTimeline(long duration, int searchingLoops) {
+        mDuration = duration;
+        mSearchingLoops = searchingLoops;
+    }
+
+    void setSearchingLoops(int searchingLoops) {
+        mSearchingLoops = searchingLoops;
+    }
+
+    int getSearchingLoops() {
+        return mSearchingLoops;
+    }
+
+    /**
+     * 重新开始时间轴，之后update传入的时间要从0开始算
+     */
+    void reset() {
+        mStopRequestedAt = -1;
+        mState = SearchView.State.NONE;
+        mProgress = 0;
+    }
+
+    /**
+     * 搜索结果已经返回：跑完当前这一圈就进入ENDING
+     * 还在STARING阶段的话，至少会完整搜索一圈
+     */
+    void requestStop(long elapsed) {
+        if (mStopRequestedAt < 0 || elapsed < mStopRequestedAt) {
+            mStopRequestedAt = Math.max(0, elapsed);
+        }
+    }
+
+    /**
+     * 根据动画开始后经过的时间更新状态和进度
+     *
+     * @return 动画是否还在进行中，返回false时状态为NONE
+     */
+    boolean update(long elapsed) {
+        if (elapsed < 0) elapsed = 0;
+        if (elapsed < mDuration) {
+            set(SearchView.State.STARING, elapsed);
+            return true;
+        }
+
+        long searchingElapsed = elapsed - mDuration;
+        int loops = getEffectiveLoops();
+        if (loops == LOOP_INFINITE || searchingElapsed < loops * mDuration) {
+            set(SearchView.State.SEARCHING, searchingElapsed % mDuration);
+            return true;
+        }
+
+        long endingElapsed = searchingElapsed - loops * mDuration;
+        if (endingElapsed < mDuration) {
+            set(SearchView.State.ENDING, endingElapsed);
+            return true;
+        }
+
+        mState = SearchView.State.NONE;
+        mProgress = 0;
+        return false;
+    }
+
+    SearchView.State getState() {
+        return mState;
+    }
+
+    float getProgress() {
+        return mProgress;
+    }
+
+    private int getEffectiveLoops() {
+        if (mStopRequestedAt < 0) return mSearchingLoops;
+        //收到停止信号的那一圈要跑完
+        long searchingElapsed = Math.max(0, mStopRequestedAt - mDuration);
+        int loops = (int) (searchingElapsed / mDuration) + 1;
+        if (mSearchingLoops == LOOP_INFINITE) return loops;
+        return Math.min(loops, mSearchingLoops);
+    }
+
+    private void set(SearchView.State state, long elapsedInState) {
+        mState = state;
+        //和原来ValueAnimator默认的插值器一致，每一段都先加速后减速
+        mProgress = ClockAnimator.ACCELERATE_DECELERATE.getInterpolation((float) elapsedInState / mDuration);
+    }
+}
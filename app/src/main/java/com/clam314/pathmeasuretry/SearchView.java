@@ -1,18 +1,11 @@
 package com.clam314.pathmeasuretry;
 
-import android.animation.Animator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PathMeasure;
-import android.graphics.RectF;
-import android.os.Handler;
-import android.os.Message;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.View;
 
 /**
@@ -27,27 +20,80 @@ public class SearchView extends View {
     private State mCurrentState = State.NONE;
 
     private Path pathSearch;
-    private Path pathCircle;
-    private PathMeasure mMeasure;
-
+    private PathLengthTable mSearchTable;
+    private PathLengthTable mCircleTable;
+
+    //STARING和ENDING截取的都是pathSearch从当前进度到终点的部分，可以共用一个缓存
+    private SegmentCache mSearchSegments;
+    private SegmentCache mCircleSegments;
+    //STARING、ENDING从进度处截到终点，SEARCHING截取跟着进度转的一段
+    private static final SegmentCache.SegmentRange SEARCH_RANGE = new SegmentCache.SegmentRange() {
+        @Override
+        public void compute(float value, float length, float[] out) {
+            out[0] = length * value;
+            out[1] = length;
+        }
+    };
+    private static final SegmentCache.SegmentRange CIRCLE_RANGE = new SegmentCache.SegmentRange() {
+        @Override
+        public void compute(float value, float length, float[] out) {
+            out[1] = length * value;
+            out[0] = out[1] - (0.5f - Math.abs(value - 0.5f)) * 200f;
+        }
+    };
+
+    //两条路径的范围(left,top,right,bottom)，坐标原点在View中心；动画时只刷新当前状态和上一帧状态的范围
+    private float[] mSearchBounds;
+    private float[] mCircleBounds;
+    private DirtyBounds mDirtyBounds;
+    private int[] mDirty;
+
+    //按onDraw的耗时自动降低绘制质量；预渲染模式下所有状态的帧画在它持有的一张图上
+    private AdaptiveQuality mQuality;
+    //降级后折线隔点取样的片段缓存，用到时才生成
+    private SegmentCache mCoarseSearchSegments;
+    private SegmentCache mCoarseCircleSegments;
+
+    private static final int BACKGROUND_COLOR = 0xFF0082D7;
+    //放大镜的圆、外圈的大圆，圆弧都从45度开始逆时针画一整圈
+    private static final float SEARCH_RADIUS = 50;
+    private static final float CIRCLE_RADIUS = 100;
+    private static final float START_ANGLE = 45;
+    private static final float SWEEP_ANGLE = -359.9f;
     private static final int defaultDuration = 2000;
-
-    private ValueAnimator mStartingAnimator;
-    private ValueAnimator mSearchingAnimator;
-    private ValueAnimator mEndingAnimator;
+    //和原来用Handler切换时SEARCHING实际执行的圈数保持一致
+    private static final int DEFAULT_SEARCHING_LOOPS = 4;
+    private static final int SEGMENT_STEPS = 200;
+    //粗糙模式下折线每隔几个点取一个
+    private static final int COARSE_STRIDE = 2;
+    //预渲染时放大镜和外圈的大圆各占一半的帧：STARING、ENDING截取的范围一样，NONE就是放大镜进度为0的那一帧
+    //预算够时每段90帧，不够时先减帧，最少24帧，再不够才缩小每一帧
+    private static final int ATLAS_MAX_FRAMES_PER_STATE = 90;
+    private static final int ATLAS_MIN_FRAMES_PER_STATE = 24;
+    //每一帧230x230，默认预算能按原始分辨率放下每段28帧
+    private static final int ATLAS_MAX_BYTES = 12 * 1024 * 1024;
+    //大圆半径100加上画笔宽度，预渲染的每一帧只需要这么大
+    private static final int ATLAS_CONTENT_SIZE = 2 * (100 + 15);
+
+    //一个ClockAnimator驱动整条时间轴，状态和进度都由SearchTimeline根据经过的时间算出来
+    //时间来自AnimationClock，测试时可以换成手动推进的时钟
+    private ClockAnimator mTimeAnimator;
+    //由共用的FrameScheduler派发帧，离开窗口或者不可见时动画暂停
+    private FrameScheduler.Client mFrameClient;
+    private SearchTimeline mTimeline;
+    private long mElapsed = 0;
 
     private float mAnimatorValue = 0;
 
-    private ValueAnimator.AnimatorUpdateListener mUpdateListener;
-    private Animator.AnimatorListener mAnimatorListener;
+    //列表模式：画笔和动画的时钟由RowPool提供，动画的进度保存在每一行的RowState里
+    private RowPool mRowPool;
+    private RowState mRowState;
+    private RowPool.Row mPoolRow;
 
-    private boolean isOver = false;
-    private int count = 0;
-
-    private Handler mAnimatorHandler;
+    private FrameStats mFrameStats;
 
     public SearchView(Context context) {
-        this(context,null);
+        this(context,(AttributeSet) null);
     }
 
     public SearchView(Context context, AttributeSet attrs) {
@@ -60,124 +106,382 @@ public class SearchView extends View {
         initAll();
     }
 
+    /**
+     * 列表里的行：画笔、时间轴和时钟都用pool里共用的，自己不生成；之后用bind(RowState)绑定每一行的状态
+     */
+    public SearchView(Context context, RowPool pool) {
+        super(context);
+        if(pool == null){
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        initCommon();
+        initPool(pool);
+    }
+
     private void initAll(){
+        initCommon();
         initPaint();
-        initPath();
-        initListener();
-        initHandler();
+        initBounds();
         initAnimator();
+        //不在列表里，自己用一个QualityGovernor
+        mQuality.setSharedGovernor(null);
 
-        mCurrentState = State.STARING;
-        mStartingAnimator.start();
+        startSearch();
+    }
+
+    //两种模式都需要的：几何数据和片段缓存都是所有实例共用的
+    private void initCommon(){
+        setLayerType(View.LAYER_TYPE_SOFTWARE,null);
+        mFrameStats = FrameStats.get(getClass().getSimpleName());
+        initPath();
+        initQuality();
     }
 
     private void initPaint(){
-        mPaint = new Paint();
-        mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setColor(Color.WHITE);
-        mPaint.setStrokeWidth(15);
-        mPaint.setStrokeCap(Paint.Cap.ROUND);
-        mPaint.setAntiAlias(true);
+        mPaint = createPaint();
+    }
+
+    //RowPool里共用的画笔也从这里生成
+    static Paint createPaint(){
+        Paint paint = new Paint();
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setColor(Color.WHITE);
+        paint.setStrokeWidth(15);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setAntiAlias(true);
+        return paint;
     }
 
     private void initPath(){
-        pathSearch = new Path();
-        pathCircle = new Path();
-        mMeasure = new PathMeasure();
+        //几何参数相同的SearchView共用同一份测量结果、Path和片段缓存，只有第一个实例需要生成
+        mCircleTable = getCircleTable();
+        mSearchTable = getSearchTable(mCircleTable);
+
+        //Path和PathLengthTable用同样的参数生成，NONE状态直接画pathSearch
+        final PathLengthTable circleTable = mCircleTable;
+        pathSearch = MeasuredPathRegistry.get(new MeasuredPathRegistry.Key("searchPath",
+                SEARCH_RADIUS, START_ANGLE, SWEEP_ANGLE, CIRCLE_RADIUS), new MeasuredPathRegistry.Factory<Path>() {
+            @Override
+            public Path create() {
+                float[] pos = new float[2];
+                circleTable.getPosTan(0,pos,null);
+                Path path = new Path();
+                new AndroidPathSink(path).arcTo(0,0,SEARCH_RADIUS,START_ANGLE,SWEEP_ANGLE,true);
+                path.lineTo(pos[0],pos[1]);
+                return path;
+            }
+        });
 
-        RectF oval1 = new RectF(-50,-50,50,50);
-        pathSearch.addArc(oval1,45,-359.9f);
+        mSearchSegments = getSharedSegments("searchSegments", mSearchTable, SEARCH_RANGE, 1);
+        mCircleSegments = getSharedSegments("circleSegments", mCircleTable, CIRCLE_RANGE, 1);
+    }
 
-        RectF oval2 = new RectF(-100,-100,100,100);
-        pathCircle.addArc(oval2,45,-359.9f);
+    private static PathLengthTable getCircleTable(){
+        return MeasuredPathRegistry.arc(0,0,CIRCLE_RADIUS,START_ANGLE,SWEEP_ANGLE);
+    }
 
+    //放大镜的圆画完后连到外圈大圆的起点
+    private static PathLengthTable getSearchTable(PathLengthTable circleTable){
         float[] pos = new float[2];
+        circleTable.getPosTan(0,pos,null);
+        return MeasuredPathRegistry.arcThenLine(0,0,SEARCH_RADIUS,START_ANGLE,SWEEP_ANGLE,pos[0],pos[1]);
+    }
 
-        mMeasure.setPath(pathCircle,false);
-        mMeasure.getPosTan(0,pos,null);
+    private void initBounds(){
+        mSearchBounds = new float[4];
+        mSearchTable.getBounds(mSearchBounds);
+        mCircleBounds = new float[4];
+        mCircleTable.getBounds(mCircleBounds);
+        mDirtyBounds = new DirtyBounds();
+        mDirty = new int[4];
+    }
 
-        pathSearch.lineTo(pos[0],pos[1]);
-        Log.i("TAG", "pos=" + pos[0] + ":" + pos[1]);
+    //RowPool里共用的时间轴也从这里生成
+    static SearchTimeline createTimeline(){
+        return new SearchTimeline(defaultDuration, DEFAULT_SEARCHING_LOOPS);
     }
 
-    private void initListener(){
-        mUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                mAnimatorValue = (float)animation.getAnimatedValue();
-                invalidate();
-            }
-        };
-        mAnimatorListener = new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
+    /**
+     * 列表模式下每帧刷新两条路径范围的并集：行之间复用View，记不住每一行上一帧的状态，就不区分当前状态
+     */
+    static int[] createPoolDirty(Paint paint){
+        PathLengthTable circleTable = getCircleTable();
+        float[] bounds = new float[4];
+        DirtyBounds dirtyBounds = new DirtyBounds();
+        circleTable.getBounds(bounds);
+        dirtyBounds.union(bounds[0], bounds[1], bounds[2], bounds[3]);
+        getSearchTable(circleTable).getBounds(bounds);
+        dirtyBounds.union(bounds[0], bounds[1], bounds[2], bounds[3]);
+        int[] dirty = new int[4];
+        dirtyBounds.commit(getDirtyOutset(paint), dirty);
+        return dirty;
+    }
 
-            }
+    //画笔宽度的一半，再加上抗锯齿和预渲染图缩放时的过滤
+    private static float getDirtyOutset(Paint paint){
+        return paint.getStrokeWidth() / 2 + 2;
+    }
 
+    //片段缓存每个进度只生成一次、之后不再修改，多个实例共用也不会互相挤掉；只在主线程读取
+    private SegmentCache getSharedSegments(String kind, final PathLengthTable table,
+                                           final SegmentCache.SegmentRange range, final int stride){
+        return MeasuredPathRegistry.get(new MeasuredPathRegistry.Key(kind, SEARCH_RADIUS, CIRCLE_RADIUS,
+                START_ANGLE, SWEEP_ANGLE, SEGMENT_STEPS, stride), new MeasuredPathRegistry.Factory<SegmentCache>() {
             @Override
-            public void onAnimationEnd(Animator animation) {
-                mAnimatorHandler.sendEmptyMessage(0);
+            public SegmentCache create() {
+                return new SegmentCache(table, range, SEGMENT_STEPS, stride);
             }
+        });
+    }
 
+    private void initAnimator(){
+        mTimeline = createTimeline();
+        mFrameClient = FrameScheduler.getDefault().newClient();
+        mFrameClient.bind(this);
+        mTimeAnimator = new ClockAnimator(mFrameClient, new ClockAnimator.Listener() {
             @Override
-            public void onAnimationCancel(Animator animation) {
-
+            void onAnimationUpdate(ClockAnimator animator) {
+                long totalTime = animator.getCurrentPlayTime();
+                mElapsed = totalTime;
+                boolean running = mTimeline.update(totalTime);
+                mCurrentState = mTimeline.getState();
+                mAnimatorValue = mTimeline.getProgress();
+                invalidateContent();
+                if(!running){
+                    animator.cancel();
+                }
             }
+        });
+        //结束时间由SearchTimeline决定，这里只需要一直计时
+        mTimeAnimator.setDuration(defaultDuration);
+        mTimeAnimator.setRepeatCount(ClockAnimator.INFINITE);
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+    /**
+     * 只刷新上一帧和这一帧的路径范围，其余部分的背景不会变
+     */
+    private void invalidateContent(){
+        int[] dirty;
+        if(mRowPool != null){
+            dirty = mRowPool.getSearchDirty();
+        }else{
+            float[] bounds = mCurrentState == State.SEARCHING ? mCircleBounds : mSearchBounds;
+            mDirtyBounds.reset();
+            mDirtyBounds.union(bounds[0], bounds[1], bounds[2], bounds[3]);
+            if(!mDirtyBounds.commit(getDirtyOutset(mPaint), mDirty)) return;
+            dirty = mDirty;
+        }
+        int centerX = mViewWidth / 2;
+        int centerY = mViewHeight / 2;
+        invalidate(centerX + dirty[0], centerY + dirty[1], centerX + dirty[2], centerY + dirty[3]);
+    }
 
-            }
-        };
+    /**
+     * 替换动画使用的时钟，为null时恢复为共用的FrameScheduler；自己指定的时钟不会随可见性暂停
+     */
+    public void setAnimationClock(AnimationClock clock){
+        //列表模式下时间由RowPool统一提供
+        if(mTimeAnimator == null) return;
+        mTimeAnimator.setClock(clock != null ? clock : mFrameClient);
+    }
+
+    public boolean isAnimating(){
+        if(mRowPool != null) return mRowState != null && mRowState.isRunning();
+        return mTimeAnimator.isRunning();
+    }
+
+    /**
+     * 切换到列表模式：画笔和驱动动画的时钟交给共用的RowPool，自己的画笔和动画会被释放
+     * 之后用bind(RowState)切换每一行的状态，同一个View只能设置一次；列表里新建的行直接用SearchView(Context, RowPool)
+     */
+    public void setRowPool(RowPool pool){
+        if(pool == null || pool == mRowPool) return;
+        if(mRowPool != null){
+            throw new IllegalStateException("SearchView is already bound to a RowPool");
+        }
+        mTimeAnimator.cancel();
+        mTimeAnimator = null;
+        int searchingLoops = mTimeline.getSearchingLoops();
+        mSearchBounds = mCircleBounds = null;
+        mDirtyBounds = null;
+        mDirty = null;
+        initPool(pool);
+        //之前的动画进度接着在RowPool上继续
+        RowState state = new RowState();
+        state.searchingLoops = searchingLoops;
+        bind(state);
     }
 
-    private void initHandler(){
-        mAnimatorHandler = new Handler(){
+    private void initPool(RowPool pool){
+        mRowPool = pool;
+        mPaint = pool.getSearchPaint();
+        mTimeline = pool.getSearchTimeline();
+        //同一个列表的行共用画笔，也共用一个质量调节；共用的最多降到粗糙的折线，每行不单独生成预渲染的图
+        mQuality.setSharedGovernor(pool.getGovernor());
+        mPoolRow = new RowPool.Row() {
             @Override
-            public void handleMessage(Message msg) {
-                super.handleMessage(msg);
-                switch (mCurrentState){
-                    case STARING:
-                        isOver = false;
-                        mCurrentState = State.SEARCHING;
-                        mStartingAnimator.removeAllListeners();
-                        mSearchingAnimator.start();
-                        Log.i("TAG", State.STARING.toString());
-                        break;
-                    case SEARCHING:
-                        if(!isOver){
-                            mSearchingAnimator.start();
-                            count++;
-                            if(count > 2){
-                                isOver = true;
-                            }
-                        }else {
-                            mCurrentState = State.ENDING;
-                            mEndingAnimator.start();
-                        }
-                        Log.i("TAG", State.SEARCHING.toString());
-                        break;
-                    case ENDING:
-                        mCurrentState = State.NONE;
-                        Log.i("TAG", State.NONE.toString());
-                        break;
+            public void onPoolFrame(long now) {
+                //离开窗口或者不可见的行不再刷新，重新绘制时再加入
+                if(!FrameScheduler.isVisible(SearchView.this)){
+                    mRowPool.unregister(this);
+                    return;
                 }
+                if(!applyRowState(now)) mRowPool.unregister(this);
+                invalidateContent();
             }
         };
     }
 
-    private void initAnimator(){
-        mStartingAnimator = ValueAnimator.ofFloat(0,1).setDuration(defaultDuration);
-        mSearchingAnimator = ValueAnimator.ofFloat(0,1).setDuration(defaultDuration);
-        mEndingAnimator = ValueAnimator.ofFloat(0,1).setDuration(defaultDuration);
+    /**
+     * 列表模式下切换到另一行的状态，只更新几个字段，不会重新初始化；还没开始过的状态会开始搜索动画
+     */
+    public void bind(RowState state){
+        if(mRowPool == null){
+            throw new IllegalStateException("bind requires a RowPool, use setRowPool or the RowPool constructor");
+        }
+        mRowState = state;
+        if(state.startTime == RowState.NOT_STARTED){
+            state.start(mRowPool.now());
+        }
+        applyRowState(mRowPool.now());
+        updatePoolRow();
+        invalidate();
+    }
+
+    //按行的状态算出当前帧，返回动画是否还在进行
+    private boolean applyRowState(long now){
+        RowState state = mRowState;
+        if(state.finished){
+            mCurrentState = State.NONE;
+            mAnimatorValue = 0;
+            return false;
+        }
+        mTimeline.reset();
+        mTimeline.setSearchingLoops(state.searchingLoops);
+        if(state.stopRequestedAt >= 0) mTimeline.requestStop(state.stopRequestedAt);
+        mElapsed = now - state.startTime;
+        boolean running = mTimeline.update(mElapsed);
+        mCurrentState = mTimeline.getState();
+        mAnimatorValue = mTimeline.getProgress();
+        if(!running) state.finished = true;
+        return running;
+    }
 
-        mStartingAnimator.addUpdateListener(mUpdateListener);
-        mSearchingAnimator.addUpdateListener(mUpdateListener);
-        mEndingAnimator.addUpdateListener(mUpdateListener);
+    /**
+     * 从STARING开始重新执行整个搜索动画
+     */
+    public void startSearch(){
+        if(mRowPool != null){
+            if(mRowState == null){
+                throw new IllegalStateException("bind must be called before startSearch");
+            }
+            mRowState.start(mRowPool.now());
+            applyRowState(mRowPool.now());
+            updatePoolRow();
+            invalidateContent();
+            return;
+        }
+        mTimeAnimator.cancel();
+        mTimeline.reset();
+        mElapsed = 0;
+        mCurrentState = State.STARING;
+        mAnimatorValue = 0;
+        mTimeAnimator.start();
+    }
 
-        mStartingAnimator.addListener(mAnimatorListener);
-        mSearchingAnimator.addListener(mAnimatorListener);
-        mEndingAnimator.addListener(mAnimatorListener);
+    /**
+     * 设置SEARCHING阶段循环的圈数，小于0表示一直循环直到调用stopSearch()
+     */
+    public void setSearchingLoops(int loops){
+        mTimeline.setSearchingLoops(loops < 0 ? SearchTimeline.LOOP_INFINITE : loops);
+        if(mRowState != null) mRowState.searchingLoops = mTimeline.getSearchingLoops();
+    }
+
+    /**
+     * 搜索结果已经返回，跑完当前这一圈后进入ENDING
+     */
+    public void stopSearch(){
+        if(mRowPool != null){
+            //列表模式下的时间轴是共用的，停止的时间记在行的状态里
+            if(mRowState != null && mRowState.stopRequestedAt < 0){
+                mRowState.stopRequestedAt = Math.max(0, mRowPool.now() - mRowState.startTime);
+            }
+            return;
+        }
+        mTimeline.requestStop(mElapsed);
+    }
+
+    /**
+     * 供测试逐帧驱动：停止时间轴，直接指定要绘制的状态和进度
+     */
+    void setFrame(State state, float progress){
+        if(mTimeAnimator != null) mTimeAnimator.cancel();
+        mCurrentState = state;
+        mAnimatorValue = progress;
+    }
+
+    public State getState(){
+        return mCurrentState;
+    }
+
+    /**
+     * 低端设备上可以打开预渲染：所有帧在后台画到一张图上，之后每帧只画一次Bitmap，生成完之前仍然实时绘制
+     */
+    public void setSpriteAtlasEnabled(boolean enabled){
+        mQuality.setAtlasRequested(enabled);
+    }
+
+    /**
+     * 预渲染的图最多占用的字节数，超出时先减少帧数，减到最少帧数还放不下才按比例缩小每一帧
+     */
+    public void setSpriteAtlasMaxBytes(int maxBytes){
+        mQuality.setAtlasMaxBytes(maxBytes);
+    }
+
+    private void buildAtlas(){
+        SpriteAtlas atlas = mQuality.getAtlas();
+        if (atlas == null || mViewWidth == 0 || mViewHeight == 0) return;
+        //后台线程只读PathLengthTable，Path和Paint都用自己的
+        //预渲染不占绘制时间，总是用完整质量
+        final Paint paint = new Paint(mPaint);
+        paint.setColor(Color.WHITE);
+        final AndroidPathSink sink = new AndroidPathSink(new Path());
+        final float[] segment = new float[Math.max(mSearchTable.getMaxSegmentSize(), mCircleTable.getMaxSegmentSize())];
+        final float[] range = new float[2];
+        atlas.build(Math.min(mViewWidth, ATLAS_CONTENT_SIZE), Math.min(mViewHeight, ATLAS_CONTENT_SIZE),
+                new SpriteAtlas.Renderer() {
+                    @Override
+                    public void renderFrame(Canvas canvas, int frame, int frameCount) {
+                        int perState = frameCount / 2;
+                        //帧数为奇数时最后一帧用不到
+                        if (frame >= perState * 2) return;
+                        boolean circle = frame >= perState;
+                        float value = (float) (frame % perState) / (perState - 1);
+                        PathLengthTable table = circle ? mCircleTable : mSearchTable;
+                        (circle ? CIRCLE_RANGE : SEARCH_RANGE).compute(value, table.getLength(), range);
+                        SegmentCache.setPolyline(sink, segment, table.getSegment(range[0], range[1], segment));
+                        canvas.drawPath(sink.getPath(), paint);
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        invalidate();
+                    }
+                });
+    }
+
+    private int getAtlasFrame(SpriteAtlas atlas){
+        int perState = atlas.getFrameCount() / 2;
+        switch (mCurrentState){
+            case STARING:
+            case ENDING:
+                return SpriteAtlas.frameOf(mAnimatorValue, perState);
+            case SEARCHING:
+                return perState + SpriteAtlas.frameOf(mAnimatorValue, perState);
+            default:
+                //完整的放大镜
+                return 0;
+        }
     }
 
     @Override
@@ -185,43 +489,115 @@ public class SearchView extends View {
         super.onSizeChanged(w, h, oldw, oldh);
         mViewWidth = w;
         mViewHeight = h;
+        buildAtlas();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        buildAtlas();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //预渲染的图比较大，不显示的时候释放掉
+        SpriteAtlas atlas = mQuality.getAtlas();
+        if (atlas != null) atlas.recycle();
+    }
+
+    //列表模式下可见并且动画还在进行时才向RowPool要帧
+    private void updatePoolRow(){
+        if(isPoolRowRunning() && FrameScheduler.isVisible(this)){
+            mRowPool.register(mPoolRow);
+        }else{
+            mRowPool.unregister(mPoolRow);
+        }
+    }
+
+    private boolean isPoolRowRunning(){
+        return mRowState != null && mRowState.isRunning();
+    }
+
+    /**
+     * 是否按绘制耗时自动降低质量(关闭抗锯齿、粗糙的折线、预渲染)，默认打开；关闭时恢复完整质量
+     */
+    public void setAdaptiveQualityEnabled(boolean enabled){
+        mQuality.setEnabled(enabled);
+    }
+
+    /**
+     * 当前的绘制质量，见QualityGovernor的LEVEL_*
+     */
+    int getQualityLevel(){
+        return mQuality.getLevel();
+    }
+
+    private void initQuality(){
+        mQuality = new AdaptiveQuality(this, new AdaptiveQuality.Host() {
+            @Override
+            public void onApplyLevel(int level) {
+                applyQuality(level);
+            }
+
+            @Override
+            public SpriteAtlas newAtlas(int maxBytes) {
+                return new SpriteAtlas(ATLAS_MAX_FRAMES_PER_STATE * 2, ATLAS_MIN_FRAMES_PER_STATE * 2, maxBytes);
+            }
+
+            @Override
+            public void buildAtlas() {
+                SearchView.this.buildAtlas();
+            }
+        }, ATLAS_MAX_BYTES);
+    }
+
+    //粗糙等级换成隔点取样的片段缓存
+    private void applyQuality(int level){
+        if (level >= QualityGovernor.LEVEL_COARSE) {
+            if (mCoarseSearchSegments == null) {
+                mCoarseSearchSegments = getSharedSegments("searchSegments", mSearchTable, SEARCH_RANGE, COARSE_STRIDE);
+                mCoarseCircleSegments = getSharedSegments("circleSegments", mCircleTable, CIRCLE_RANGE, COARSE_STRIDE);
+            }
+            mSearchSegments = mCoarseSearchSegments;
+            mCircleSegments = mCoarseCircleSegments;
+        } else {
+            mSearchSegments = getSharedSegments("searchSegments", mSearchTable, SEARCH_RANGE, 1);
+            mCircleSegments = getSharedSegments("circleSegments", mCircleTable, CIRCLE_RANGE, 1);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        setLayerType(View.LAYER_TYPE_SOFTWARE,null);
+        long drawStart = mFrameStats.begin(mQuality.isTimed());
+        //不可见时从RowPool移除的行，重新显示时会重新绘制，这时接着要帧
+        if (mRowPool != null && isPoolRowRunning()) mRowPool.register(mPoolRow);
+        mQuality.beginDraw(canvas);
         drawSearch(canvas);
+        mQuality.endDraw(canvas, mFrameStats.end(drawStart));
     }
 
     private void drawSearch(Canvas canvas){
         mPaint.setColor(Color.WHITE);
         canvas.translate(mViewWidth/2, mViewHeight/2);
-        canvas.drawColor(Color.parseColor("#0082D7"));
+        canvas.drawColor(BACKGROUND_COLOR);
+
+        SpriteAtlas atlas = mQuality.getActiveAtlas();
+        if (atlas != null && atlas.getFrameCount() > 0 && atlas.draw(canvas, getAtlasFrame(atlas), 0, 0, 1)) {
+            return;
+        }
 
         switch (mCurrentState){
             case NONE:
                 canvas.drawPath(pathSearch,mPaint);
                 break;
             case STARING:
-                mMeasure.setPath(pathSearch,false);
-                Path dst = new Path();
-                mMeasure.getSegment(mMeasure.getLength()*mAnimatorValue,mMeasure.getLength(),dst,true);
-                canvas.drawPath(dst,mPaint);
+            case ENDING:
+                canvas.drawPath(mSearchSegments.getSegment(mAnimatorValue, mFrameStats),mPaint);
                 break;
             case SEARCHING:
-                mMeasure.setPath(pathCircle,false);
-                Path dst2 = new Path();
-                float stop = mMeasure.getLength()*mAnimatorValue;
-                float start = (float)(stop - (0.5 - Math.abs(mAnimatorValue - 0.5)) * 200f);
-                mMeasure.getSegment(start,stop,dst2,true);
-                canvas.drawPath(dst2,mPaint);
-                break;
-            case ENDING:
-                mMeasure.setPath(pathSearch,false);
-                Path dst3 = new Path();
-                mMeasure.getSegment(mMeasure.getLength()*mAnimatorValue,mMeasure.getLength(),dst3,true);
-                canvas.drawPath(dst3,mPaint);
+                canvas.drawPath(mCircleSegments.getSegment(mAnimatorValue, mFrameStats),mPaint);
                 break;
         }
     }
@@ -229,4 +605,26 @@ public class SearchView extends View {
     public static enum State{
         NONE,STARING,SEARCHING,ENDING
     }
+
+    /**
+     * 列表模式下每一行的动画状态，只有几个基本类型的字段；时间以RowPool的时钟为准
+     */
+    public static final class RowState {
+        static final long NOT_STARTED = -1;
+
+        long startTime = NOT_STARTED;
+        long stopRequestedAt = -1;
+        int searchingLoops = DEFAULT_SEARCHING_LOOPS;
+        boolean finished = false;
+
+        void start(long now) {
+            startTime = now;
+            stopRequestedAt = -1;
+            finished = false;
+        }
+
+        boolean isRunning() {
+            return startTime != NOT_STARTED && !finished;
+        }
+    }
 }
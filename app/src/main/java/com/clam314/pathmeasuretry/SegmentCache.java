@@ -0,0 +1,101 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.Path;
+
+/**
+ * 按量化后的动画进度缓存从同一条路径截取出的片段，避免每一帧都重新测量、new Path和getSegment
+ * 每个量化后的进度都有自己的位置，不淘汰：循环的动画每一圈都会走遍所有进度，按先后淘汰的话几乎不会命中
+ */
+
+class SegmentCache {
+    private final PathLengthTable mTable;
+    private final float mLength;
+    private final SegmentRange mRange;
+
+    private final int mSteps;
+    //生成片段时每隔几个点取一个，大于1时折线更粗糙但描边更快
+    private final int mStride;
+
+    //下标为量化后的进度，为null表示还没有缓存；生成之后不会再修改
+    private final Path[] mSegments;
+
+    private final float[] mStartStop = new float[2];
+    private final float[] mPolyline;
+    private final AndroidPathSink mSink = new AndroidPathSink();
+
+    /**
+     * @param table 已经测量好的路径，之后不能再修改
+     * @param steps 进度0~1被量化成的份数，最多缓存steps+1个Path
+     */
+    SegmentCache(PathLengthTable table, SegmentRange range, int steps) {
+        this(table, range, steps, 1);
+    }
+
+    /**
+     * @param stride 折线每隔stride个点取一个，起点和终点总会保留
+     */
+    SegmentCache(PathLengthTable table, SegmentRange range, int steps, int stride) {
+        mTable = table;
+        mStride = Math.max(1, stride);
+        mLength = table.getLength();
+        mPolyline = new float[table.getMaxSegmentSize()];
+        mRange = range;
+        mSteps = steps;
+        mSegments = new Path[steps + 1];
+    }
+
+    float getLength() {
+        return mLength;
+    }
+
+    /**
+     * @param stats 调用方自己的统计，生成新片段时记到这里；多个View共用一个缓存时各自记各自的，可以为null
+     */
+    Path getSegment(float value, FrameStats stats) {
+        if (value < 0) value = 0;
+        if (value > 1) value = 1;
+        int key = Math.round(value * mSteps);
+
+        Path segment = mSegments[key];
+        if (segment != null) return segment;
+
+        segment = new Path();
+        if (stats != null) stats.countAllocations(1);
+
+        mRange.compute((float) key / mSteps, mLength, mStartStop);
+        int count = mTable.getSegment(mStartStop[0], mStartStop[1], mPolyline);
+        setPolyline(mSink.setPath(segment), mPolyline, count, mStride);
+        if (stats != null) stats.countPathRebuild();
+
+        mSegments[key] = segment;
+        return segment;
+    }
+
+    /**
+     * 用PathLengthTable.getSegment输出的折线重置path
+     */
+    static void setPolyline(PathSink sink, float[] points, int count) {
+        setPolyline(sink, points, count, 1);
+    }
+
+    /**
+     * 同上，但中间的点每隔stride个取一个，起点和终点总会保留
+     */
+    static void setPolyline(PathSink sink, float[] points, int count, int stride) {
+        sink.reset();
+        if (count == 0) return;
+        sink.moveTo(points[0], points[1]);
+        int last = count - 1;
+        for (int i = stride; i < last; i += stride) {
+            sink.lineTo(points[i * 2], points[i * 2 + 1]);
+        }
+        if (last > 0) sink.lineTo(points[last * 2], points[last * 2 + 1]);
+    }
+
+    interface SegmentRange {
+        /**
+         * 根据进度计算截取的起点和终点，结果写入out[0]和out[1]
+         */
+        void compute(float value, float length, float[] out);
+    }
+}
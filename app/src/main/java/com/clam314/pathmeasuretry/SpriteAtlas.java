@@ -0,0 +1,235 @@
+package com.clam314.pathmeasuretry;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 把动画的每一帧提前画到一张大图上，绘制时只需要一次drawBitmap，不用每帧描边抗锯齿的圆弧
+ * 帧按网格排列在同一张Bitmap里，在后台线程生成；超出内存预算时先减少帧数，保证原始分辨率，
+ * 减到最少帧数还放不下时才按比例缩小每一帧，绘制时再放大
+ */
+
+final class SpriteAtlas {
+    //默认最多占用4MB
+    static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+    //ARGB_8888每个像素4字节
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private static ExecutorService sExecutor;
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private final int maxFrames;
+    private final int minFrames;
+    private final int maxBytes;
+
+    private Bitmap mBitmap;
+    //当前这张图实际的帧数，在minFrames和maxFrames之间
+    private int mFrameCount;
+    private int mColumns;
+    //每一帧在图上的大小，缩小过的话比frameWidth、frameHeight小
+    private int mCellWidth;
+    private int mCellHeight;
+    private float mFrameWidth;
+    private float mFrameHeight;
+    //每次build加一，后台生成完成时用来判断结果是否已经过期
+    private int mGeneration;
+
+    private final Rect mSrc = new Rect();
+    private final RectF mDst = new RectF();
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * @param frameCount 总帧数，放不下时缩小每一帧
+     * @param maxBytes   Bitmap最多占用的字节数
+     */
+    SpriteAtlas(int frameCount, int maxBytes) {
+        this(frameCount, frameCount, maxBytes);
+    }
+
+    /**
+     * @param maxFrames 预算够时的帧数
+     * @param minFrames 预算不够时最少保留的帧数，减到这么多还放不下才缩小每一帧
+     * @param maxBytes  Bitmap最多占用的字节数
+     */
+    SpriteAtlas(int maxFrames, int minFrames, int maxBytes) {
+        if (minFrames <= 0 || maxFrames < minFrames) {
+            throw new IllegalArgumentException("need 0 < minFrames <= maxFrames");
+        }
+        this.maxFrames = maxFrames;
+        this.minFrames = minFrames;
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SpriteAtlas");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    /**
+     * 当前这张图的帧数，还没有生成好时返回0
+     */
+    int getFrameCount() {
+        return mBitmap != null ? mFrameCount : 0;
+    }
+
+    boolean isReady() {
+        return mBitmap != null;
+    }
+
+    /**
+     * 按帧的大小在后台生成所有帧，完成后在主线程回调onReady；之前生成的图在新的图完成后才替换
+     *
+     * @param frameWidth  每一帧的宽，坐标原点在帧的中心
+     * @param frameHeight 每一帧的高
+     * @param renderer    在后台线程调用，只能使用自己的Path、Paint等对象
+     */
+    void build(float frameWidth, float frameHeight, final Renderer renderer, final Runnable onReady) {
+        final int generation = ++mGeneration;
+        if (frameWidth <= 0 || frameHeight <= 0) return;
+
+        //先按原始分辨率尽量多放帧
+        int fullWidth = (int) Math.ceil(frameWidth);
+        int fullHeight = (int) Math.ceil(frameHeight);
+        int frames = maxFrames;
+        while (frames > minFrames && gridBytes(frames, fullWidth, fullHeight) > maxBytes) {
+            frames--;
+        }
+        final int frameCount = frames;
+        //尽量排成正方形，最后一行可能有空格子，按整张图实际的大小算缩放
+        final int columns = (int) Math.ceil(Math.sqrt(frameCount));
+        final int rows = (frameCount + columns - 1) / columns;
+        float scale = Math.min(1f, (float) Math.sqrt(
+                (double) maxBytes / ((double) columns * rows * fullWidth * fullHeight * BYTES_PER_PIXEL)));
+        int width = Math.max(1, (int) (frameWidth * scale));
+        int height = Math.max(1, (int) (frameHeight * scale));
+        //向下取整后仍然可能超出一点，逐步缩小直到放得下
+        while ((width > 1 || height > 1) && gridBytes(frameCount, width, height) > maxBytes) {
+            scale *= 0.98f;
+            width = Math.max(1, (int) (frameWidth * scale));
+            height = Math.max(1, (int) (frameHeight * scale));
+        }
+        final int cellWidth = scale >= 1 ? fullWidth : width;
+        final int cellHeight = scale >= 1 ? fullHeight : height;
+        final float fw = frameWidth;
+        final float fh = frameHeight;
+        final float sx = cellWidth / frameWidth;
+        final float sy = cellHeight / frameHeight;
+
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap;
+                try {
+                    bitmap = Bitmap.createBitmap(cellWidth * columns, cellHeight * rows, Bitmap.Config.ARGB_8888);
+                } catch (OutOfMemoryError e) {
+                    //内存不够就继续用实时绘制
+                    return;
+                }
+                Canvas canvas = new Canvas(bitmap);
+                for (int i = 0; i < frameCount; i++) {
+                    int save = canvas.save();
+                    float left = (i % columns) * cellWidth;
+                    float top = (i / columns) * cellHeight;
+                    canvas.clipRect(left, top, left + cellWidth, top + cellHeight);
+                    //原点移到格子中心，再缩放到格子的大小
+                    canvas.translate(left + cellWidth / 2f, top + cellHeight / 2f);
+                    canvas.scale(sx, sy);
+                    renderer.renderFrame(canvas, i, frameCount);
+                    canvas.restoreToCount(save);
+                }
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            bitmap.recycle();
+                            return;
+                        }
+                        if (mBitmap != null) mBitmap.recycle();
+                        mBitmap = bitmap;
+                        mFrameCount = frameCount;
+                        mColumns = columns;
+                        mCellWidth = cellWidth;
+                        mCellHeight = cellHeight;
+                        mFrameWidth = fw;
+                        mFrameHeight = fh;
+                        if (onReady != null) onReady.run();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 把第frame帧画在以(centerX,centerY)为中心的位置，scale为额外的缩放
+     *
+     * @return 还没有生成好时返回false，调用方需要自己实时绘制
+     */
+    boolean draw(Canvas canvas, int frame, float centerX, float centerY, float scale) {
+        if (mBitmap == null) return false;
+        if (frame < 0) frame = 0;
+        if (frame >= mFrameCount) frame = mFrameCount - 1;
+        int left = (frame % mColumns) * mCellWidth;
+        int top = (frame / mColumns) * mCellHeight;
+        mSrc.set(left, top, left + mCellWidth, top + mCellHeight);
+        float halfWidth = mFrameWidth * scale / 2;
+        float halfHeight = mFrameHeight * scale / 2;
+        mDst.set(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight);
+        canvas.drawBitmap(mBitmap, mSrc, mDst, mPaint);
+        return true;
+    }
+
+    /**
+     * 释放Bitmap，正在后台生成的结果也会被丢弃
+     */
+    void recycle() {
+        mGeneration++;
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
+    }
+
+    //frames帧按网格排列时整张图的字节数
+    private static long gridBytes(int frames, int cellWidth, int cellHeight) {
+        int columns = (int) Math.ceil(Math.sqrt(frames));
+        int rows = (frames + columns - 1) / columns;
+        return (long) columns * rows * cellWidth * cellHeight * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * 进度0~1对应的帧，frames为这一段动画的帧数
+     */
+    static int frameOf(float progress, int frames) {
+        if (progress <= 0) return 0;
+        if (progress >= 1) return frames - 1;
+        return Math.round(progress * (frames - 1));
+    }
+
+    interface Renderer {
+        /**
+         * 画第frame帧，画布原点已经在帧的中心
+         *
+         * @param frameCount 这张图实际的帧数，按预算可能少于maxFrames
+         */
+        void renderFrame(Canvas canvas, int frame, int frameCount);
+    }
+}
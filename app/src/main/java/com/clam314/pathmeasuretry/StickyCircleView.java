@@ -1,22 +1,19 @@
 package com.clam314.pathmeasuretry;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.FloatEvaluator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PathMeasure;
-import android.graphics.PointF;
-import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
+
+import java.util.concurrent.Executor;
 
 /**
  * Created by clam314 on 2017/3/3
@@ -27,30 +24,81 @@ public class StickyCircleView extends View{
     private final static float DEFAULT_PADDING = 20f;
 
     private static final long LOADING_DURATION = 2000;
+    //预渲染loading圆弧的帧数，2秒一圈
+    private static final int ATLAS_FRAMES = 120;
+    private static final int ATLAS_MIN_FRAMES = 60;
+    private static final int COARSE_STRIDE = 2;
+    //loading圆弧的半径加上画笔宽度
+    private static final int ATLAS_CONTENT_SIZE = (int) (2 * (DEFAULT_RADIUS - DEFAULT_PADDING + 5));
     private static final long STICKY_DURATION = 300;
+    //中心圆弧和箭头的最大范围：圆弧半径加上箭头和画笔宽度
+    private static final float LOADING_BOUNDS_RADIUS = DEFAULT_RADIUS - DEFAULT_PADDING + 10;
+    //填充的边缘有抗锯齿，刷新范围向外多扩一点
+    private static final float DIRTY_OUTSET = 2;
+    //处理触摸事件到画面显示出来大约还要一帧，拉出圆按这个时间预测手指的位置
+    private static final long PREDICTION_LEAD_MILLIS = 16;
 
     //移动的最大距离
     private float MaxMoveDistance = 1000f;
     private int viewWidth,viewHeight;
-    private int circleColor = Color.parseColor("#00ffad");
-    private int loadPathColor = Color.WHITE;
-
-    private Circle circleStart, circleEnd;
-    private PointF pStartA,pStartB,pEndA,pEndB,pControlO, pControlP;
-    private PointF downPoint,movePoint;
+    private static final int DEFAULT_CIRCLE_COLOR = Color.parseColor("#00ffad");
+    private static final int DEFAULT_LOAD_PATH_COLOR = Color.WHITE;
+
+    //开始圆和拉出圆的中心坐标、半径
+    private float mStartX, mStartY, mStartRadius = DEFAULT_RADIUS;
+    private float mEndX, mEndY, mEndRadius = DEFAULT_RADIUS;
+    //连接曲线是否需要绘制，两圆重合时为false
+    private boolean mHasBridge;
+    //上一帧和这一帧两圆、连接曲线、中心圆弧的范围，只刷新两者的并集；列表模式下为null
+    private DirtyBounds mDirtyBounds;
+    //按下的点和滑动的点
+    private float mDownX, mDownY, mMoveX, mMoveY;
+    //拖动时根据最近的触摸点预测手指的位置，减少拉出圆落后手指的距离
+    private boolean mTouchPrediction = true;
+    //绘制、计算几何时临时用的Path和数组，列表模式下是RowPool里共用的
+    private Scratch mScratch;
 
     private Paint mBezierPaint, mLoadPaint;
-    private Path mBezierPath,mLoadPath;
-    private PathMeasure pathMeasure;
-
-    private ValueAnimator stickyAnimator,loadAnimator;
-    private FloatEvaluator evaluator;
+    //静止时的箭头加圆弧只需要生成一次
+    private Path mNormalLoadPath;
+    private PathLengthTable mLoadTable;
+    //按onDraw的耗时自动降低绘制质量；预渲染模式下loading圆弧的所有帧画在它持有的一张图上
+    private AdaptiveQuality mQuality;
+    //loading圆弧的折线每隔几个点取一个，降到粗糙等级时为COARSE_STRIDE
+    private int mLoadStride = 1;
+
+    //两个动画共用一个AnimationClock，测试时可以换成手动推进的时钟；列表模式下为null，由RowPool派发帧
+    private ClockAnimator stickyAnimator,loadAnimator;
+    //由共用的FrameScheduler派发帧，离开窗口或者不可见时动画暂停
+    private FrameScheduler.Client mFrameClient;
+    //回滚动画开始时两点的距离
+    private float mStickyDistance;
+    //回滚的方向在动画开始时算好，每一帧只沿这个单位向量缩短距离
+    private float mStickyDirX, mStickyDirY;
+    //列表模式下回滚开始时池的时间，没有在回滚时为NOT_ROLLING
+    private long mStickyStart = NOT_ROLLING;
+    private static final long NOT_ROLLING = -1;
 
     private float mLoadAnimatorValue;
+    //loading动画是否在转，绘制时按这个判断画旋转的圆弧还是静止的箭头
+    private boolean mSpinning = false;
     private float mScale;
 
     private boolean loading = false;
     private OnReloadListener mReloadListener;
+    //后台执行的刷新工作，结束后自动停止loading
+    private Runnable mReloadTask;
+    private ReloadPipeline mReloadPipeline;
+    //当前这次loading对应的刷新任务，已经被取消、又重新开始时，旧任务的回调直接忽略
+    private ReloadPipeline.Handle mReloadHandle;
+    private OnReloadFinishListener mReloadFinishListener;
+
+    //列表模式：画笔和loading转圈的时钟由RowPool提供，转圈的状态保存在每一行的RowState里
+    private RowPool mRowPool;
+    private RowState mRowState;
+    private RowPool.Row mPoolRow;
+
+    private FrameStats mFrameStats;
 
     public StickyCircleView(Context context) {
         super(context);
@@ -67,106 +115,431 @@ public class StickyCircleView extends View{
         initAll();
     }
 
+    /**
+     * 列表里的行：画笔、临时对象和时钟都用pool里共用的，自己不生成；之后用bind(RowState)绑定每一行的状态
+     */
+    public StickyCircleView(Context context, RowPool pool) {
+        super(context);
+        if(pool == null){
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        initCommon();
+        initPool(pool);
+    }
+
     private void initAll(){
-        initCircleAndPoints();
+        initCommon();
+        mScratch = new Scratch();
+        mDirtyBounds = new DirtyBounds();
         initPaint();
-        initPath();
         initAnimation();
+        //不在列表里，自己用一个QualityGovernor
+        mQuality.setSharedGovernor(null);
     }
 
-    private void initCircleAndPoints(){
-        circleStart = new Circle(0,0, DEFAULT_RADIUS);
-        circleEnd = new Circle(0,0, DEFAULT_RADIUS);
-
-        pStartA = new PointF();
-        pStartB = new PointF();
-        pEndA = new PointF();
-        pEndB = new PointF();
-        pControlP = new PointF();
-        pControlO = new PointF();
-        downPoint = new PointF();
-        movePoint = new PointF();
+    //两种模式都需要的：loading圆弧的测量结果和静止时的箭头都是所有实例共用的
+    private void initCommon(){
+        //关闭硬件加速，否则部分path的绘制不生效
+        setLayerType(View.LAYER_TYPE_SOFTWARE,null);
+        mFrameStats = FrameStats.get(getClass().getSimpleName());
+        initPath();
+        initQuality();
     }
 
     private void initPaint(){
-        mBezierPaint = new Paint();
-        mBezierPaint.setAntiAlias(true);
-        mBezierPaint.setStrokeWidth(1);
-        mBezierPaint.setStyle(Paint.Style.FILL);
-        mBezierPaint.setColor(circleColor);
+        mBezierPaint = createBezierPaint();
+        mLoadPaint = createLoadPaint();
+    }
 
-        mLoadPaint = new Paint();
-        mLoadPaint.setAntiAlias(true);
-        mLoadPaint.setStrokeWidth(5);
-        mLoadPaint.setStyle(Paint.Style.STROKE);
-        mLoadPaint.setStrokeCap(Paint.Cap.ROUND);
-        mLoadPaint.setColor(loadPathColor);
+    //RowPool里共用的画笔也从这里生成
+    static Paint createBezierPaint(){
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStrokeWidth(1);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(DEFAULT_CIRCLE_COLOR);
+        return paint;
+    }
+
+    static Paint createLoadPaint(){
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStrokeWidth(5);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setColor(DEFAULT_LOAD_PATH_COLOR);
+        return paint;
     }
 
     private void initPath(){
-        mBezierPath = new Path();
+        //中心圆圈只测量一次，之后截取圆弧都用这个表；所有实例共用同一份
+        mLoadTable = getLoadTable();
+
+        //静止时的箭头加圆弧也只生成一次，所有实例共用
+        mNormalLoadPath = MeasuredPathRegistry.get(new MeasuredPathRegistry.Key("stickyNormalLoadPath",
+                        DEFAULT_RADIUS - DEFAULT_PADDING),
+                new MeasuredPathRegistry.Factory<Path>() {
+                    @Override
+                    public Path create() {
+                        return createNormalLoadPath();
+                    }
+                });
+    }
 
-        pathMeasure = new PathMeasure();
-        mLoadPath = new Path();
-        float loadCircleRadius = DEFAULT_RADIUS - DEFAULT_PADDING;
-        RectF circle = new RectF(-loadCircleRadius, -loadCircleRadius, loadCircleRadius, loadCircleRadius);
-        mLoadPath.addArc(circle, 0, 359.9f);
+    private static PathLengthTable getLoadTable(){
+        return MeasuredPathRegistry.arc(0, 0, DEFAULT_RADIUS - DEFAULT_PADDING, 0, 359.9f);
+    }
+
+    private Path createNormalLoadPath(){
+        float[] pos = new float[2];
+        float[] tan = new float[2];
+        float stop = mLoadTable.getLength() * 0.75f;
+        float start = 0;
+        mLoadTable.getPosTan(stop,pos,tan);//获取截取圆弧的结束点的坐标和方向趋势
+        //根据tan获取旋转的角度，用于旋转后面绘制的箭头
+        float degrees = VectorMath.atan2(tan[1],tan[0]) * VectorMath.RAD_TO_DEG;
+
+        Matrix matrix = new Matrix();
+        Path triangle = new Path();
+        //绘制箭头，此时的箭头的顶点坐标还在原点
+        triangle.moveTo(pos[0] - 5, pos[1] + 5);
+        triangle.lineTo(pos[0],pos[1]);
+        triangle.lineTo(pos[0] + 5, pos[1] + 5);
+        triangle.close();
+        //将箭头移动到圆弧结束点的位置并旋转
+        matrix.setRotate(degrees+90, pos[0],pos[1]);
+
+        Path showPath = new Path();
+        //前面的箭头添加将要绘制的路径里面
+        showPath.addPath(triangle,matrix);
+        //截取圆圈从起始点到结束的圆弧并添加到要绘制的path中，圆弧的起点不和箭头相连
+        float[] segment = new float[mLoadTable.getMaxSegmentSize()];
+        int count = mLoadTable.getSegment(start,stop,segment);
+        showPath.moveTo(segment[0],segment[1]);
+        for (int i = 1; i < count; i++) {
+            showPath.lineTo(segment[i * 2],segment[i * 2 + 1]);
+        }
+        return showPath;
     }
 
     private void initAnimation(){
-        //这里先不给animator设置evaluator,因为暂时还不知道需要变化的值，此时设置了也无效
-        evaluator = new FloatEvaluator();
-        stickyAnimator = new ValueAnimator();
-        //设置插值器
-        stickyAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        //设置属性值变化的监听，这里得到的newDistance就是两点新的距离
-        stickyAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        mFrameClient = FrameScheduler.getDefault().newClient();
+        mFrameClient.bind(this);
+        AnimationClock clock = mFrameClient;
+        stickyAnimator = new ClockAnimator(clock, new ClockAnimator.Listener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float newDistance = (float) animation.getAnimatedValue();
-                float distance = getDistanceBetweenTwoPoints(downPoint.x,downPoint.y,movePoint.x,movePoint.y);
-                float cos = (movePoint.x - downPoint.x)/distance;
-                float sin = (movePoint.y - downPoint.y)/distance;
-                movePoint.x = downPoint.x + newDistance * cos;
-                movePoint.y = downPoint.y + newDistance * sin;
-                invalidate();
+            void onAnimationUpdate(ClockAnimator animator) {
+                applyStickyFraction(animator.getAnimatedFraction());
             }
-        });
-        //圆形缩回来后判断是否需要执行loading动画
-        stickyAnimator.addListener(new AnimatorListenerAdapter() {
+
             @Override
-            public void onAnimationEnd(Animator animation) {
-                //在onTouchEvent里面判断了移动的距离是否触发加载动画
-                if(loading){
-                    loadAnimator.start();
-                    if(mReloadListener != null) mReloadListener.onReload();
-                }
+            void onAnimationEnd(ClockAnimator animator, boolean cancelled) {
+                onStickyEnd();
             }
         });
+        //设置插值器
+        stickyAnimator.setInterpolator(ClockAnimator.ACCELERATE_DECELERATE);
 
-        loadAnimator = ValueAnimator.ofFloat(0,1).setDuration(LOADING_DURATION);
-        loadAnimator.setRepeatCount(-1);//loading动画一直执行，直到调用cancel()后才停止
-        loadAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        loadAnimator = new ClockAnimator(clock, new ClockAnimator.Listener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                mLoadAnimatorValue = (float) animation.getAnimatedValue();
-                invalidate();
+            void onAnimationStart(ClockAnimator animator) {
+                mSpinning = true;
+            }
+
+            @Override
+            void onAnimationUpdate(ClockAnimator animator) {
+                mLoadAnimatorValue = animator.getAnimatedFraction();
+                invalidateLoading();
+            }
+
+            @Override
+            void onAnimationEnd(ClockAnimator animator, boolean cancelled) {
+                mSpinning = false;
+                invalidateLoading();
             }
         });
+        loadAnimator.setDuration(LOADING_DURATION);
+        //和原来ValueAnimator默认的插值器一致，每一圈先加速后减速
+        loadAnimator.setInterpolator(ClockAnimator.ACCELERATE_DECELERATE);
+        loadAnimator.setRepeatCount(ClockAnimator.INFINITE);//loading动画一直执行，直到调用cancel()后才停止
+    }
+
+    /**
+     * 替换动画使用的时钟，为null时恢复为共用的FrameScheduler；自己指定的时钟不会随可见性暂停
+     */
+    public void setAnimationClock(AnimationClock clock){
+        //列表模式下回滚和loading转圈都由RowPool的时钟驱动
+        if(stickyAnimator == null) return;
+        if(clock == null) clock = mFrameClient;
+        stickyAnimator.setClock(clock);
+        loadAnimator.setClock(clock);
+    }
+
+    /**
+     * 切换到列表模式：画笔和动画交给共用的RowPool，自己的画笔和动画会被释放
+     * 之后用bind(RowState)切换每一行的状态，同一个View只能设置一次；列表里新建的行直接用StickyCircleView(Context, RowPool)
+     */
+    public void setRowPool(RowPool pool){
+        if(pool == null || pool == mRowPool) return;
+        if(mRowPool != null){
+            throw new IllegalStateException("StickyCircleView is already bound to a RowPool");
+        }
+        boolean spinning = loadAnimator.isRunning();
+        //先清掉loading，取消回滚动画时不会开始转圈
+        loading = false;
+        stickyAnimator.cancel();
+        stickyAnimator = null;
+        loadAnimator.cancel();
+        loadAnimator = null;
+        mDirtyBounds = null;
+        initPool(pool);
+        RowState state = new RowState();
+        if(spinning) state.start(pool.now());
+        bind(state);
+    }
+
+    private void initPool(RowPool pool){
+        mRowPool = pool;
+        mScratch = pool.getStickyScratch();
+        mBezierPaint = pool.getStickyBezierPaint();
+        mLoadPaint = pool.getStickyLoadPaint();
+        //同一个列表的行共用画笔，也共用一个质量调节；共用的最多降到粗糙的折线，每行不单独生成预渲染的图
+        mQuality.setSharedGovernor(pool.getGovernor());
+        mPoolRow = new RowPool.Row() {
+            @Override
+            public void onPoolFrame(long now) {
+                //离开窗口或者不可见的行不再刷新，重新绘制时再加入
+                if(!FrameScheduler.isVisible(StickyCircleView.this)){
+                    mRowPool.unregister(this);
+                    return;
+                }
+                if(mStickyStart != NOT_ROLLING){
+                    //和stickyAnimator一样的时长和插值
+                    float linear = Math.min(1f, (float) (now - mStickyStart) / STICKY_DURATION);
+                    applyStickyFraction(ClockAnimator.ACCELERATE_DECELERATE.getInterpolation(linear));
+                    if(linear >= 1){
+                        mStickyStart = NOT_ROLLING;
+                        onStickyEnd();
+                        updatePoolRow();
+                    }
+                }
+                if(mSpinning){
+                    mLoadAnimatorValue = getSpinnerValue(now);
+                    invalidateLoading();
+                }
+            }
+        };
+    }
+
+    //距离从mStickyDistance缩到0，直接用插值后的进度计算
+    private void applyStickyFraction(float fraction){
+        float newDistance = mStickyDistance * (1 - fraction);
+        mMoveX = mDownX + newDistance * mStickyDirX;
+        mMoveY = mDownY + newDistance * mStickyDirY;
+        invalidateGeometry();
+    }
+
+    //圆形缩回来后判断是否需要执行loading动画
+    private void onStickyEnd(){
+        //在onTouchEvent里面判断了移动的距离是否触发加载动画
+        if(loading){
+            startSpinner();
+            startReloadWork();
+        }
+    }
+
+    /**
+     * 列表模式下切换到另一行的状态：正在进行的拖动和回滚直接结束，转圈的进度按这一行开始转的时间继续
+     */
+    public void bind(RowState state){
+        if(mRowPool == null){
+            throw new IllegalStateException("bind requires a RowPool, use setRowPool or the RowPool constructor");
+        }
+        //回滚直接结束，不会给新的一行开始转圈
+        mStickyStart = NOT_ROLLING;
+        mRowState = state;
+        loading = mSpinning = state.spinning;
+        if(mSpinning){
+            mLoadAnimatorValue = getSpinnerValue(mRowPool.now());
+        }
+        mMoveX = mDownX;
+        mMoveY = mDownY;
+        updateGeometry();
+        updatePoolRow();
+        invalidate();
+    }
+
+    //列表模式下按这一行开始转的时间算出loading的进度，插值和loadAnimator一样
+    private float getSpinnerValue(long now){
+        float linear = (float) ((now - mRowState.spinStart) % LOADING_DURATION) / LOADING_DURATION;
+        return ClockAnimator.ACCELERATE_DECELERATE.getInterpolation(linear);
+    }
+
+    private void startSpinner(){
+        if(mRowPool == null){
+            loadAnimator.start();
+            return;
+        }
+        mRowState.start(mRowPool.now());
+        mSpinning = true;
+        mLoadAnimatorValue = 0;
+        updatePoolRow();
+        invalidateLoading();
+    }
+
+    private void stopSpinner(){
+        if(mRowPool == null){
+            if(loadAnimator.isRunning()) loadAnimator.cancel();
+            return;
+        }
+        if(mRowState == null || !mRowState.spinning) return;
+        mRowState.spinning = false;
+        mSpinning = false;
+        updatePoolRow();
+        invalidateLoading();
+    }
+
+    private boolean isSpinnerRunning(){
+        return mRowPool != null ? mRowState != null && mRowState.spinning : loadAnimator.isRunning();
+    }
+
+    private boolean isStickyRunning(){
+        return mRowPool != null ? mStickyStart != NOT_ROLLING : stickyAnimator.isRunning();
+    }
+
+    //列表里还没有bind过状态的行不响应拖动和loading
+    private boolean isUnboundRow(){
+        return mRowPool != null && mRowState == null;
     }
 
     public void setOnReloadListener(OnReloadListener listener){
         this.mReloadListener = listener;
     }
 
+    public void setOnReloadFinishListener(OnReloadFinishListener listener){
+        this.mReloadFinishListener = listener;
+    }
+
+    /**
+     * 设置在后台执行的刷新工作，执行完后loading自动停止，不需要再调用stopReload
+     */
+    public void setReloadTask(Runnable task){
+        this.mReloadTask = task;
+    }
+
+    /**
+     * 执行刷新工作的线程池，为null时使用默认的后台线程
+     */
+    public void setReloadExecutor(Executor executor){
+        getReloadPipeline().setExecutor(executor);
+    }
+
+    /**
+     * 不经过拖动直接开始loading，已经在loading时不会重复触发；正在回滚时等回滚结束后开始
+     *
+     * @return 后台刷新工作的Handle，可以用来取消；没有设置刷新工作或者还在回滚时返回null
+     */
+    public ReloadPipeline.Handle reload(){
+        if(!loading && !isUnboundRow()){
+            loading = true;
+            //回滚结束时onStickyEnd会开始转圈和刷新工作
+            if(!isStickyRunning()){
+                startSpinner();
+                startReloadWork();
+            }
+        }
+        return getReloadHandle();
+    }
+
+    /**
+     * 正在执行的刷新工作，没有则返回null
+     */
+    public ReloadPipeline.Handle getReloadHandle(){
+        return mReloadPipeline != null ? mReloadPipeline.getCurrent() : null;
+    }
+
+    private ReloadPipeline getReloadPipeline(){
+        if(mReloadPipeline == null){
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            mReloadPipeline = new ReloadPipeline(null, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainHandler.post(command);
+                }
+            });
+        }
+        return mReloadPipeline;
+    }
+
+    private void startReloadWork(){
+        //列表模式下回调时View可能已经换成了别的行，只处理开始刷新的那一行，监听也只为这一行回调
+        final RowState rowState = mRowState;
+        //回调和刷新工作都不在启动loading的这一帧里执行，避免卡住第一帧
+        if(mReloadListener != null){
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    if(loading && rowState == mRowState && mReloadListener != null) mReloadListener.onReload();
+                }
+            });
+        }
+        if(mReloadTask == null) return;
+        mReloadHandle = getReloadPipeline().submit(mReloadTask, new ReloadPipeline.Callback() {
+            @Override
+            public void onReloadFinished(ReloadPipeline.Handle handle, boolean cancelled, Throwable error) {
+                if(handle != mReloadHandle) return;
+                mReloadHandle = null;
+                if(rowState != mRowState){
+                    //换过行之后的监听属于现在绑定的行，不替旧的行回调
+                    rowState.spinning = false;
+                    return;
+                }
+                stopLoadingAnimation();
+                if(mReloadFinishListener != null) mReloadFinishListener.onReloadFinished(cancelled, error);
+            }
+        });
+    }
+
     public boolean isLoading(){
         return loading;
     }
 
     public void stopReload(){
-        if(loadAnimator.isRunning()){
-            loadAnimator.cancel();
-        }
+        //后台的刷新工作一起取消，取消的回调里会再走一次stopLoadingAnimation；回调之前又开始了新的loading时旧回调被忽略
+        if(mReloadPipeline != null) mReloadPipeline.cancel();
+        stopLoadingAnimation();
+    }
+
+    private void stopLoadingAnimation(){
+        loading = false;
+        stopSpinner();
+    }
+
+    /**
+     * 供测试逐帧驱动：从开始圆的中心拖动(dx,dy)，停止loading
+     */
+    void setDragFrame(float dx, float dy){
+        mSpinning = false;
+        mDownX = mStartX;
+        mDownY = mStartY;
+        mMoveX = mDownX + dx;
+        mMoveY = mDownY + dy;
+        updateGeometry();
+    }
+
+    /**
+     * 供测试逐帧驱动：两圆重合，loading圆弧停在value对应的位置
+     */
+    void setLoadingFrame(float value){
+        mSpinning = true;
+        mMoveX = mDownX;
+        mMoveY = mDownY;
+        mLoadAnimatorValue = value;
+        updateGeometry();
+    }
+
+    float getMaxMoveDistance(){
+        return MaxMoveDistance;
     }
 
     @Override
@@ -174,162 +547,245 @@ public class StickyCircleView extends View{
         super.onSizeChanged(w, h, oldw, oldh);
         viewWidth = w;
         viewHeight = h;
-        circleEnd.centerPoint.x = circleStart.centerPoint.x = viewWidth/2;
-        circleEnd.centerPoint.y = circleStart.centerPoint.y = 50f + DEFAULT_RADIUS;
+        mEndX = mStartX = viewWidth/2;
+        mEndY = mStartY = 50f + DEFAULT_RADIUS;
+        //尺寸变化后整个View都会重画，这里只需要更新位置
+        updateGeometry();
+        buildAtlas();
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        buildAtlas();
+    }
 
-        //关闭硬件加速，否则部分path的绘制不生效
-        setLayerType(View.LAYER_TYPE_SOFTWARE,null);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        SpriteAtlas atlas = mQuality.getAtlas();
+        if (atlas != null) atlas.recycle();
+    }
 
-        //根据按下的和滑动的点两个点的距离计算，开始圆和拉出圆的中心坐标以及半径
-        calculateCircleSize();
-        canvas.drawCircle(circleStart.centerPoint.x, circleStart.centerPoint.y, circleStart.radius, mBezierPaint);
-        canvas.drawCircle(circleEnd.centerPoint.x, circleEnd.centerPoint.y, circleEnd.radius, mBezierPaint);
+    //列表模式下可见并且正在回滚或者转圈时才向RowPool要帧
+    private void updatePoolRow(){
+        if(isPoolRowRunning() && FrameScheduler.isVisible(this)){
+            mRowPool.register(mPoolRow);
+        }else{
+            mRowPool.unregister(mPoolRow);
+        }
+    }
 
-        if(calculateBezierCurve(circleStart,circleEnd)){
+    private boolean isPoolRowRunning(){
+        return mStickyStart != NOT_ROLLING || (mRowState != null && mRowState.spinning);
+    }
+
+    /**
+     * 低端设备上可以打开预渲染：loading圆弧的所有帧在后台画到一张图上，转圈时每帧只画一次Bitmap
+     */
+    public void setSpriteAtlasEnabled(boolean enabled){
+        mQuality.setAtlasRequested(enabled);
+    }
+
+    /**
+     * 预渲染的图最多占用的字节数，超出时先减少帧数，减到最少帧数还放不下才按比例缩小每一帧
+     */
+    public void setSpriteAtlasMaxBytes(int maxBytes){
+        mQuality.setAtlasMaxBytes(maxBytes);
+    }
+
+    private void buildAtlas(){
+        SpriteAtlas atlas = mQuality.getAtlas();
+        if (atlas == null || viewWidth == 0 || viewHeight == 0) return;
+        //后台线程只读mLoadTable，Path和Paint都用自己的；预渲染不占绘制时间，总是用完整质量
+        final Paint paint = new Paint(mLoadPaint);
+        final AndroidPathSink sink = new AndroidPathSink(new Path());
+        final float[] segment = new float[mLoadTable.getMaxSegmentSize()];
+        atlas.build(Math.min(viewWidth, ATLAS_CONTENT_SIZE), Math.min(viewHeight, ATLAS_CONTENT_SIZE),
+                new SpriteAtlas.Renderer() {
+                    @Override
+                    public void renderFrame(Canvas canvas, int frame, int frameCount) {
+                        float value = (float) frame / frameCount;
+                        float stop = mLoadTable.getLength() * value;
+                        SegmentCache.setPolyline(sink, segment,
+                                mLoadTable.getSegment(getLoadingStart(stop, value), stop, segment));
+                        canvas.drawPath(sink.getPath(), paint);
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        invalidate();
+                    }
+                });
+    }
+
+    /**
+     * 是否按绘制耗时自动降低质量(关闭抗锯齿、粗糙的折线、预渲染)，默认打开；关闭时恢复完整质量
+     */
+    public void setAdaptiveQualityEnabled(boolean enabled){
+        mQuality.setEnabled(enabled);
+    }
+
+    /**
+     * 当前的绘制质量，见QualityGovernor的LEVEL_*
+     */
+    int getQualityLevel(){
+        return mQuality.getLevel();
+    }
+
+    private void initQuality(){
+        mQuality = new AdaptiveQuality(this, new AdaptiveQuality.Host() {
+            @Override
+            public void onApplyLevel(int level) {
+                mLoadStride = level >= QualityGovernor.LEVEL_COARSE ? COARSE_STRIDE : 1;
+            }
+
+            @Override
+            public SpriteAtlas newAtlas(int maxBytes) {
+                return new SpriteAtlas(ATLAS_FRAMES, ATLAS_MIN_FRAMES, maxBytes);
+            }
+
+            @Override
+            public void buildAtlas() {
+                StickyCircleView.this.buildAtlas();
+            }
+        }, SpriteAtlas.DEFAULT_MAX_BYTES);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        long drawStart = mFrameStats.begin(mQuality.isTimed());
+        //不可见时从RowPool移除的行，重新显示时会重新绘制，这时接着要帧
+        if (mRowPool != null && isPoolRowRunning()) mRowPool.register(mPoolRow);
+        mQuality.beginDraw(canvas);
+
+        //两圆和连接曲线在updateGeometry里已经算好
+        canvas.drawCircle(mStartX, mStartY, mStartRadius, mBezierPaint);
+        canvas.drawCircle(mEndX, mEndY, mEndRadius, mBezierPaint);
+
+        if(mHasBridge){
+            //列表模式下存放连接曲线的数组是共用的，可能已经被别的行覆盖
+            if(mRowPool != null) calculateBezierCurve();
             drawBezierCurves(canvas);//绘制两圆间的贝塞尔曲线
         }
 
-        if(loadAnimator.isRunning()){
+        if(mSpinning){
             drawLoading(canvas);//绘制旋转时，中心的圆弧
         }else {
             drawLoadingNormal(canvas);//绘制中心的圆弧和箭头
         }
+        mQuality.endDraw(canvas, mFrameStats.end(drawStart));
     }
 
     private void drawBezierCurves(Canvas canvas){
-        mBezierPath.reset();
-        mBezierPath.moveTo(pStartA.x,pStartA.y);
-        mBezierPath.quadTo(pControlO.x, pControlO.y, pEndA.x, pEndA.y);
-        mBezierPath.lineTo(pEndB.x, pEndB.y);
-        mBezierPath.quadTo(pControlP.x, pControlP.y, pStartB.x, pStartB.y);
-        mBezierPath.close();
-        canvas.drawPath(mBezierPath, mBezierPaint);
+        Scratch scratch = mScratch;
+        scratch.bezierSink.reset();
+        StickyGeometry.buildBridgePath(scratch.bridge, 0, scratch.bezierSink);
+        mFrameStats.countPathRebuild();
+        canvas.drawPath(scratch.bezierPath, mBezierPaint);
     }
 
     private void drawLoadingNormal(Canvas canvas){
         //这里包含对画布坐标系的转换，快照一下，防止影响后续绘制
         canvas.save();
         //将画布中心移到开始圆的中心
-        canvas.translate(circleStart.centerPoint.x,circleStart.centerPoint.y);
+        canvas.translate(mStartX,mStartY);
         //根据移动的距离比例，对画布缩小和旋转
         canvas.scale(1 - mScale,1 - mScale);
         canvas.rotate(360 * mScale);
 
-        pathMeasure.setPath(mLoadPath,false);//将中心圆圈的path和pathMeasure关联
-        float[] pos = new float[2];
-        float[] tan = new float[2];
-        float stop = pathMeasure.getLength() * 0.75f;
-        float start = 0;
-        pathMeasure.getPosTan(stop,pos,tan);//获取截取圆弧的结束点的坐标和方向趋势
-        //根据tan获取旋转的角度，用于旋转后面绘制的箭头
-        float degrees =(float)(Math.atan2(tan[1],tan[0])*180/Math.PI);
-
-        Matrix matrix = new Matrix();
-        Path triangle = new Path();
-        //绘制箭头，此时的箭头的顶点坐标还在原点
-        triangle.moveTo(pos[0] - 5, pos[1] + 5);
-        triangle.lineTo(pos[0],pos[1]);
-        triangle.lineTo(pos[0] + 5, pos[1] + 5);
-        triangle.close();
-        //将箭头移动到圆弧结束点的位置并旋转
-        matrix.setRotate(degrees+90, pos[0],pos[1]);
-
-        Path showPath = new Path();
-        //前面的箭头添加将要绘制的路径里面
-        showPath.addPath(triangle,matrix);
-        //截取圆圈从起始点到结束的圆弧并添加到要绘制的path中，true代表不将截取的圆弧的起点移动到之前path的最后一个点上
-        pathMeasure.getSegment(start,stop,showPath,true);
-
-        canvas.drawPath(showPath, mLoadPaint);
+        //箭头和圆弧在initPath里已经生成好，缩放和旋转都交给画布
+        canvas.drawPath(mNormalLoadPath, mLoadPaint);
         canvas.restore();
     }
 
     private void drawLoading(Canvas canvas){
+        //预渲染好了就直接画对应的帧，一圈的进度按帧数取整
+        SpriteAtlas atlas = mQuality.getActiveAtlas();
+        int atlasFrames = atlas != null ? atlas.getFrameCount() : 0;
+        if (atlasFrames > 0 && atlas.draw(canvas, (int) (mLoadAnimatorValue * atlasFrames) % atlasFrames,
+                mStartX, mStartY, 1 - mScale)) {
+            return;
+        }
         //基本和绘制一般状态的时候一样，除了截取的起点和终点需要动态的计算
         canvas.save();
-        canvas.translate(circleStart.centerPoint.x, circleStart.centerPoint.y);
+        canvas.translate(mStartX, mStartY);
         canvas.scale(1 - mScale,1 - mScale);
-        pathMeasure.setPath(mLoadPath,false);
-        Path newPath = new Path();
-        float stop = pathMeasure.getLength() * mLoadAnimatorValue;
-        float start = (float)(stop - (0.5 - Math.abs(mLoadAnimatorValue - 0.5)) * 200f);
-        pathMeasure.getSegment(start,stop,newPath,true);
-        canvas.drawPath(newPath, mLoadPaint);
+        float stop = mLoadTable.getLength() * mLoadAnimatorValue;
+        Scratch scratch = mScratch;
+        SegmentCache.setPolyline(scratch.loadingSink, scratch.loadSegment,
+                mLoadTable.getSegment(getLoadingStart(stop, mLoadAnimatorValue),stop,scratch.loadSegment), mLoadStride);
+        canvas.drawPath(scratch.loadingPath, mLoadPaint);
         canvas.restore();
+        mFrameStats.countPathRebuild();
     }
 
-    private void calculateCircleSize(){
-        float mMoveDistance = getDistanceBetweenTwoPoints(downPoint.x,downPoint.y,movePoint.x,movePoint.y);
-        //两圆重合无需再计算
-        if(mMoveDistance <= 0) return;
-        mScale = mMoveDistance/MaxMoveDistance;
-        //开始圆按比例缩小
-        circleStart.radius = DEFAULT_RADIUS * (1- mScale);
-        //拉出圆按比例放大
-        circleEnd.radius = DEFAULT_RADIUS * mScale;
-
-        //开始圆的位置不变，拉出圆的位置根据滑动的距离移动
-        circleEnd.centerPoint.x = circleStart.centerPoint.x + movePoint.x - downPoint.x;
-        circleEnd.centerPoint.y = circleStart.centerPoint.y + movePoint.y - downPoint.y;
-    }
-
-    private boolean calculateBezierCurve(Circle circleStart, Circle circleEnd){
-        float startRadius = circleStart.radius;
-        float endRadius = circleEnd.radius;
-        float startX = circleStart.centerPoint.x;
-        float startY = circleStart.centerPoint.y;
-        float endX= circleEnd.centerPoint.x;
-        float endY = circleEnd.centerPoint.y;
-
-        float mCircleDistance = getDistanceBetweenTwoPoints(startX,startY,endX,endY);
-        //两个圆重合就无需要绘制连接曲线
-        if(mCircleDistance == 0){
-            return false;
-        }
-
-        float cos = (startX - endX)/mCircleDistance;
-        float sin = (startY - endY)/mCircleDistance;
-
-        float ax = startX - startRadius * sin;
-        float ay = startY + startRadius * cos;
-        pStartA.x = ax;
-        pStartA.y = ay;
-
-        float bx = startX + startRadius * sin;
-        float by = startY - startRadius * cos;
-        pStartB.x = bx;
-        pStartB.y = by;
-
-        float cx = endX - endRadius * sin;
-        float cy = endY + endRadius * cos;
-        pEndA.x = cx;
-        pEndA.y = cy;
+    //圆弧的起点跟着终点转，中间的时候最长
+    private static float getLoadingStart(float stop, float value){
+        return stop - (0.5f - Math.abs(value - 0.5f)) * 200f;
+    }
 
-        float dx = endX + endRadius * sin;
-        float dy = endY - endRadius * cos;
-        pEndB.x = dx;
-        pEndB.y = dy;
+    /**
+     * 按下的点或滑动的点变化后，重新计算两圆的位置、半径和连接曲线
+     */
+    private void updateGeometry(){
+        //根据按下的和滑动的点两个点的距离计算，开始圆和拉出圆的中心坐标以及半径
+        calculateCircleSize();
+        mHasBridge = calculateBezierCurve();
+    }
 
-        float ox = cx + mCircleDistance /2 * cos;
-        float oy = cy + mCircleDistance /2 * sin;
-        pControlO.x = ox;
-        pControlO.y = oy;
+    /**
+     * 重新计算几何形状，只刷新上一帧和这一帧的范围
+     */
+    private void invalidateGeometry(){
+        updateGeometry();
+        if(mDirtyBounds == null){
+            //列表模式下不记录每一行上一帧的范围；同时只有拖动的一行会变，直接刷新整行
+            invalidate();
+            return;
+        }
+        mDirtyBounds.reset();
+        mDirtyBounds.unionCircle(mStartX, mStartY, mStartRadius);
+        mDirtyBounds.unionCircle(mEndX, mEndY, mEndRadius);
+        //二次贝塞尔曲线在控制点围成的凸包内，包含所有端点和控制点就够了
+        if(mHasBridge){
+            mDirtyBounds.unionPoints(mScratch.bridge, 0, StickyGeometry.BRIDGE_SIZE / 2);
+        }
+        mDirtyBounds.unionCircle(mStartX, mStartY,
+                LOADING_BOUNDS_RADIUS * (1 - mScale));
+        int[] dirty = mScratch.dirty;
+        if(mDirtyBounds.commit(DIRTY_OUTSET, dirty)){
+            invalidate(dirty[0], dirty[1], dirty[2], dirty[3]);
+        }
+    }
 
-        float px = dx + mCircleDistance /2 * cos;
-        float py = dy + mCircleDistance /2 * sin;
-        pControlP.x = px;
-        pControlP.y = py;
+    /**
+     * 转圈时只有中心的圆弧在变，刷新圆弧的范围
+     */
+    private void invalidateLoading(){
+        float radius = LOADING_BOUNDS_RADIUS * (1 - mScale) + DIRTY_OUTSET;
+        float x = mStartX;
+        float y = mStartY;
+        invalidate((int) (x - radius), (int) (y - radius), (int) Math.ceil(x + radius), (int) Math.ceil(y + radius));
+    }
 
-        return true;
+    private void calculateCircleSize(){
+        if(!StickyGeometry.calculateCircleSize(mDownX, mDownY, mMoveX, mMoveY,
+                MaxMoveDistance, DEFAULT_RADIUS, mStartX, mStartY, mScratch.circleSize)){
+            return;
+        }
+        float[] circleSize = mScratch.circleSize;
+        mScale = circleSize[StickyGeometry.SCALE];
+        mStartRadius = circleSize[StickyGeometry.START_RADIUS];
+        mEndRadius = circleSize[StickyGeometry.END_RADIUS];
+        mEndX = circleSize[StickyGeometry.END_X];
+        mEndY = circleSize[StickyGeometry.END_Y];
     }
 
-    private static float getDistanceBetweenTwoPoints(float p1x, float ply, float p2x, float p2y){
-        return (float) Math.sqrt(Math.pow(p1x - p2x, 2) + Math.pow(ply - p2y, 2));
+    private boolean calculateBezierCurve(){
+        return StickyGeometry.calculateBezierCurve(mStartX, mStartY, mStartRadius,
+                mEndX, mEndY, mEndRadius, mScratch.bridge);
     }
 
     @Override
@@ -339,70 +795,206 @@ public class StickyCircleView extends View{
         //动画执行时，无需改变两点的坐标
         switch (event.getAction()){
             case MotionEvent.ACTION_DOWN:
-                if(!stickyAnimator.isRunning() && !loadAnimator.isRunning()){
-                    downPoint.x = x;
-                    downPoint.y = y;
-                    movePoint.set(downPoint);
-                    resetLoadAnimator();
-                }
+                //列表里的行共用一个TouchPredictor，同时只预测最后按下的一行
+                mScratch.touchOwner = this;
+                mScratch.touchPredictor.reset();
+                mScratch.touchPredictor.addSample(event.getEventTime(), x, y);
+                beginDrag(x, y);
                 break;
             case MotionEvent.ACTION_MOVE:
-                if(!stickyAnimator.isRunning() && !loadAnimator.isRunning() && !loading){
-                    movePoint.x = x;
-                    movePoint.y = y;
-                    float distanceMove = getDistanceBetweenTwoPoints(downPoint.x,downPoint.y,movePoint.x,movePoint.y);
-                    //滑动距离在动作范围内，则开始执行回滚动画和loading动画
-                    if(inLoadArea(distanceMove)){
-                        loading = true;
-                        executeAnimator(distanceMove);
+                if(mTouchPrediction && mScratch.touchOwner == this){
+                    TouchPredictor predictor = mScratch.touchPredictor;
+                    float[] predicted = mScratch.predicted;
+                    //两次事件之间合并的历史点也加进去，预测的时间按显示的时刻算
+                    for (int i = 0; i < event.getHistorySize(); i++) {
+                        predictor.addSample(event.getHistoricalEventTime(i),
+                                event.getHistoricalX(i), event.getHistoricalY(i));
+                    }
+                    predictor.addSample(event.getEventTime(), x, y);
+                    if(predictor.predict(SystemClock.uptimeMillis() + PREDICTION_LEAD_MILLIS, predicted)){
+                        x = predicted[0];
+                        y = predicted[1];
                     }
-                    invalidate();
+                }
+                //预测的位置只用来画拉出圆，是否触发loading按手指真实的位置判断
+                //滑动距离在动作范围内，则开始执行回滚动画和loading动画
+                if(moveDrag(x, y) && inLoadAreaSquare(VectorMath.dist2(mDownX, mDownY,
+                        event.getX(), event.getY()))){
+                    loading = true;
+                    executeAnimator(getDragDistance());
                 }
                 break;
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
-                if(!stickyAnimator.isRunning() && !loadAnimator.isRunning() && !loading){
-                    movePoint.x = x;
-                    movePoint.y = y;
-                    float distanceUp = getDistanceBetweenTwoPoints(downPoint.x,downPoint.y,movePoint.x,movePoint.y);
-                    //滑动距离在动作范围内，则开始执行回滚动画和loading动画，否则只开始回滚动画
-                    if(inLoadArea(distanceUp)){
-                       loading = true;
-                    }
-                    executeAnimator(distanceUp);
-                }
+                //松手时用手指真实的位置判断是否触发loading
+                moveDrag(x, y);
+                releaseDrag();
                 break;
         }
         return true;
     }
 
+    /**
+     * 拖动时是否预测手指的位置，默认打开
+     */
+    public void setTouchPredictionEnabled(boolean enabled){
+        mTouchPrediction = enabled;
+    }
+
+    /**
+     * 供外部容器驱动拖动(例如StickyRefreshLayout)：从开始圆的中心开始拖，动画执行时返回false
+     */
+    public boolean beginDrag(){
+        return beginDrag(mStartX, mStartY);
+    }
+
+    /**
+     * 拉出圆相对开始圆的中心移动(dx,dy)，只在beginDrag之后、松手之前有效
+     */
+    public void dragTo(float dx, float dy){
+        moveDrag(mDownX + dx, mDownY + dy);
+    }
+
+    /**
+     * 松手：开始回滚动画，距离在触发范围内时回滚后开始loading
+     *
+     * @return 是否会开始loading
+     */
+    public boolean releaseDrag(){
+        if(isAnimating() || loading || isUnboundRow()) return false;
+        float distanceUp = getDragDistance();
+        //滑动距离在动作范围内，则开始执行回滚动画和loading动画，否则只开始回滚动画
+        if(inLoadArea(distanceUp)){
+            loading = true;
+        }
+        executeAnimator(distanceUp);
+        return loading;
+    }
+
+    public boolean isAnimating(){
+        return isStickyRunning() || isSpinnerRunning();
+    }
+
+    /**
+     * 松手后能触发loading的最小拖动距离
+     */
+    public float getTriggerDistance(){
+        return MaxMoveDistance * 0.33f;
+    }
+
+    /**
+     * 拖动距离超过这个值松手也不会触发loading
+     */
+    public float getMaxTriggerDistance(){
+        return MaxMoveDistance * 0.75f;
+    }
+
+    private boolean beginDrag(float x, float y){
+        if(isAnimating() || isUnboundRow()) return false;
+        mDownX = x;
+        mDownY = y;
+        mMoveX = x;
+        mMoveY = y;
+        resetLoadAnimator();
+        invalidateGeometry();
+        return true;
+    }
+
+    private boolean moveDrag(float x, float y){
+        if(isAnimating() || loading || isUnboundRow()) return false;
+        mMoveX = x;
+        mMoveY = y;
+        invalidateGeometry();
+        return true;
+    }
+
+    private float getDragDistance(){
+        return VectorMath.dist(mDownX,mDownY,mMoveX,mMoveY);
+    }
+
     private void resetLoadAnimator(){
         loading = false;
     }
 
     private boolean inLoadArea(float distance){
-        return distance <= MaxMoveDistance*0.75 && distance >= MaxMoveDistance * 0.33;
+        return distance <= getMaxTriggerDistance() && distance >= getTriggerDistance();
+    }
+
+    //每个move事件都要判断，用距离的平方比较，不用开方
+    private boolean inLoadAreaSquare(float distanceSquare){
+        float max = getMaxTriggerDistance();
+        float min = getTriggerDistance();
+        return distanceSquare <= max * max && distanceSquare >= min * min;
     }
 
     private void executeAnimator(float distance){
         //两个圆重合时无需回滚
         if(distance == 0) return;
-        stickyAnimator.setObjectValues(distance,0);
-        stickyAnimator.setEvaluator(evaluator);
+        mStickyDistance = distance;
+        float[] direction = mScratch.direction;
+        VectorMath.direction(mDownX,mDownY,mMoveX,mMoveY,direction,0);
+        mStickyDirX = direction[0];
+        mStickyDirY = direction[1];
+        if(mRowPool != null){
+            mStickyStart = mRowPool.now();
+            updatePoolRow();
+            return;
+        }
         stickyAnimator.setDuration(STICKY_DURATION);
         stickyAnimator.start();
     }
 
-    static class Circle{
-        PointF centerPoint;
-        float radius;
-        Circle(float centerX,float centerY,float radius){
-            centerPoint = new PointF(centerX,centerY);
-            this.radius = radius;
+    /**
+     * 列表模式下每一行的loading状态，只有两个基本类型的字段；时间以RowPool的时钟为准
+     */
+    public static final class RowState {
+        boolean spinning = false;
+        long spinStart;
+
+        void start(long now) {
+            spinning = true;
+            spinStart = now;
+        }
+    }
+
+    /**
+     * 绘制、计算几何和预测手指位置时临时用的对象，列表模式下所有行共用RowPool里的一份
+     * 内容只在一次onDraw、一次updateGeometry或者同一行的一串触摸事件里有效
+     */
+    static final class Scratch {
+        final Path bezierPath = new Path();
+        final AndroidPathSink bezierSink = new AndroidPathSink(bezierPath);
+        //loading时的圆弧每帧复用同一个path
+        final Path loadingPath = new Path();
+        final AndroidPathSink loadingSink = new AndroidPathSink(loadingPath);
+        final float[] loadSegment;
+        //两圆间贝塞尔曲线的端点和控制点、两圆的位置和半径，下标见StickyGeometry
+        final float[] bridge = new float[StickyGeometry.BRIDGE_SIZE];
+        final float[] circleSize = new float[StickyGeometry.CIRCLE_SIZE];
+        final float[] direction = new float[2];
+        final int[] dirty = new int[4];
+        //预测的位置离手指最多一个圆的半径；touchOwner是最后按下的那一行
+        final TouchPredictor touchPredictor = new TouchPredictor(DEFAULT_RADIUS);
+        final float[] predicted = new float[2];
+        Object touchOwner;
+
+        Scratch() {
+            PathLengthTable loadTable = getLoadTable();
+            loadSegment = new float[loadTable.getMaxSegmentSize()];
+            loadingPath.incReserve(loadTable.getPointCount() + 1);
         }
     }
 
     public interface OnReloadListener{
         void onReload();
     }
+
+    public interface OnReloadFinishListener{
+        /**
+         * 后台刷新工作结束或被取消，在主线程回调，此时loading已经停止
+         *
+         * @param error 刷新工作抛出的异常，正常结束或被取消时为null
+         */
+        void onReloadFinished(boolean cancelled, Throwable error);
+    }
 }
@@ -0,0 +1,122 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * StickyCircleView每一帧要做的几何计算，只用float数组输入输出，不依赖android.graphics，
+ * 方便在JVM上做基准测试
+ */
+
+final class StickyGeometry {
+    //calculateBezierCurve输出的六个点在数组中的下标，每个点占x,y两个位置
+    static final int START_A = 0;
+    static final int START_B = 2;
+    static final int END_A = 4;
+    static final int END_B = 6;
+    static final int CONTROL_O = 8;
+    static final int CONTROL_P = 10;
+    static final int BRIDGE_SIZE = 12;
+
+    //calculateCircleSize输出的值在数组中的下标
+    static final int SCALE = 0;
+    static final int START_RADIUS = 1;
+    static final int END_RADIUS = 2;
+    static final int END_X = 3;
+    static final int END_Y = 4;
+    static final int CIRCLE_SIZE = 5;
+
+    private StickyGeometry() {
+    }
+
+    /**
+     * 根据按下的点和滑动的点的距离，计算缩放比例、两个圆的半径和拉出圆的中心
+     *
+     * @return 两点重合时返回false，out不会被修改
+     */
+    static boolean calculateCircleSize(float downX, float downY, float moveX, float moveY,
+                                       float maxMoveDistance, float defaultRadius,
+                                       float startX, float startY, float[] out) {
+        float moveDistance = getDistanceBetweenTwoPoints(downX, downY, moveX, moveY);
+        //两圆重合无需再计算
+        if (moveDistance <= 0) return false;
+        float scale = moveDistance / maxMoveDistance;
+        out[SCALE] = scale;
+        //开始圆按比例缩小
+        out[START_RADIUS] = defaultRadius * (1 - scale);
+        //拉出圆按比例放大
+        out[END_RADIUS] = defaultRadius * scale;
+        //开始圆的位置不变，拉出圆的位置根据滑动的距离移动
+        out[END_X] = startX + moveX - downX;
+        out[END_Y] = startY + moveY - downY;
+        return true;
+    }
+
+    /**
+     * 计算连接两个圆的贝塞尔曲线的四个端点和两个控制点，按下标常量写入out
+     *
+     * @return 两个圆重合时返回false，无需绘制连接曲线
+     */
+    static boolean calculateBezierCurve(float startX, float startY, float startRadius,
+                                        float endX, float endY, float endRadius, float[] out) {
+        return calculateBezierCurve(startX, startY, startRadius, endX, endY, endRadius, out, 0);
+    }
+
+    /**
+     * 同上，结果从out的offset位置开始写，多条连接曲线可以连续存放在一个数组里
+     */
+    static boolean calculateBezierCurve(float startX, float startY, float startRadius,
+                                        float endX, float endY, float endRadius, float[] out, int offset) {
+        float distanceSquare = VectorMath.dist2(startX, startY, endX, endY);
+        //两个圆重合就无需要绘制连接曲线
+        if (distanceSquare == 0) {
+            return false;
+        }
+
+        //从拉出圆指向开始圆的单位向量，一次平方根倒数同时得到距离和方向
+        float inverse = VectorMath.invSqrt(distanceSquare);
+        float circleDistance = distanceSquare * inverse;
+        float cos = (startX - endX) * inverse;
+        float sin = (startY - endY) * inverse;
+
+        float ax = startX - startRadius * sin;
+        float ay = startY + startRadius * cos;
+        out[offset + START_A] = ax;
+        out[offset + START_A + 1] = ay;
+
+        float bx = startX + startRadius * sin;
+        float by = startY - startRadius * cos;
+        out[offset + START_B] = bx;
+        out[offset + START_B + 1] = by;
+
+        float cx = endX - endRadius * sin;
+        float cy = endY + endRadius * cos;
+        out[offset + END_A] = cx;
+        out[offset + END_A + 1] = cy;
+
+        float dx = endX + endRadius * sin;
+        float dy = endY - endRadius * cos;
+        out[offset + END_B] = dx;
+        out[offset + END_B + 1] = dy;
+
+        out[offset + CONTROL_O] = cx + circleDistance / 2 * cos;
+        out[offset + CONTROL_O + 1] = cy + circleDistance / 2 * sin;
+
+        out[offset + CONTROL_P] = dx + circleDistance / 2 * cos;
+        out[offset + CONTROL_P + 1] = dy + circleDistance / 2 * sin;
+
+        return true;
+    }
+
+    /**
+     * 把从offset开始的一条连接曲线输出成封闭的轮廓，不会先reset
+     */
+    static void buildBridgePath(float[] p, int offset, PathSink sink) {
+        sink.moveTo(p[offset + START_A], p[offset + START_A + 1]);
+        sink.quadTo(p[offset + CONTROL_O], p[offset + CONTROL_O + 1], p[offset + END_A], p[offset + END_A + 1]);
+        sink.lineTo(p[offset + END_B], p[offset + END_B + 1]);
+        sink.quadTo(p[offset + CONTROL_P], p[offset + CONTROL_P + 1], p[offset + START_B], p[offset + START_B + 1]);
+        sink.close();
+    }
+
+    static float getDistanceBetweenTwoPoints(float p1x, float ply, float p2x, float p2y) {
+        return VectorMath.dist(p1x, ply, p2x, p2y);
+    }
+}
@@ -1,29 +1,390 @@
 package com.clam314.pathmeasuretry;
 
+import android.animation.ValueAnimator;
 import android.content.Context;
+import android.os.Build;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.animation.DecelerateInterpolator;
+import android.widget.AbsListView;
+
+import java.util.concurrent.Executor;
 
 /**
  * Created by clam314 on 2017/3/3
+ * 下拉刷新容器：StickyCircleView放在底层，可滚动的内容盖在上面，内容到顶后继续下拉就把它往下移，露出粘性圆
+ * 下拉时只用offsetTopAndBottom移动内容，不会触发requestLayout，每个move事件都不需要重新measure和layout
+ * 支持嵌套滚动的子View(RecyclerView、NestedScrollView)走NestedScrollingParent，其它子View(ListView)靠拦截触控事件
  */
 
-public class StickyRefreshLayout extends ViewGroup{
+public class StickyRefreshLayout extends ViewGroup implements NestedScrollingParent{
+    //手指移动的距离和内容移动的距离的比例，越小越难拉
+    private static final float DRAG_RATE = 0.5f;
+    private static final long RETURN_DURATION = 300;
+
+    private StickyCircleView mStickyView;
+    private View mTarget;
+
+    //内容当前相对顶部的偏移，layout时也按这个值摆放，避免其它原因引起的layout把内容弹回去
+    private int mCurrentOffset = 0;
+    //手指拉动的累计距离，已经乘过DRAG_RATE
+    private float mPullDistance = 0;
+    //刷新时内容停留的位置，刚好露出loading圆
+    private int mRefreshingOffset;
+
+    private boolean mRefreshing = false;
+    private OnRefreshListener mRefreshListener;
+    private Runnable mRefreshTask;
+    private Executor mRefreshExecutor;
+
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper;
+    private boolean mNestedScrollInProgress = false;
+
+    //不支持嵌套滚动的子View通过拦截触控事件下拉
+    private final int mTouchSlop;
+    private boolean mIsBeingDragged = false;
+    private float mInitialDownY;
+    private float mLastMotionY;
+    private int mActivePointerId = -1;
+
+    private ValueAnimator mOffsetAnimator;
+    private int mAnimateFrom;
+    private int mAnimateTo;
 
     public StickyRefreshLayout(Context context) {
-        super(context);
+        this(context, null);
     }
 
     public StickyRefreshLayout(Context context, AttributeSet attrs) {
-        super(context, attrs);
+        this(context, attrs, 0);
     }
 
     public StickyRefreshLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        mRefreshingOffset = (int) (200 * getResources().getDisplayMetrics().density);
+        initAnimator();
+    }
+
+    private void initAnimator(){
+        mOffsetAnimator = ValueAnimator.ofFloat(0, 1).setDuration(RETURN_DURATION);
+        mOffsetAnimator.setInterpolator(new DecelerateInterpolator());
+        mOffsetAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                //用getAnimatedFraction()避免装箱
+                float fraction = animation.getAnimatedFraction();
+                setContentOffset((int) (mAnimateFrom + (mAnimateTo - mAnimateFrom) * fraction));
+            }
+        });
+    }
+
+    public void setOnRefreshListener(OnRefreshListener listener){
+        this.mRefreshListener = listener;
+    }
+
+    /**
+     * 设置在后台执行的刷新工作，执行完后自动停止loading并收起，不需要再调用setRefreshing(false)
+     */
+    public void setRefreshTask(Runnable task){
+        this.mRefreshTask = task;
+        if (mStickyView != null) mStickyView.setReloadTask(task);
+    }
+
+    public void setRefreshExecutor(Executor executor){
+        this.mRefreshExecutor = executor;
+        if (mStickyView != null) mStickyView.setReloadExecutor(executor);
+    }
+
+    public boolean isRefreshing(){
+        return mRefreshing;
+    }
+
+    /**
+     * 不经过下拉开始刷新，或者刷新结束后停止
+     * true时把内容移到刷新的位置并开始loading，和下拉触发的一样回调onRefresh、执行setRefreshTask设置的工作；
+     * 正在下拉时这次下拉直接结束，拉出的圆收回开始圆
+     * false时停止loading并把内容收回顶部
+     */
+    public void setRefreshing(boolean refreshing){
+        if (refreshing == mRefreshing) return;
+        ensureChildren();
+        mRefreshing = refreshing;
+        if (refreshing) {
+            cancelPull();
+            animateOffsetTo(mRefreshingOffset);
+            mStickyView.reload();
+        } else {
+            mStickyView.stopReload();
+            animateOffsetTo(0);
+        }
+    }
+
+    @Override
+    protected void onFinishInflate() {
+        super.onFinishInflate();
+        ensureChildren();
+    }
+
+    private void ensureChildren(){
+        if (mStickyView != null && mTarget != null) return;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child instanceof StickyCircleView) {
+                mStickyView = (StickyCircleView) child;
+            } else if (mTarget == null) {
+                mTarget = child;
+            }
+        }
+        if (mStickyView == null) {
+            //布局里没有写粘性圆就自己加一个，放在最底层
+            mStickyView = new StickyCircleView(getContext());
+            addView(mStickyView, 0);
+        }
+        //粘性圆自己的触控被内容挡住了，由这里转发下拉
+        mStickyView.setOnReloadListener(new StickyCircleView.OnReloadListener() {
+            @Override
+            public void onReload() {
+                if (mRefreshListener != null) mRefreshListener.onRefresh();
+            }
+        });
+        mStickyView.setReloadTask(mRefreshTask);
+        mStickyView.setReloadExecutor(mRefreshExecutor);
+        //后台刷新结束后自动收起
+        mStickyView.setOnReloadFinishListener(new StickyCircleView.OnReloadFinishListener() {
+            @Override
+            public void onReloadFinished(boolean cancelled, Throwable error) {
+                if (!mRefreshing) return;
+                mRefreshing = false;
+                animateOffsetTo(0);
+            }
+        });
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        ensureChildren();
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = MeasureSpec.getSize(heightMeasureSpec);
+        setMeasuredDimension(width, height);
+
+        int childWidth = MeasureSpec.makeMeasureSpec(width - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY);
+        int childHeight = MeasureSpec.makeMeasureSpec(height - getPaddingTop() - getPaddingBottom(), MeasureSpec.EXACTLY);
+        //粘性圆和内容一样大，拉出圆可以一直跟到手指下面
+        mStickyView.measure(childWidth, childHeight);
+        if (mTarget != null) mTarget.measure(childWidth, childHeight);
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        mStickyView.layout(left, top, left + mStickyView.getMeasuredWidth(), top + mStickyView.getMeasuredHeight());
+        if (mTarget != null) {
+            mTarget.layout(left, top + mCurrentOffset,
+                    left + mTarget.getMeasuredWidth(), top + mCurrentOffset + mTarget.getMeasuredHeight());
+        }
+    }
+
+    /**
+     * 只移动内容的位置，不requestLayout
+     */
+    private void setContentOffset(int offset){
+        if (mTarget == null || offset == mCurrentOffset) return;
+        mTarget.offsetTopAndBottom(offset - mCurrentOffset);
+        mCurrentOffset = offset;
+    }
+
+    private void animateOffsetTo(int offset){
+        mOffsetAnimator.cancel();
+        if (offset == mCurrentOffset) return;
+        mAnimateFrom = mCurrentOffset;
+        mAnimateTo = offset;
+        mOffsetAnimator.start();
+    }
+
+    private boolean canChildScrollUp(){
+        return mTarget != null && mTarget.canScrollVertically(-1);
+    }
+
+    private boolean canStartPull(){
+        return isEnabled() && !mRefreshing && !mStickyView.isAnimating() && !mOffsetAnimator.isRunning();
+    }
+
+    private void startPull(){
+        mPullDistance = 0;
+        mStickyView.beginDrag();
+    }
+
+    private void movePull(float distance){
+        //代码里开始刷新后剩下的下拉都忽略
+        if (mRefreshing) return;
+        //超过最大触发距离就拉不动了
+        mPullDistance = Math.max(0, Math.min(distance, mStickyView.getMaxTriggerDistance()));
+        mStickyView.dragTo(0, mPullDistance);
+        setContentOffset((int) mPullDistance);
+    }
+
+    private void finishPull(){
+        if (mStickyView.releaseDrag()) {
+            //松手时粘性圆回滚，回滚结束后开始loading并回调onRefresh
+            mRefreshing = true;
+            animateOffsetTo(mRefreshingOffset);
+        } else {
+            animateOffsetTo(0);
+        }
+        mPullDistance = 0;
+    }
+
+    //放弃正在进行的下拉，不触发刷新
+    private void cancelPull(){
+        if (mPullDistance > 0) mStickyView.dragTo(0, 0);
+        mPullDistance = 0;
+        mIsBeingDragged = false;
+        mActivePointerId = -1;
+    }
+
+    //---------------- NestedScrollingParent ----------------
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return canStartPull() && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        mNestedScrollInProgress = true;
+        startPull();
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        //已经拉下来时往上滑，先把内容推回去，再交给子View滚动
+        if (dy > 0 && mPullDistance > 0) {
+            float pulled = mPullDistance;
+            movePull(pulled - dy);
+            consumed[1] = (int) (pulled - mPullDistance);
+        }
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        //子View已经滚到顶，剩下的下拉距离用来拉出粘性圆
+        if (dyUnconsumed < 0 && !canChildScrollUp()) {
+            movePull(mPullDistance - dyUnconsumed * DRAG_RATE);
+        }
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        mNestedScrollInProgress = false;
+        if (mPullDistance > 0) {
+            finishPull();
+        }
+    }
+
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        //拉下来的时候不让子View惯性滚动
+        return mPullDistance > 0;
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        return false;
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    //---------------- 不支持嵌套滚动的子View ----------------
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        //ListView等不支持嵌套滚动的子View滚动时会禁止拦截，这里忽略，否则到顶后无法下拉
+        if ((Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP && mTarget instanceof AbsListView)
+                || (mTarget != null && !ViewCompat.isNestedScrollingEnabled(mTarget))) {
+            return;
+        }
+        super.requestDisallowInterceptTouchEvent(disallowIntercept);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        if (!canStartPull() || canChildScrollUp() || mNestedScrollInProgress) {
+            return false;
+        }
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mActivePointerId = ev.getPointerId(0);
+                mIsBeingDragged = false;
+                mInitialDownY = ev.getY();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                int index = ev.findPointerIndex(mActivePointerId);
+                if (index < 0) return false;
+                float y = ev.getY(index);
+                if (!mIsBeingDragged && y - mInitialDownY > mTouchSlop) {
+                    mIsBeingDragged = true;
+                    mLastMotionY = y;
+                    startPull();
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mIsBeingDragged = false;
+                mActivePointerId = -1;
+                break;
+        }
+        return mIsBeingDragged;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent ev) {
+        if (!mIsBeingDragged) {
+            return super.onTouchEvent(ev);
+        }
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE: {
+                int index = ev.findPointerIndex(mActivePointerId);
+                if (index < 0) return false;
+                float y = ev.getY(index);
+                movePull(mPullDistance + (y - mLastMotionY) * DRAG_RATE);
+                mLastMotionY = y;
+                break;
+            }
+            case MotionEvent.ACTION_POINTER_UP: {
+                //抬起的是正在拖的手指，换另一根继续
+                int index = ev.getActionIndex();
+                if (ev.getPointerId(index) == mActivePointerId) {
+                    int newIndex = index == 0 ? 1 : 0;
+                    mActivePointerId = ev.getPointerId(newIndex);
+                    mLastMotionY = ev.getY(newIndex);
+                }
+                break;
+            }
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mIsBeingDragged = false;
+                mActivePointerId = -1;
+                finishPull();
+                break;
+        }
+        return true;
+    }
 
+    public interface OnRefreshListener{
+        void onRefresh();
     }
 }
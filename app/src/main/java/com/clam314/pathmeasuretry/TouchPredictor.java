@@ -0,0 +1,229 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 根据最近的触摸点预测手指在显示时刻的位置，抵消一帧左右的输入延迟
+ * 最近的点存放在固定大小的环形缓冲里，对时间窗口内的点做二次最小二乘拟合，得到速度和加速度
+ * 拟合的残差越大、点越少，预测的位移就越小；位移的方向、长度和预测的时间都有限制，避免手指急停时甩出去
+ */
+
+final class TouchPredictor {
+    //环形缓冲的大小，MotionEvent的历史点加上当前点一般不超过这个数
+    static final int CAPACITY = 16;
+    //只用最近这段时间内的点拟合，太早的点和当前的运动关系不大
+    private static final long WINDOW_MILLIS = 60;
+    //最多往前预测的时间
+    static final long MAX_HORIZON_MILLIS = 32;
+    //残差的均方根达到这个值(px)时，预测的位移减半
+    private static final float RESIDUAL_SCALE = 1.5f;
+    //这么多个点以上才完全相信拟合的结果
+    private static final int FULL_CONFIDENCE_SAMPLES = 5;
+    //预测的平均速度最多是最近一段实际速度的这么多倍，加速时外推的位移可以比匀速时多一些
+    private static final float MAX_SPEEDUP = 1.5f;
+
+    private final float maxOffset;
+
+    private final long[] times = new long[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    //最新的点的下标
+    private int head = -1;
+    private int count;
+
+    //最近一次predict的结果，供调试和测试查看
+    private float velocityX, velocityY;
+    private float accelerationX, accelerationY;
+    private float confidence;
+
+    /**
+     * @param maxOffset 预测位置和最新的触摸点之间的最大距离
+     */
+    TouchPredictor(float maxOffset) {
+        this.maxOffset = maxOffset;
+    }
+
+    void reset() {
+        head = -1;
+        count = 0;
+        velocityX = velocityY = accelerationX = accelerationY = confidence = 0;
+    }
+
+    /**
+     * 按时间顺序加入触摸点，时间和MotionEvent.getEventTime()一致，单位毫秒
+     * 时间相同的点覆盖上一个点，时间倒退时当作新的手势重新开始
+     */
+    void addSample(long time, float x, float y) {
+        if (count > 0) {
+            long last = times[head];
+            if (time < last) {
+                reset();
+            } else if (time == last) {
+                xs[head] = x;
+                ys[head] = y;
+                return;
+            }
+        }
+        head = (head + 1) % CAPACITY;
+        times[head] = time;
+        xs[head] = x;
+        ys[head] = y;
+        if (count < CAPACITY) count++;
+    }
+
+    int getSampleCount() {
+        return count;
+    }
+
+    /**
+     * 预测targetTime时的位置写到out[0]、out[1]；没有点时返回false，out不变
+     * 只有一个点或者拟合不可靠时返回最新的点本身
+     */
+    boolean predict(long targetTime, float[] out) {
+        if (count == 0) return false;
+        float lastX = xs[head];
+        float lastY = ys[head];
+        out[0] = lastX;
+        out[1] = lastY;
+        velocityX = velocityY = accelerationX = accelerationY = confidence = 0;
+        long newest = times[head];
+        long horizonMillis = Math.min(targetTime - newest, MAX_HORIZON_MILLIS);
+        if (horizonMillis <= 0 || count < 2) return true;
+        //时间以窗口长度为单位，t在[-1,0]，float的正规方程不会因为t的4次幂失去精度
+        float horizon = (float) horizonMillis / WINDOW_MILLIS;
+
+        //以最新的点为时间原点，t<=0；累加t的0~4次幂以及x、y和t、t²的乘积
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        float sx = 0, sxt = 0, sxt2 = 0;
+        float sy = 0, syt = 0, syt2 = 0;
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (head - i + CAPACITY) % CAPACITY;
+            long age = newest - times[index];
+            if (age > WINDOW_MILLIS) break;
+            float t = -(float) age / WINDOW_MILLIS;
+            float t2 = t * t;
+            float x = xs[index] - lastX;
+            float y = ys[index] - lastY;
+            s0 += 1;
+            s1 += t;
+            s2 += t2;
+            s3 += t2 * t;
+            s4 += t2 * t2;
+            sx += x;
+            sxt += x * t;
+            sxt2 += x * t2;
+            sy += y;
+            syt += y * t;
+            syt2 += y * t2;
+            used++;
+        }
+        if (used < 2) return true;
+
+        float a = 0, b, c = 0;
+        float d = 0, e, f = 0;
+        if (used >= 3) {
+            //x = a + b·t + c·t²的正规方程，用克拉默法则求解
+            float det = s0 * (s2 * s4 - s3 * s3) - s1 * (s1 * s4 - s3 * s2) + s2 * (s1 * s3 - s2 * s2);
+            if (Math.abs(det) > 1e-6f * s0 * s2 * s4) {
+                a = (sx * (s2 * s4 - s3 * s3) - s1 * (sxt * s4 - s3 * sxt2) + s2 * (sxt * s3 - s2 * sxt2)) / det;
+                b = (s0 * (sxt * s4 - s3 * sxt2) - sx * (s1 * s4 - s3 * s2) + s2 * (s1 * sxt2 - sxt * s2)) / det;
+                c = (s0 * (s2 * sxt2 - sxt * s3) - s1 * (s1 * sxt2 - sxt * s2) + sx * (s1 * s3 - s2 * s2)) / det;
+                d = (sy * (s2 * s4 - s3 * s3) - s1 * (syt * s4 - s3 * syt2) + s2 * (syt * s3 - s2 * syt2)) / det;
+                e = (s0 * (syt * s4 - s3 * syt2) - sy * (s1 * s4 - s3 * s2) + s2 * (s1 * syt2 - syt * s2)) / det;
+                f = (s0 * (s2 * syt2 - syt * s3) - s1 * (s1 * syt2 - syt * s2) + sy * (s1 * s3 - s2 * s2)) / det;
+            } else {
+                //时间太集中，退化成直线
+                b = linearSlope(s0, s1, s2, sx, sxt);
+                e = linearSlope(s0, s1, s2, sy, syt);
+                a = (sx - b * s1) / s0;
+                d = (sy - e * s1) / s0;
+            }
+        } else {
+            b = linearSlope(s0, s1, s2, sx, sxt);
+            e = linearSlope(s0, s1, s2, sy, syt);
+        }
+
+        //预测时间内速度反向说明手指在减速停下，这时只按速度外推
+        if (b * (b + 2 * c * horizon) < 0) c = 0;
+        if (e * (e + 2 * f * horizon) < 0) f = 0;
+
+        float confidence = Math.min(1f, (float) (used - 1) / (FULL_CONFIDENCE_SAMPLES - 1));
+        if (used >= 3) {
+            float residual = 0;
+            for (int i = 0; i < used; i++) {
+                int index = (head - i + CAPACITY) % CAPACITY;
+                float t = -(float) (newest - times[index]) / WINDOW_MILLIS;
+                float rx = xs[index] - lastX - (a + b * t + c * t * t);
+                float ry = ys[index] - lastY - (d + e * t + f * t * t);
+                residual += rx * rx + ry * ry;
+            }
+            float rms = residual > 0 ? residual * VectorMath.invSqrt(residual * used) : 0;
+            confidence /= 1 + rms / RESIDUAL_SCALE;
+        }
+
+        float offsetX = (b * horizon + c * horizon * horizon) * confidence;
+        float offsetY = (e * horizon + f * horizon * horizon) * confidence;
+        //二次拟合在手指急停时端点的速度可能反向：预测不能和最近一段移动的方向相反，也不能比它快太多
+        int previous = (head - 1 + CAPACITY) % CAPACITY;
+        float segmentX = lastX - xs[previous];
+        float segmentY = lastY - ys[previous];
+        if (offsetX * segmentX + offsetY * segmentY <= 0) {
+            offsetX = 0;
+            offsetY = 0;
+        }
+        float segment2 = segmentX * segmentX + segmentY * segmentY;
+        float limit = segment2 > 0
+                ? segment2 * VectorMath.invSqrt(segment2) / (newest - times[previous]) * horizonMillis * MAX_SPEEDUP
+                : 0;
+        if (limit > maxOffset) limit = maxOffset;
+        float length2 = offsetX * offsetX + offsetY * offsetY;
+        if (length2 > limit * limit) {
+            float scale = limit > 0 ? limit * VectorMath.invSqrt(length2) : 0;
+            offsetX *= scale;
+            offsetY *= scale;
+        }
+        out[0] = lastX + offsetX;
+        out[1] = lastY + offsetY;
+
+        velocityX = b / WINDOW_MILLIS;
+        velocityY = e / WINDOW_MILLIS;
+        accelerationX = 2 * c / (WINDOW_MILLIS * WINDOW_MILLIS);
+        accelerationY = 2 * f / (WINDOW_MILLIS * WINDOW_MILLIS);
+        this.confidence = confidence;
+        return true;
+    }
+
+    /**
+     * 最近一次预测的速度，单位px/ms
+     */
+    float getVelocityX() {
+        return velocityX;
+    }
+
+    float getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * 最近一次预测的加速度，单位px/ms²
+     */
+    float getAccelerationX() {
+        return accelerationX;
+    }
+
+    float getAccelerationY() {
+        return accelerationY;
+    }
+
+    /**
+     * 最近一次预测的可信度，0~1，预测的位移已经乘过这个系数
+     */
+    float getConfidence() {
+        return confidence;
+    }
+
+    //x = a + b·t的最小二乘斜率
+    private static float linearSlope(float s0, float s1, float s2, float sx, float sxt) {
+        float det = s0 * s2 - s1 * s1;
+        return det != 0 ? (s0 * sxt - s1 * sx) / det : 0;
+    }
+}
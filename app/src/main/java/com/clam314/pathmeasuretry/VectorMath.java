@@ -0,0 +1,111 @@
+package com.clam314.pathmeasuretry;
+
+/**
+ * 各个View共用的float向量运算，点按x,y交替存放在float数组里
+ * 比较距离时尽量用距离的平方，需要单位向量时用快速平方根倒数，三角函数用多项式近似，全程不转double
+ * 精度见VectorMathTest：invSqrt相对误差小于1e-5，sin/cos绝对误差小于1e-5，atan2绝对误差小于2e-5弧度
+ */
+
+final class VectorMath {
+    static final float PI = (float) Math.PI;
+    static final float TWO_PI = PI * 2;
+    static final float HALF_PI = PI / 2;
+    static final float RAD_TO_DEG = 180f / PI;
+    static final float DEG_TO_RAD = PI / 180f;
+
+    private VectorMath() {
+    }
+
+    static float dist2(float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * 第i个点和第j个点距离的平方
+     */
+    static float dist2(float[] points, int i, int j) {
+        return dist2(points[i * 2], points[i * 2 + 1], points[j * 2], points[j * 2 + 1]);
+    }
+
+    static float dist(float x1, float y1, float x2, float y2) {
+        float d2 = dist2(x1, y1, x2, y2);
+        return d2 > 0 ? d2 * invSqrt(d2) : 0;
+    }
+
+    /**
+     * 1/sqrt(x)，位运算给出初值后做两次牛顿迭代，x必须大于0
+     */
+    static float invSqrt(float x) {
+        float half = 0.5f * x;
+        float y = Float.intBitsToFloat(0x5f3759df - (Float.floatToRawIntBits(x) >> 1));
+        y = y * (1.5f - half * y * y);
+        y = y * (1.5f - half * y * y);
+        return y;
+    }
+
+    /**
+     * 把(x1,y1)指向(x2,y2)的单位向量写到out[offset]、out[offset+1]，返回两点的距离
+     * 两点重合时返回0，out不会被修改
+     */
+    static float direction(float x1, float y1, float x2, float y2, float[] out, int offset) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        float d2 = dx * dx + dy * dy;
+        if (d2 <= 0) return 0;
+        float inv = invSqrt(d2);
+        out[offset] = dx * inv;
+        out[offset + 1] = dy * inv;
+        return d2 * inv;
+    }
+
+    /**
+     * 正弦，先把角度归约到[-π/2, π/2]再用9次泰勒多项式计算
+     */
+    static float sin(float radians) {
+        //归约到[-π, π]，k为向下取整的圈数
+        float turns = (radians + PI) / TWO_PI;
+        int k = (int) turns;
+        if (turns < k) k--;
+        float x = radians - TWO_PI * k;
+        //sin(π-x) = sin(x)
+        if (x > HALF_PI) {
+            x = PI - x;
+        } else if (x < -HALF_PI) {
+            x = -PI - x;
+        }
+        float x2 = x * x;
+        return x * (1 + x2 * (-1f / 6 + x2 * (1f / 120 + x2 * (-1f / 5040 + x2 * (1f / 362880)))));
+    }
+
+    static float cos(float radians) {
+        return sin(radians + HALF_PI);
+    }
+
+    /**
+     * 反正切，结果范围[-π, π]，在|t|≤1上用多项式计算atan(t)，再按象限还原
+     */
+    static float atan2(float y, float x) {
+        if (x == 0 && y == 0) return 0;
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        boolean swap = ay > ax;
+        float t = swap ? ax / ay : ay / ax;
+        float angle = atan(t);
+        if (swap) angle = HALF_PI - angle;
+        if (x < 0) angle = PI - angle;
+        return y < 0 ? -angle : angle;
+    }
+
+    //t的范围为[0,1]：先用atan(t) = π/4 + atan((t-1)/(t+1))把范围缩到|u|≤tan(π/8)，再用泰勒多项式
+    private static float atan(float t) {
+        float offset = 0;
+        if (t > 0.41421356f) {
+            t = (t - 1) / (t + 1);
+            offset = PI / 4;
+        }
+        float t2 = t * t;
+        return offset + t * (1 + t2 * (-1f / 3 + t2 * (1f / 5 + t2 * (-1f / 7 + t2 * (1f / 9 + t2 * (-1f / 11))))));
+    }
+}
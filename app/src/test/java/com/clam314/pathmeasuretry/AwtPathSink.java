@@ -0,0 +1,49 @@
+package com.clam314.pathmeasuretry;
+
+import java.awt.geom.Arc2D;
+import java.awt.geom.Path2D;
+
+/**
+ * 把PathSink的输出写进java.awt.geom.Path2D，在JVM上不依赖设备渲染几何结果
+ */
+class AwtPathSink implements PathSink {
+    final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+    private final Arc2D.Float arc = new Arc2D.Float(Arc2D.OPEN);
+
+    @Override
+    public void reset() {
+        path.reset();
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        path.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        path.lineTo(x, y);
+    }
+
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        path.quadTo(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        path.curveTo(x1, y1, x2, y2, x3, y3);
+    }
+
+    @Override
+    public void arcTo(float centerX, float centerY, float radius, float startAngle, float sweepAngle, boolean forceMoveTo) {
+        //Arc2D的角度逆时针为正，和Android的方向相反
+        arc.setArc(centerX - radius, centerY - radius, radius * 2, radius * 2, -startAngle, -sweepAngle, Arc2D.OPEN);
+        path.append(arc, !forceMoveTo && path.getCurrentPoint() != null);
+    }
+
+    @Override
+    public void close() {
+        path.closePath();
+    }
+}
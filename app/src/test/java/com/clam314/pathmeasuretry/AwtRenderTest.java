@@ -0,0 +1,187 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * 通过AwtPathSink在JVM上渲染各个View的几何输出，帧序列按网格拼成一张PNG写到build/render下
+ */
+public class AwtRenderTest {
+    private static final int CELL = 240;
+    private static final int COLUMNS = 8;
+    private static final File OUTPUT = new File("build/render");
+
+    @BeforeClass
+    public static void setUpClass() {
+        System.setProperty("java.awt.headless", "true");
+        OUTPUT.mkdirs();
+    }
+
+    @Test
+    public void pierreBezierCircleFrames() throws Exception {
+        final BezierCircleKeyframes keyframes = BezierCircleKeyframes.forRadius(80);
+        final float[] points = new float[BezierCircleModel.POINT_SIZE];
+        final AwtPathSink sink = new AwtPathSink();
+        BufferedImage sheet = renderSheet(32, new Frame() {
+            @Override
+            public void render(Graphics2D g, float progress) {
+                keyframes.sample(progress, 0, points);
+                sink.reset();
+                BezierCircleModel.buildPath(points, sink);
+                g.translate(-40, 0);
+                g.fill(sink.path);
+            }
+        });
+        //第一帧是一个正圆：中心有颜色，半径外没有
+        assertTrue(isPainted(sheet, CELL / 2 - 40, CELL / 2));
+        assertFalse(isPainted(sheet, CELL / 2 - 40 + 90, CELL / 2));
+        write(sheet, "pierre_bezier_circle.png");
+    }
+
+    @Test
+    public void stickyBridgeFrames() throws Exception {
+        final float[] size = new float[StickyGeometry.CIRCLE_SIZE];
+        final float[] bridge = new float[StickyGeometry.BRIDGE_SIZE];
+        final AwtPathSink sink = new AwtPathSink();
+        BufferedImage sheet = renderSheet(32, new Frame() {
+            @Override
+            public void render(Graphics2D g, float progress) {
+                //从上往下拉出圆，最多拉到最大距离的0.75
+                float move = 1 + 150 * progress;
+                if (!StickyGeometry.calculateCircleSize(0, -80, 0, -80 + move, 200, 30, 0, -80, size)) return;
+                sink.reset();
+                sink.arcTo(0, -80, size[StickyGeometry.START_RADIUS], 0, 359.9f, true);
+                sink.arcTo(size[StickyGeometry.END_X], size[StickyGeometry.END_Y], size[StickyGeometry.END_RADIUS], 0, 359.9f, true);
+                if (StickyGeometry.calculateBezierCurve(0, -80, size[StickyGeometry.START_RADIUS],
+                        size[StickyGeometry.END_X], size[StickyGeometry.END_Y], size[StickyGeometry.END_RADIUS], bridge)) {
+                    StickyGeometry.buildBridgePath(bridge, 0, sink);
+                }
+                g.fill(sink.path);
+            }
+        });
+        assertTrue(isPainted(sheet, CELL / 2, CELL / 2 - 80));
+        write(sheet, "sticky_bridge.png");
+    }
+
+    @Test
+    public void searchSegmentFrames() throws Exception {
+        final PathLengthTable circle = new PathLengthTable();
+        circle.addArc(0, 0, 100, 45, -359.9f);
+        final float[] segment = new float[circle.getMaxSegmentSize()];
+        final AwtPathSink sink = new AwtPathSink();
+        BufferedImage sheet = renderSheet(32, new Frame() {
+            @Override
+            public void render(Graphics2D g, float progress) {
+                //和SearchView的SEARCHING阶段一样截取圆弧
+                float stop = circle.getLength() * progress;
+                float start = stop - (0.5f - Math.abs(progress - 0.5f)) * 200f;
+                SegmentCache.setPolyline(sink, segment, circle.getSegment(start, stop, segment));
+                g.setStroke(new BasicStroke(15, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+                g.draw(sink.path);
+            }
+        });
+        float[] pos = new float[2];
+        //第一帧进度为0，什么都不画
+        circle.getPosTan(0, pos, null);
+        assertFalse(isPainted(sheet, cellX(0, pos[0]), cellY(0, pos[1])));
+        //中间的帧画出终点前约100长度的圆弧，圆弧中点有颜色，圆心没有
+        float progress = 16f / 31;
+        float stop = circle.getLength() * progress;
+        circle.getPosTan(stop - (0.5f - Math.abs(progress - 0.5f)) * 100f, pos, null);
+        assertTrue(isPainted(sheet, cellX(16, pos[0]), cellY(16, pos[1])));
+        assertFalse(isPainted(sheet, cellX(16, 0), cellY(16, 0)));
+        write(sheet, "search_segments.png");
+    }
+
+    @Test
+    public void polygonQuadFrames() throws Exception {
+        final float[] src = {0, 0, 160, 0, 160, 120, 0, 120};
+        final float[] dst = new float[8];
+        final float[] matrix = new float[PolyToPoly.MATRIX_SIZE];
+        final float[] mapped = new float[8];
+        final PolyToPoly solver = new PolyToPoly();
+        final AwtPathSink sink = new AwtPathSink();
+        BufferedImage sheet = renderSheet(16, new Frame() {
+            @Override
+            public void render(Graphics2D g, float progress) {
+                //把右下角往外拖，画出src经过透视变换后的轮廓
+                System.arraycopy(src, 0, dst, 0, 8);
+                dst[4] += 40 * progress;
+                dst[5] += 30 * progress;
+                assertTrue(solver.setPolyToPoly(src, 0, dst, 0, 4, matrix));
+                PolyToPoly.mapPoints(matrix, mapped, 0, src, 0, 4);
+                sink.reset();
+                sink.moveTo(mapped[0], mapped[1]);
+                for (int i = 2; i < 8; i += 2) {
+                    sink.lineTo(mapped[i], mapped[i + 1]);
+                }
+                sink.close();
+                g.translate(-100, -80);
+                g.setStroke(new BasicStroke(3));
+                g.draw(sink.path);
+            }
+        });
+        //第一帧是原来的矩形：上边的中点有颜色，中心没有
+        assertTrue(isPainted(sheet, cellX(0, -20), cellY(0, -80)));
+        assertFalse(isPainted(sheet, cellX(0, -20), cellY(0, -20)));
+        //最后一帧右下角被拖到(100,70)，右边的中点跟着移到(80,-5)，原来的右下角已经空了
+        assertTrue(isPainted(sheet, cellX(15, 80), cellY(15, -5)));
+        assertFalse(isPainted(sheet, cellX(15, 60), cellY(15, 40)));
+        write(sheet, "polygon_quad.png");
+    }
+
+    private static BufferedImage renderSheet(int frames, Frame frame) {
+        int rows = (frames + COLUMNS - 1) / COLUMNS;
+        BufferedImage sheet = new BufferedImage(CELL * COLUMNS, CELL * rows, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sheet.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        //和SearchView一样蓝底白线，方便直接看图
+        g.setColor(new Color(0x0082D7));
+        g.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+        g.setColor(Color.WHITE);
+        AffineTransform origin = g.getTransform();
+        for (int i = 0; i < frames; i++) {
+            g.setTransform(origin);
+            //原点在格子中心，和View里translate到中心一致
+            g.translate((i % COLUMNS) * CELL + CELL / 2, (i / COLUMNS) * CELL + CELL / 2);
+            g.setClip(-CELL / 2, -CELL / 2, CELL, CELL);
+            frame.render(g, (float) i / (frames - 1));
+        }
+        g.dispose();
+        return sheet;
+    }
+
+    //第frame个格子里以格子中心为原点的坐标，换算成整张图上的像素
+    private static int cellX(int frame, float x) {
+        return (frame % COLUMNS) * CELL + CELL / 2 + (int) Math.floor(x);
+    }
+
+    private static int cellY(int frame, float y) {
+        return (frame / COLUMNS) * CELL + CELL / 2 + (int) Math.floor(y);
+    }
+
+    private static boolean isPainted(BufferedImage image, int x, int y) {
+        //背景的红色分量为0，白色的图形为255
+        return ((image.getRGB(x, y) >> 16) & 0xff) > 128;
+    }
+
+    private static void write(BufferedImage image, String name) throws Exception {
+        assertTrue(ImageIO.write(image, "png", new File(OUTPUT, name)));
+    }
+
+    private interface Frame {
+        void render(Graphics2D g, float progress);
+    }
+}
@@ -0,0 +1,81 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * BezierCircleKeyframes和解析模型BezierCircleModel的误差测试
+ */
+public class BezierCircleKeyframesTest {
+    private static final int SAMPLES = 10000;
+
+    @Test
+    public void defaultTableStaysWithinBound() throws Exception {
+        assertMaxError(new BezierCircleKeyframes(50, BezierCircleKeyframes.DEFAULT_FRAME_COUNT), 0.05f);
+    }
+
+    @Test
+    public void errorShrinksWithMoreFrames() throws Exception {
+        BezierCircleKeyframes coarse = new BezierCircleKeyframes(120, 50);
+        BezierCircleKeyframes fine = new BezierCircleKeyframes(120, 400);
+        assertTrue(maxError(fine) < maxError(coarse));
+    }
+
+    @Test
+    public void keyframesAreExact() throws Exception {
+        BezierCircleKeyframes keyframes = new BezierCircleKeyframes(50, 100);
+        BezierCircleModel model = new BezierCircleModel(50);
+        float[] out = new float[BezierCircleModel.POINT_SIZE];
+        //阶段分界点都落在关键帧上
+        for (float time : new float[]{0f, 0.2f, 0.5f, 0.8f, 0.9f, 1f}) {
+            keyframes.sample(time, 0, out);
+            model.compute(time);
+            assertArrayEquals(model.points, out, 1e-4f);
+        }
+    }
+
+    @Test
+    public void offsetMovesOnlyX() throws Exception {
+        BezierCircleKeyframes keyframes = BezierCircleKeyframes.forRadius(50);
+        float[] plain = new float[BezierCircleModel.POINT_SIZE];
+        float[] moved = new float[BezierCircleModel.POINT_SIZE];
+        keyframes.sample(0.63f, 0, plain);
+        keyframes.sample(0.63f, 12.5f, moved);
+        for (int i = 0; i < BezierCircleModel.POINT_SIZE; i += 2) {
+            assertEquals(plain[i] + 12.5f, moved[i], 1e-4f);
+            assertEquals(plain[i + 1], moved[i + 1], 0);
+        }
+    }
+
+    @Test
+    public void tableIsSharedPerRadius() throws Exception {
+        assertSame(BezierCircleKeyframes.forRadius(50), BezierCircleKeyframes.forRadius(50));
+        assertNotSame(BezierCircleKeyframes.forRadius(50), BezierCircleKeyframes.forRadius(60));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void frameCountMustAlignWithPhases() throws Exception {
+        new BezierCircleKeyframes(50, 64);
+    }
+
+    private static void assertMaxError(BezierCircleKeyframes keyframes, float bound) {
+        float error = maxError(keyframes);
+        assertTrue("max error " + error + " exceeds " + bound, error < bound);
+    }
+
+    private static float maxError(BezierCircleKeyframes keyframes) {
+        BezierCircleModel model = new BezierCircleModel(keyframes.getRadius());
+        float[] out = new float[BezierCircleModel.POINT_SIZE];
+        float max = 0;
+        for (int i = 0; i <= SAMPLES; i++) {
+            float time = (float) i / SAMPLES;
+            keyframes.sample(time, 0, out);
+            model.compute(time);
+            for (int j = 0; j < BezierCircleModel.POINT_SIZE; j++) {
+                max = Math.max(max, Math.abs(out[j] - model.points[j]));
+            }
+        }
+        return max;
+    }
+}
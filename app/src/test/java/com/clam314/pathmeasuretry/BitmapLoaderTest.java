@@ -0,0 +1,90 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * BitmapLoader复用池按字节数限制、采样率计算的本地单元测试
+ */
+public class BitmapLoaderTest {
+
+    //用int[]代替图片：长度就是字节数，取出时要求长度不小于请求的字节数
+    private static class ArrayPool extends BitmapLoader.ReusePool<int[], Integer> {
+        final List<int[]> dropped = new ArrayList<>();
+
+        ArrayPool(int maxBytes) {
+            super(maxBytes);
+        }
+
+        @Override
+        int sizeOf(int[] item) {
+            return item.length;
+        }
+
+        @Override
+        boolean canReuse(int[] item, Integer request) {
+            return item.length >= request;
+        }
+
+        @Override
+        void onDropped(int[] item) {
+            dropped.add(item);
+        }
+    }
+
+    @Test
+    public void oldestEntriesDroppedOverBudget() throws Exception {
+        ArrayPool pool = new ArrayPool(100);
+        int[] first = new int[40];
+        int[] second = new int[40];
+        int[] third = new int[40];
+        pool.add(first);
+        pool.add(second);
+        assertEquals(80, pool.getBytes());
+        assertTrue(pool.dropped.isEmpty());
+
+        pool.add(third);
+        assertEquals(80, pool.getBytes());
+        assertEquals(2, pool.getCount());
+        assertEquals(1, pool.dropped.size());
+        assertSame(first, pool.dropped.get(0));
+    }
+
+    @Test
+    public void entryLargerThanBudgetIsDroppedImmediately() throws Exception {
+        ArrayPool pool = new ArrayPool(100);
+        int[] kept = new int[30];
+        int[] huge = new int[101];
+        pool.add(kept);
+        pool.add(huge);
+        assertSame(huge, pool.dropped.get(0));
+        assertEquals(30, pool.getBytes());
+        assertEquals(1, pool.getCount());
+    }
+
+    @Test
+    public void takeRemovesMatchAndReleasesBytes() throws Exception {
+        ArrayPool pool = new ArrayPool(100);
+        int[] small = new int[10];
+        int[] large = new int[50];
+        pool.add(small);
+        pool.add(large);
+        assertSame(large, pool.take(20));
+        assertEquals(10, pool.getBytes());
+        assertNull(pool.take(20));
+        assertSame(small, pool.take(5));
+        assertEquals(0, pool.getBytes());
+        assertTrue(pool.dropped.isEmpty());
+    }
+
+    @Test
+    public void sampleSizeKeepsRequestedSize() throws Exception {
+        assertEquals(1, BitmapLoader.calculateInSampleSize(100, 100, 0, 0));
+        assertEquals(4, BitmapLoader.calculateInSampleSize(1000, 800, 200, 200));
+        assertEquals(1, BitmapLoader.calculateInSampleSize(300, 300, 200, 200));
+    }
+}
@@ -0,0 +1,200 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ClockAnimator在ManualAnimationClock上逐帧推进的本地单元测试，全程不需要真正等待
+ */
+public class ClockAnimatorTest {
+    private static final long FRAME = ManualAnimationClock.DEFAULT_FRAME_INTERVAL;
+
+    @Test
+    public void firstFrameStartsAtZeroAndLastFrameEndsAtOne() throws Exception {
+        ManualAnimationClock clock = new ManualAnimationClock(5000);
+        RecordingListener listener = new RecordingListener();
+        ClockAnimator animator = new ClockAnimator(clock, listener).setDuration(100);
+        animator.start();
+        assertEquals(1, listener.starts);
+
+        clock.step(FRAME);
+        assertEquals(0f, animator.getAnimatedFraction(), 0f);
+        clock.step(50);
+        assertEquals(0.5f, animator.getAnimatedFraction(), 1e-6f);
+        assertTrue(animator.isRunning());
+
+        //最后一帧即使跳过了终点也停在1
+        clock.step(70);
+        assertEquals(1f, animator.getAnimatedFraction(), 0f);
+        assertFalse(animator.isRunning());
+        assertEquals(1, listener.ends);
+        assertFalse(listener.lastCancelled);
+        assertFalse(clock.hasPendingFrame());
+        assertEquals(3, listener.updates);
+    }
+
+    @Test
+    public void stepsWholeAnimationWithoutWaiting() throws Exception {
+        ManualAnimationClock clock = new ManualAnimationClock();
+        RecordingListener listener = new RecordingListener();
+        ClockAnimator animator = new ClockAnimator(clock, listener).setDuration(10000);
+        animator.start();
+
+        int frames = clock.advance(60000, FRAME);
+        //第一帧只记录开始时间，之后每16ms一帧直到到达10秒
+        assertEquals(10000 / FRAME + 1, frames);
+        assertFalse(animator.isRunning());
+        assertEquals(frames, listener.updates);
+    }
+
+    @Test
+    public void accelerateDecelerateMatchesPlatformCurve() throws Exception {
+        for (int i = 0; i <= 100; i++) {
+            float input = i / 100f;
+            float expected = (float) (Math.cos((input + 1) * Math.PI) / 2.0) + 0.5f;
+            assertEquals(expected, ClockAnimator.ACCELERATE_DECELERATE.getInterpolation(input), 1e-5f);
+        }
+        assertEquals(0f, ClockAnimator.ACCELERATE_DECELERATE.getInterpolation(0), 0f);
+        assertEquals(1f, ClockAnimator.ACCELERATE_DECELERATE.getInterpolation(1), 0f);
+    }
+
+    @Test
+    public void infiniteRepeatWrapsUntilCancelled() throws Exception {
+        ManualAnimationClock clock = new ManualAnimationClock();
+        RecordingListener listener = new RecordingListener();
+        ClockAnimator animator = new ClockAnimator(clock, listener)
+                .setDuration(200)
+                .setRepeatCount(ClockAnimator.INFINITE);
+        animator.start();
+        clock.step(FRAME);
+        clock.step(1050);
+        assertEquals(0.25f, animator.getAnimatedFraction(), 1e-6f);
+        assertEquals(1050, animator.getCurrentPlayTime());
+        assertTrue(animator.isRunning());
+
+        animator.cancel();
+        assertFalse(animator.isRunning());
+        assertTrue(listener.lastCancelled);
+        assertFalse(clock.hasPendingFrame());
+        //停在取消时的进度
+        assertEquals(0.25f, animator.getAnimatedFraction(), 1e-6f);
+    }
+
+    @Test
+    public void repeatCountAddsWholeCycles() throws Exception {
+        ManualAnimationClock clock = new ManualAnimationClock();
+        ClockAnimator animator = new ClockAnimator(clock, new RecordingListener())
+                .setDuration(100)
+                .setRepeatCount(2);
+        animator.start();
+        clock.step(FRAME);
+        clock.step(250);
+        assertTrue(animator.isRunning());
+        assertEquals(0.5f, animator.getAnimatedFraction(), 1e-6f);
+        clock.step(50);
+        assertFalse(animator.isRunning());
+    }
+
+    @Test
+    public void restartFromEndCallbackKeepsRunning() throws Exception {
+        final ManualAnimationClock clock = new ManualAnimationClock();
+        final int[] ends = new int[1];
+        final ClockAnimator[] holder = new ClockAnimator[1];
+        holder[0] = new ClockAnimator(clock, new ClockAnimator.Listener() {
+            @Override
+            void onAnimationEnd(ClockAnimator animator, boolean cancelled) {
+                if (++ends[0] < 3) animator.start();
+            }
+        }).setDuration(100);
+        holder[0].start();
+        clock.advance(10000, FRAME);
+        assertEquals(3, ends[0]);
+        assertFalse(holder[0].isRunning());
+    }
+
+    @Test
+    public void switchingClockRestartsOnNewClock() throws Exception {
+        ManualAnimationClock first = new ManualAnimationClock();
+        ManualAnimationClock second = new ManualAnimationClock(100000);
+        ClockAnimator animator = new ClockAnimator(first, new RecordingListener()).setDuration(100);
+        animator.start();
+        first.step(FRAME);
+        first.step(40);
+
+        animator.setClock(second);
+        assertFalse(first.hasPendingFrame());
+        assertTrue(second.hasPendingFrame());
+        second.step(FRAME);
+        assertEquals(0f, animator.getAnimatedFraction(), 0f);
+        second.step(100);
+        assertFalse(animator.isRunning());
+    }
+
+    @Test
+    public void removedCallbackSkipsCurrentFrame() throws Exception {
+        final ManualAnimationClock clock = new ManualAnimationClock();
+        final int[] calls = new int[1];
+        final AnimationClock.FrameCallback second = new AnimationClock.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeMillis) {
+                calls[0]++;
+            }
+        };
+        clock.postFrameCallback(new AnimationClock.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeMillis) {
+                clock.removeFrameCallback(second);
+            }
+        });
+        clock.postFrameCallback(second);
+        assertEquals(1, clock.step(FRAME));
+        assertEquals(0, calls[0]);
+    }
+
+    @Test
+    public void pierreAnimationEndsAtLastKeyframe() throws Exception {
+        //按60fps把PierreBezierCircleView的10秒动画跑完，每帧的耗时见ClockAnimatorBenchmark
+        final BezierCircleKeyframes keyframes = new BezierCircleKeyframes(50, BezierCircleKeyframes.DEFAULT_FRAME_COUNT);
+        final float[] points = new float[BezierCircleModel.POINT_SIZE];
+        final float maxLength = 720 - 50;
+        ManualAnimationClock clock = new ManualAnimationClock();
+        ClockAnimator animator = new ClockAnimator(clock, new ClockAnimator.Listener() {
+            @Override
+            void onAnimationUpdate(ClockAnimator animator) {
+                float time = animator.getAnimatedFraction();
+                keyframes.sample(time, Math.max(0, maxLength * (time - 0.2f)), points);
+            }
+        }).setDuration(10000).setInterpolator(ClockAnimator.ACCELERATE_DECELERATE);
+
+        animator.start();
+        assertEquals(10000 / FRAME + 1, clock.advance(20000, FRAME));
+        //最后一帧停在终点
+        float[] end = new float[BezierCircleModel.POINT_SIZE];
+        keyframes.sample(1, maxLength * 0.8f, end);
+        assertArrayEquals(end, points, 0f);
+    }
+
+    private static class RecordingListener extends ClockAnimator.Listener {
+        int starts;
+        int updates;
+        int ends;
+        boolean lastCancelled;
+
+        @Override
+        void onAnimationStart(ClockAnimator animator) {
+            starts++;
+        }
+
+        @Override
+        void onAnimationUpdate(ClockAnimator animator) {
+            updates++;
+        }
+
+        @Override
+        void onAnimationEnd(ClockAnimator animator, boolean cancelled) {
+            ends++;
+            lastCancelled = cancelled;
+        }
+    }
+}
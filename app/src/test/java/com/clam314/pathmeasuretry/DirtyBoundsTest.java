@@ -0,0 +1,73 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * DirtyBounds上一帧和这一帧范围合并的本地单元测试
+ */
+public class DirtyBoundsTest {
+
+    @Test
+    public void firstFrameOnlyCoversCurrent() throws Exception {
+        DirtyBounds bounds = new DirtyBounds();
+        int[] out = new int[4];
+        bounds.reset();
+        bounds.unionCircle(100, 200, 50);
+        assertTrue(bounds.commit(0, out));
+        assertArrayEquals(new int[]{50, 150, 150, 250}, out);
+    }
+
+    @Test
+    public void movedContentCoversOldAndNewBounds() throws Exception {
+        DirtyBounds bounds = new DirtyBounds();
+        int[] out = new int[4];
+        bounds.reset();
+        bounds.unionCircle(100, 100, 10);
+        bounds.commit(0, out);
+
+        bounds.reset();
+        bounds.unionCircle(300, 150, 20);
+        assertTrue(bounds.commit(0, out));
+        assertArrayEquals(new int[]{90, 90, 320, 170}, out);
+
+        //再下一帧只需要合并上一帧，最早的一帧已经被刷掉了
+        bounds.reset();
+        bounds.unionCircle(300, 150, 20);
+        bounds.commit(0, out);
+        assertArrayEquals(new int[]{280, 130, 320, 170}, out);
+    }
+
+    @Test
+    public void outsetRoundsOutward() throws Exception {
+        DirtyBounds bounds = new DirtyBounds();
+        int[] out = new int[4];
+        bounds.reset();
+        bounds.union(10.2f, -3.5f, 20.7f, 4.1f);
+        bounds.commit(1.5f, out);
+        assertArrayEquals(new int[]{8, -5, 23, 6}, out);
+    }
+
+    @Test
+    public void pointsAndEmptyFrames() throws Exception {
+        DirtyBounds bounds = new DirtyBounds();
+        int[] out = new int[4];
+        bounds.reset();
+        assertTrue(bounds.isEmpty());
+        assertFalse(bounds.commit(0, out));
+
+        bounds.reset();
+        bounds.unionPoints(new float[]{-1, -1, 5, 2, 3, 8, 0, 0}, 2, 2);
+        assertFalse(bounds.isEmpty());
+        bounds.commit(0, out);
+        assertArrayEquals(new int[]{3, 2, 5, 8}, out);
+
+        //内容消失时还要刷新一次上一帧的范围
+        bounds.reset();
+        assertTrue(bounds.commit(0, out));
+        assertArrayEquals(new int[]{3, 2, 5, 8}, out);
+        bounds.reset();
+        assertFalse(bounds.commit(0, out));
+    }
+}
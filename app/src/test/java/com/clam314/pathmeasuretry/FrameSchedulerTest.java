@@ -0,0 +1,118 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FrameScheduler合并帧回调以及暂停恢复的本地单元测试
+ */
+public class FrameSchedulerTest {
+    private static final long FRAME = ManualAnimationClock.DEFAULT_FRAME_INTERVAL;
+
+    @Test
+    public void oneBaseCallbackTicksAllClients() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock();
+        FrameScheduler scheduler = new FrameScheduler(base);
+        ClockAnimator[] animators = new ClockAnimator[5];
+        for (int i = 0; i < animators.length; i++) {
+            FrameScheduler.Client client = scheduler.newClient();
+            client.setActive(true);
+            animators[i] = new ClockAnimator(client, new ClockAnimator.Listener() {
+            }).setDuration(100 * (i + 1));
+            animators[i].start();
+        }
+        assertEquals(animators.length, scheduler.getRequestedCount());
+        //底层时钟上只有调度器自己的一个回调
+        assertEquals(1, base.step(FRAME));
+        base.step(50);
+        for (ClockAnimator animator : animators) {
+            assertEquals(50f / animator.getDuration(), animator.getAnimatedFraction(), 1e-6f);
+        }
+        base.advance(1000, FRAME);
+        for (ClockAnimator animator : animators) {
+            assertFalse(animator.isRunning());
+        }
+        assertEquals(0, scheduler.getRequestedCount());
+        assertFalse(base.hasPendingFrame());
+    }
+
+    @Test
+    public void inactiveClientFreezesTime() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock(1000);
+        FrameScheduler scheduler = new FrameScheduler(base);
+        FrameScheduler.Client client = scheduler.newClient();
+        ClockAnimator animator = new ClockAnimator(client, new ClockAnimator.Listener() {
+        }).setDuration(1000);
+        //还没attach就开始的动画不会收到帧
+        animator.start();
+        assertFalse(base.hasPendingFrame());
+        base.skip(5000);
+
+        client.setActive(true);
+        base.step(FRAME);
+        base.step(200);
+        assertEquals(0.2f, animator.getAnimatedFraction(), 1e-6f);
+
+        //不可见期间底层时钟上没有回调，时间也不算进动画
+        client.setActive(false);
+        assertEquals(0, scheduler.getRequestedCount());
+        assertFalse(base.hasPendingFrame());
+        long frozen = client.uptimeMillis();
+        base.skip(60000);
+        assertEquals(frozen, client.uptimeMillis());
+        assertTrue(client.hasPendingFrame());
+
+        client.setActive(true);
+        base.step(300);
+        assertEquals(0.5f, animator.getAnimatedFraction(), 1e-6f);
+        assertTrue(animator.isRunning());
+    }
+
+    @Test
+    public void pausingDuringDispatchSkipsClient() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock();
+        FrameScheduler scheduler = new FrameScheduler(base);
+        final FrameScheduler.Client first = scheduler.newClient();
+        final FrameScheduler.Client second = scheduler.newClient();
+        first.setActive(true);
+        second.setActive(true);
+        final int[] calls = new int[2];
+        first.postFrameCallback(new AnimationClock.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeMillis) {
+                calls[0]++;
+                second.setActive(false);
+            }
+        });
+        second.postFrameCallback(new AnimationClock.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeMillis) {
+                calls[1]++;
+            }
+        });
+        base.step(FRAME);
+        assertArrayEquals(new int[]{1, 0}, calls);
+        assertTrue(second.hasPendingFrame());
+
+        second.setActive(true);
+        base.step(FRAME);
+        assertArrayEquals(new int[]{1, 1}, calls);
+        assertFalse(base.hasPendingFrame());
+    }
+
+    @Test
+    public void removingLastCallbackUnschedules() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock();
+        FrameScheduler scheduler = new FrameScheduler(base);
+        FrameScheduler.Client client = scheduler.newClient();
+        client.setActive(true);
+        ClockAnimator animator = new ClockAnimator(client, new ClockAnimator.Listener() {
+        }).setRepeatCount(ClockAnimator.INFINITE);
+        animator.start();
+        assertTrue(base.hasPendingFrame());
+        animator.cancel();
+        assertFalse(base.hasPendingFrame());
+        assertEquals(0, scheduler.getRequestedCount());
+    }
+}
@@ -0,0 +1,93 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FrameStats的本地单元测试
+ */
+public class FrameStatsTest {
+
+    @After
+    public void tearDown() throws Exception {
+        FrameStats.setEnabled(false);
+        FrameStats.resetAll();
+    }
+
+    @Test
+    public void percentilesComeFromHistogram() throws Exception {
+        FrameStats stats = FrameStats.get("percentiles");
+        //1ms~100ms各一帧，超过50ms的记在溢出桶，按最大值返回
+        for (int i = 1; i <= 100; i++) {
+            stats.record(i * 1000000L);
+        }
+
+        assertEquals(100, stats.getFrameCount());
+        assertEquals(40.1f, stats.getPercentileMillis(0.4f), 1e-3f);
+        assertEquals(100f, stats.getPercentileMillis(0.95f), 1e-3f);
+        assertEquals(100f, stats.getMaxMillis(), 1e-3f);
+        assertEquals(50.5f, stats.getAverageMillis(), 1e-3f);
+    }
+
+    @Test
+    public void percentileResolutionIsOneBucket() throws Exception {
+        FrameStats stats = FrameStats.get("resolution");
+        for (int i = 0; i < 99; i++) {
+            stats.record(2050000L);
+        }
+        stats.record(9990000L);
+
+        assertEquals(2.1f, stats.getPercentileMillis(0.5f), 1e-3f);
+        assertEquals(2.1f, stats.getPercentileMillis(0.99f), 1e-3f);
+        assertEquals(10.0f, stats.getPercentileMillis(1f), 1e-3f);
+    }
+
+    @Test
+    public void disabledStatsIgnoreEverything() throws Exception {
+        FrameStats stats = FrameStats.get("disabled");
+        FrameStats.setEnabled(false);
+
+        stats.end(stats.begin());
+        stats.countPathRebuild();
+        stats.countAllocations(3);
+
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(0, stats.getPathRebuilds());
+        assertEquals(0f, stats.getPercentileMillis(0.5f), 0);
+    }
+
+    @Test
+    public void timedBeginMeasuresWithoutRecording() throws Exception {
+        FrameStats stats = FrameStats.get("timed");
+        FrameStats.setEnabled(false);
+
+        assertEquals(-1, stats.end(stats.begin()));
+        assertTrue(stats.end(stats.begin(true)) >= 0);
+        assertEquals(0, stats.getFrameCount());
+    }
+
+    @Test
+    public void countersArePerFrame() throws Exception {
+        FrameStats stats = FrameStats.get("counters");
+        FrameStats.setEnabled(true);
+
+        for (int i = 0; i < 4; i++) {
+            long begin = stats.begin();
+            stats.countPathRebuild();
+            stats.countAllocations(2);
+            stats.end(begin);
+        }
+
+        assertEquals(4, stats.getFrameCount());
+        assertEquals(4, stats.getPathRebuilds());
+        assertEquals(2f, stats.getAllocationsPerFrame(), 0);
+        assertTrue(FrameStats.dumpAll().contains("counters: frames=4"));
+    }
+
+    @Test
+    public void sameNameSharesStats() throws Exception {
+        assertSame(FrameStats.get("shared"), FrameStats.get("shared"));
+    }
+}
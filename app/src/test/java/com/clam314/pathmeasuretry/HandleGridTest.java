@@ -0,0 +1,108 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * HandleGrid和MeshWarp的本地单元测试
+ */
+public class HandleGridTest {
+
+    @Test
+    public void findsNearestWithinRadius() throws Exception {
+        HandleGrid grid = new HandleGrid(50, 4);
+        int a = grid.add(0, 0);
+        int b = grid.add(30, 0);
+        grid.add(500, 500);
+
+        assertEquals(a, grid.findNearest(10, 0, 50));
+        assertEquals(b, grid.findNearest(20, 0, 50));
+        assertEquals(-1, grid.findNearest(200, 200, 50));
+    }
+
+    @Test
+    public void movedHandleIsFoundAtNewPosition() throws Exception {
+        HandleGrid grid = new HandleGrid(50, 4);
+        int handle = grid.add(0, 0);
+
+        grid.move(handle, 1000, -1000);
+        assertEquals(-1, grid.findNearest(0, 0, 50));
+        assertEquals(handle, grid.findNearest(1010, -990, 50));
+        assertEquals(1000f, grid.getX(handle), 0);
+    }
+
+    @Test
+    public void matchesLinearScan() throws Exception {
+        Random random = new Random(314);
+        HandleGrid grid = new HandleGrid(40, 8);
+        int count = 300;
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = random.nextFloat() * 1000 - 200;
+            ys[i] = random.nextFloat() * 1000 - 200;
+            grid.add(xs[i], ys[i]);
+        }
+        //随机移动一部分点，检查增量更新后的索引
+        for (int i = 0; i < count; i += 3) {
+            xs[i] = random.nextFloat() * 1000 - 200;
+            ys[i] = random.nextFloat() * 1000 - 200;
+            grid.move(i, xs[i], ys[i]);
+        }
+        assertEquals(count, grid.size());
+
+        for (int q = 0; q < 500; q++) {
+            float x = random.nextFloat() * 1000 - 200;
+            float y = random.nextFloat() * 1000 - 200;
+            assertEquals(linearNearest(xs, ys, x, y, 40), grid.findNearest(x, y, 40));
+        }
+    }
+
+    @Test
+    public void meshVerticesAreLaidOutRowByRow() throws Exception {
+        MeshWarp mesh = new MeshWarp(300, 200, 3, 2, 50);
+        assertEquals(12, mesh.getVertexCount());
+        assertEquals(100f, mesh.vertices[2], 0);
+        assertEquals(0f, mesh.vertices[3], 0);
+        assertEquals(300f, mesh.vertices[22], 0);
+        assertEquals(200f, mesh.vertices[23], 0);
+    }
+
+    @Test
+    public void meshDragMovesOnlyOneVertex() throws Exception {
+        MeshWarp mesh = new MeshWarp(300, 200, 3, 2, 50);
+        float[] before = mesh.vertices.clone();
+
+        int handle = mesh.findHandle(105, 95, 50);
+        assertEquals(5, handle);
+        mesh.moveHandle(handle, 400, 400);
+
+        for (int i = 0; i < before.length; i++) {
+            if (i / 2 == handle) continue;
+            assertEquals(before[i], mesh.vertices[i], 0);
+        }
+        assertEquals(handle, mesh.findHandle(390, 390, 50));
+
+        mesh.reset();
+        assertArrayEquals(before, mesh.vertices, 0);
+        assertEquals(handle, mesh.findHandle(105, 95, 50));
+    }
+
+    private static int linearNearest(float[] xs, float[] ys, float x, float y, float radius) {
+        int nearest = -1;
+        float nearestDistance = radius * radius;
+        for (int i = 0; i < xs.length; i++) {
+            float dx = xs[i] - x;
+            float dy = ys[i] - y;
+            float distance = dx * dx + dy * dy;
+            if (distance <= nearestDistance) {
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+}
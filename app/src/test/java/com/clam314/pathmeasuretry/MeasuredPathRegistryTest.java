@@ -0,0 +1,68 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * MeasuredPathRegistry按几何参数共享测量结果的本地单元测试
+ */
+public class MeasuredPathRegistryTest {
+
+    @After
+    public void tearDown() throws Exception {
+        MeasuredPathRegistry.clear();
+    }
+
+    @Test
+    public void sameGeometrySharesOneTable() throws Exception {
+        PathLengthTable first = MeasuredPathRegistry.arc(0, 0, 100, 45, -359.9f);
+        PathLengthTable second = MeasuredPathRegistry.arc(0, 0, 100, 45, -359.9f);
+        assertSame(first, second);
+        assertNotSame(first, MeasuredPathRegistry.arc(0, 0, 50, 45, -359.9f));
+        assertNotSame(first, MeasuredPathRegistry.arc(0, 0, 100, 0, -359.9f));
+        assertEquals(3, MeasuredPathRegistry.size());
+    }
+
+    @Test
+    public void sharedTableMatchesFreshOne() throws Exception {
+        PathLengthTable fresh = new PathLengthTable();
+        fresh.addArc(0, 0, 50, 45, -359.9f);
+        fresh.lineTo(70, 70);
+        PathLengthTable shared = MeasuredPathRegistry.arcThenLine(0, 0, 50, 45, -359.9f, 70, 70);
+        assertEquals(fresh.getLength(), shared.getLength(), 0);
+        assertEquals(fresh.getPointCount(), shared.getPointCount());
+        assertNotSame(shared, MeasuredPathRegistry.arc(0, 0, 50, 45, -359.9f));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sharedTableIsSealed() throws Exception {
+        PathLengthTable table = MeasuredPathRegistry.arc(0, 0, 30, 0, 359.9f);
+        assertTrue(table.isSealed());
+        table.lineTo(0, 0);
+    }
+
+    @Test
+    public void factoryRunsOncePerKey() throws Exception {
+        final int[] created = new int[1];
+        MeasuredPathRegistry.Factory<Object> factory = new MeasuredPathRegistry.Factory<Object>() {
+            @Override
+            public Object create() {
+                created[0]++;
+                return new Object();
+            }
+        };
+        Object first = MeasuredPathRegistry.get(new MeasuredPathRegistry.Key("test", 1, 2), factory);
+        Object second = MeasuredPathRegistry.get(new MeasuredPathRegistry.Key("test", 1, 2), factory);
+        assertSame(first, second);
+        assertEquals(1, created[0]);
+        MeasuredPathRegistry.get(new MeasuredPathRegistry.Key("other", 1, 2), factory);
+        assertEquals(2, created[0]);
+
+        //clear之后重新生成
+        MeasuredPathRegistry.clear();
+        assertNotSame(first, MeasuredPathRegistry.get(new MeasuredPathRegistry.Key("test", 1, 2), factory));
+        assertEquals(3, created[0]);
+    }
+}
@@ -0,0 +1,106 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * MetaballEngine的本地单元测试
+ */
+public class MetaballEngineTest {
+
+    @Test
+    public void bridgesOnlyNearbyPairs() throws Exception {
+        MetaballEngine engine = new MetaballEngine(50, 300, 4);
+        engine.addBlob(0, 0, 50);
+        engine.addBlob(200, 0, 50);
+        engine.addBlob(2000, 0, 50);
+
+        assertTrue(engine.update());
+        assertEquals(1, engine.getBridgeCount());
+        //没有变化时不重新计算
+        assertFalse(engine.update());
+    }
+
+    @Test
+    public void bridgeMatchesStickyGeometry() throws Exception {
+        MetaballEngine engine = new MetaballEngine(50, 300, 4);
+        int a = engine.addBlob(0, 0, 50);
+        int b = engine.addBlob(150, 0, 40);
+        engine.update();
+
+        float scale = 1 - 150f / 300;
+        float[] expected = new float[StickyGeometry.BRIDGE_SIZE];
+        StickyGeometry.calculateBezierCurve(engine.getX(a), engine.getY(a), 50 * scale,
+                engine.getX(b), engine.getY(b), 40 * scale, expected);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], engine.bridges[i], 0.0001f);
+        }
+    }
+
+    @Test
+    public void pointersReuseFreedSlots() throws Exception {
+        MetaballEngine engine = new MetaballEngine(50, 300, 2);
+        int first = engine.pointerDown(0, 10, 10);
+        engine.pointerDown(1, 20, 20);
+        engine.pointerMove(1, 30, 40);
+        assertEquals(30, engine.getX(engine.findPointer(1)), 0);
+
+        engine.pointerUp(0);
+        assertEquals(-1, engine.findPointer(0));
+        assertEquals(first, engine.pointerDown(5, 0, 0));
+        assertEquals(2, engine.getBlobCount());
+        assertEquals(2, engine.getSlotCount());
+    }
+
+    @Test
+    public void matchesBruteForcePairs() throws Exception {
+        Random random = new Random(15);
+        MetaballEngine engine = new MetaballEngine(30, 120, 8);
+        float[] xs = new float[200];
+        float[] ys = new float[200];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextFloat() * 2000 - 1000;
+            ys[i] = random.nextFloat() * 2000 - 1000;
+            engine.addBlob(xs[i], ys[i], 30);
+        }
+
+        int expected = 0;
+        for (int i = 0; i < xs.length; i++) {
+            for (int j = i + 1; j < xs.length; j++) {
+                float dx = xs[i] - xs[j];
+                float dy = ys[i] - ys[j];
+                float distance = (float) Math.sqrt(dx * dx + dy * dy);
+                if (distance > 0 && distance < 120) expected++;
+            }
+        }
+        engine.update();
+        assertEquals(expected, engine.getBridgeCount());
+    }
+
+    @Test
+    public void gridQueryFindsEachHandleOnce() throws Exception {
+        //只有16个桶，很多格子会哈希到同一个桶
+        HandleGrid grid = new HandleGrid(10, 1);
+        for (int i = 0; i < 100; i++) {
+            grid.add(i * 3, i * 7 % 50);
+        }
+        int[] out = new int[100];
+        int found = grid.query(150, 25, 40, out);
+
+        int expected = 0;
+        for (int i = 0; i < 100; i++) {
+            float dx = grid.getX(i) - 150;
+            float dy = grid.getY(i) - 25;
+            if (dx * dx + dy * dy <= 40 * 40) expected++;
+        }
+        assertEquals(expected, found);
+        for (int i = 0; i < found; i++) {
+            for (int j = i + 1; j < found; j++) {
+                assertNotEquals(out[i], out[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * PathLengthTable的本地单元测试，不依赖android.graphics
+ */
+public class PathLengthTableTest {
+    private static final float DELTA = 1e-3f;
+
+    @Test
+    public void lineLengthAndPosTan() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.moveTo(0, 0);
+        table.lineTo(30, 40);
+        table.lineTo(30, 0);
+
+        assertEquals(90f, table.getLength(), DELTA);
+
+        float[] pos = new float[2];
+        float[] tan = new float[2];
+        assertTrue(table.getPosTan(25, pos, tan));
+        assertEquals(15f, pos[0], DELTA);
+        assertEquals(20f, pos[1], DELTA);
+        assertEquals(0.6f, tan[0], DELTA);
+        assertEquals(0.8f, tan[1], DELTA);
+
+        table.getPosTan(70, pos, tan);
+        assertEquals(30f, pos[0], DELTA);
+        assertEquals(20f, pos[1], DELTA);
+        assertEquals(0f, tan[0], DELTA);
+        assertEquals(-1f, tan[1], DELTA);
+    }
+
+    @Test
+    public void posTanClampsDistance() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.moveTo(0, 0);
+        table.lineTo(10, 0);
+
+        float[] pos = new float[2];
+        table.getPosTan(-5, pos, null);
+        assertEquals(0f, pos[0], DELTA);
+        table.getPosTan(50, pos, null);
+        assertEquals(10f, pos[0], DELTA);
+    }
+
+    @Test
+    public void arcLengthMatchesCircumference() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.addArc(0, 0, 100, 45, -359.9f);
+
+        double expected = 2 * Math.PI * 100 * 359.9 / 360;
+        //每段2度的折线比真实圆弧略短，误差在万分之一以内
+        assertEquals(expected, table.getLength(), expected * 1e-4);
+
+        float[] pos = new float[2];
+        table.getPosTan(0, pos, null);
+        assertEquals(100 * Math.cos(Math.PI / 4), pos[0], DELTA);
+        assertEquals(100 * Math.sin(Math.PI / 4), pos[1], DELTA);
+    }
+
+    @Test
+    public void arcPointsStayOnCircle() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.addArc(10, 20, 30, 0, 359.9f);
+
+        float[] pos = new float[2];
+        float[] tan = new float[2];
+        for (int i = 0; i <= 100; i++) {
+            table.getPosTan(table.getLength() * i / 100, pos, tan);
+            double r = Math.hypot(pos[0] - 10, pos[1] - 20);
+            assertEquals(30, r, 0.02);
+            //顺时针的圆弧，切线和半径方向垂直
+            double dot = (pos[0] - 10) * tan[0] + (pos[1] - 20) * tan[1];
+            assertEquals(0, dot / r, 0.02);
+            assertEquals(1f, (float) Math.hypot(tan[0], tan[1]), DELTA);
+        }
+    }
+
+    @Test
+    public void segmentEndpointsAreInterpolated() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.moveTo(0, 0);
+        table.lineTo(10, 0);
+        table.lineTo(10, 10);
+
+        float[] out = new float[table.getMaxSegmentSize()];
+        int count = table.getSegment(5, 15, out);
+        assertEquals(3, count);
+        assertArrayEquals(new float[]{5, 0, 10, 0, 10, 5}, java.util.Arrays.copyOf(out, count * 2), DELTA);
+    }
+
+    @Test
+    public void segmentFollowsPathMeasureClamping() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.addArc(0, 0, 50, 0, 180);
+        float[] out = new float[table.getMaxSegmentSize()];
+
+        assertEquals(0, table.getSegment(20, 20, out));
+        assertEquals(0, table.getSegment(30, 10, out));
+
+        int count = table.getSegment(-100, table.getLength() + 100, out);
+        assertEquals(table.getPointCount(), count);
+        assertEquals(50f, out[0], DELTA);
+        assertEquals(0f, out[1], DELTA);
+        assertEquals(-50f, out[count * 2 - 2], DELTA);
+        assertEquals(0f, out[count * 2 - 1], DELTA);
+    }
+
+    @Test
+    public void segmentLengthMatchesRequest() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.addArc(0, 0, 30, 0, 359.9f);
+        float[] out = new float[table.getMaxSegmentSize()];
+
+        int count = table.getSegment(17.3f, 101.9f, out);
+        float length = 0;
+        for (int i = 1; i < count; i++) {
+            length += Math.hypot(out[i * 2] - out[i * 2 - 2], out[i * 2 + 1] - out[i * 2 - 1]);
+        }
+        assertEquals(101.9f - 17.3f, length, DELTA);
+    }
+
+    @Test
+    public void emptyTableAnswersNothing() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        assertEquals(0f, table.getLength(), 0);
+        assertFalse(table.getPosTan(0, new float[2], null));
+        assertEquals(0, table.getSegment(0, 1, new float[2]));
+        assertFalse(table.getBounds(new float[4]));
+    }
+
+    @Test
+    public void boundsCoverAllPoints() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.addArc(10, 20, 30, 0, 359.9f);
+        table.lineTo(100, 20);
+        float[] bounds = new float[4];
+        assertTrue(table.getBounds(bounds));
+        assertEquals(-20f, bounds[0], DELTA);
+        assertEquals(-10f, bounds[1], DELTA);
+        assertEquals(100f, bounds[2], 0);
+        assertEquals(50f, bounds[3], DELTA);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void secondContourIsRejected() throws Exception {
+        PathLengthTable table = new PathLengthTable();
+        table.moveTo(0, 0);
+        table.lineTo(1, 1);
+        table.moveTo(2, 2);
+    }
+}
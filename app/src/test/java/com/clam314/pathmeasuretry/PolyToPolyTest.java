@@ -0,0 +1,105 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PolyToPoly的本地单元测试
+ */
+public class PolyToPolyTest {
+    private static final float[] SRC = {0, 0, 400, 0, 400, 300, 0, 300};
+
+    @Test
+    public void mapsEverySourcePointToDestination() throws Exception {
+        float[] dst = {20, 10, 380, 40, 420, 330, -10, 280};
+        PolyToPoly solver = new PolyToPoly();
+        float[] matrix = new float[PolyToPoly.MATRIX_SIZE];
+        float[] mapped = new float[8];
+        for (int count = 1; count <= 4; count++) {
+            assertTrue(solver.setPolyToPoly(SRC, 0, dst, 0, count, matrix));
+            PolyToPoly.mapPoints(matrix, mapped, 0, SRC, 0, count);
+            //2个点时只有旋转和缩放，第二个点只能保证方向和距离
+            int exact = count == 2 ? 1 : count;
+            for (int i = 0; i < exact * 2; i++) {
+                assertEquals("count " + count + " index " + i, dst[i], mapped[i], 0.01f);
+            }
+        }
+    }
+
+    @Test
+    public void twoPointsKeepSimilarity() throws Exception {
+        float[] src = {0, 0, 100, 0};
+        float[] dst = {10, 10, 10, 210};
+        float[] matrix = new float[PolyToPoly.MATRIX_SIZE];
+        assertTrue(new PolyToPoly().setPolyToPoly(src, 0, dst, 0, 2, matrix));
+
+        float[] mapped = new float[4];
+        PolyToPoly.mapPoints(matrix, mapped, 0, src, 0, 2);
+        assertArrayEquals(dst, mapped, 0.001f);
+    }
+
+    @Test
+    public void zeroPointsIsIdentity() throws Exception {
+        float[] matrix = new float[PolyToPoly.MATRIX_SIZE];
+        assertTrue(new PolyToPoly().setPolyToPoly(SRC, 0, SRC, 0, 0, matrix));
+        assertArrayEquals(new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, matrix, 0);
+    }
+
+    @Test
+    public void collinearPointsFailWithoutTouchingOutput() throws Exception {
+        float[] src = {0, 0, 100, 100, 200, 200};
+        float[] matrix = {7, 7, 7, 7, 7, 7, 7, 7, 7};
+        assertFalse(new PolyToPoly().setPolyToPoly(src, 0, SRC, 0, 3, matrix));
+        assertArrayEquals(new float[]{7, 7, 7, 7, 7, 7, 7, 7, 7}, matrix, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void moreThanFourPointsThrows() throws Exception {
+        new PolyToPoly().setPolyToPoly(new float[10], 0, new float[10], 0, 5, new float[9]);
+    }
+
+    @Test
+    public void invertThenConcatIsIdentity() throws Exception {
+        float[] dst = {20, 10, 380, 40, 420, 330, -10, 280};
+        float[] matrix = new float[PolyToPoly.MATRIX_SIZE];
+        float[] inverse = new float[PolyToPoly.MATRIX_SIZE];
+        float[] product = new float[PolyToPoly.MATRIX_SIZE];
+        assertTrue(new PolyToPoly().setPolyToPoly(SRC, 0, dst, 0, 4, matrix));
+        assertTrue(PolyToPoly.invert(matrix, inverse));
+        PolyToPoly.concat(matrix, inverse, product);
+        //透视矩阵的最后一项不一定是1，按它归一化后比较
+        for (int i = 0; i < PolyToPoly.MATRIX_SIZE; i++) {
+            product[i] /= product[PolyToPoly.MPERSP_2];
+        }
+        assertArrayEquals(new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, product, 0.0001f);
+    }
+
+    @Test
+    public void batchedMappingMatchesSinglePoints() throws Exception {
+        float[] dst = {20, 10, 380, 40, 420, 330, -10, 280};
+        float[] matrix = new float[PolyToPoly.MATRIX_SIZE];
+        assertTrue(new PolyToPoly().setPolyToPoly(SRC, 0, dst, 0, 4, matrix));
+
+        Random random = new Random(12);
+        int count = 1000;
+        float[] points = new float[count * 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextFloat() * 400;
+        }
+        float[] batched = new float[points.length];
+        PolyToPoly.mapPoints(matrix, batched, 0, points, 0, count);
+
+        //原地映射和逐个映射的结果应该一致
+        float[] single = new float[2];
+        for (int i = 0; i < count; i++) {
+            PolyToPoly.mapPoints(matrix, single, 0, points, i * 2, 1);
+            assertEquals(single[0], batched[i * 2], 0);
+            assertEquals(single[1], batched[i * 2 + 1], 0);
+        }
+        PolyToPoly.mapPoints(matrix, points, 0, points, 0, count);
+        assertArrayEquals(batched, points, 0);
+    }
+}
@@ -0,0 +1,148 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.awt.geom.PathIterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * QualityGovernor按绘制耗时降级、升级以及粗糙折线取样的本地单元测试
+ */
+public class QualityGovernorTest {
+    private static final long BUDGET = QualityGovernor.DEFAULT_BUDGET_NANOS;
+    private static final long FAST = BUDGET / 4;
+    private static final long SLOW = BUDGET * 2;
+
+    //一直记录同一个耗时，返回等级第一次变化前记录的帧数，没有变化返回-1
+    private static int recordUntilChange(QualityGovernor governor, long nanos, int maxFrames) {
+        for (int i = 1; i <= maxFrames; i++) {
+            if (governor.record(nanos)) return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void fastFramesKeepFullQuality() throws Exception {
+        QualityGovernor governor = new QualityGovernor(BUDGET, QualityGovernor.LEVEL_ATLAS);
+        assertEquals(-1, recordUntilChange(governor, FAST, 1000));
+        assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+        //偶尔一帧超时不会降级
+        for (int i = 0; i < 100; i++) {
+            assertFalse(governor.record(i % QualityGovernor.WINDOW == 0 ? SLOW : FAST));
+        }
+    }
+
+    @Test
+    public void missesStepDownOneLevelAtATime() throws Exception {
+        QualityGovernor governor = new QualityGovernor(BUDGET, QualityGovernor.LEVEL_ATLAS);
+        for (int level = 1; level <= QualityGovernor.LEVEL_ATLAS; level++) {
+            assertEquals(QualityGovernor.MISS_LIMIT, recordUntilChange(governor, SLOW, 1000));
+            assertEquals(level, governor.getLevel());
+        }
+        //已经是最低等级
+        assertEquals(-1, recordUntilChange(governor, SLOW, 1000));
+    }
+
+    @Test
+    public void maxLevelLimitsStepDown() throws Exception {
+        QualityGovernor governor = new QualityGovernor(BUDGET, QualityGovernor.LEVEL_COARSE);
+        recordUntilChange(governor, SLOW, 1000);
+        recordUntilChange(governor, SLOW, 1000);
+        assertEquals(QualityGovernor.LEVEL_COARSE, governor.getLevel());
+        assertEquals(-1, recordUntilChange(governor, SLOW, 1000));
+    }
+
+    @Test
+    public void headroomStepsBackUp() throws Exception {
+        QualityGovernor governor = new QualityGovernor(BUDGET, QualityGovernor.LEVEL_ATLAS);
+        recordUntilChange(governor, SLOW, 1000);
+        recordUntilChange(governor, SLOW, 1000);
+        assertEquals(QualityGovernor.LEVEL_NO_ANTI_ALIAS + 1, governor.getLevel());
+        //预算的一半以内但不够快的帧不算余量
+        assertEquals(-1, recordUntilChange(governor, BUDGET * 3 / 4, 1000));
+        assertEquals(QualityGovernor.WINDOW, recordUntilChange(governor, FAST, 1000));
+        assertEquals(QualityGovernor.LEVEL_NO_ANTI_ALIAS, governor.getLevel());
+        assertEquals(QualityGovernor.WINDOW, recordUntilChange(governor, FAST, 1000));
+        assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+    }
+
+    @Test
+    public void oscillationBacksOffUpgrades() throws Exception {
+        QualityGovernor governor = new QualityGovernor(BUDGET, QualityGovernor.LEVEL_ATLAS);
+        recordUntilChange(governor, SLOW, 1000);
+        int wait = QualityGovernor.WINDOW;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(wait, recordUntilChange(governor, FAST, 10000));
+            assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+            //升级后马上又超时，下次升级等待的帧数翻倍
+            recordUntilChange(governor, SLOW, 1000);
+            assertEquals(QualityGovernor.LEVEL_NO_ANTI_ALIAS, governor.getLevel());
+            wait *= 2;
+        }
+        assertEquals(wait, recordUntilChange(governor, FAST, 10000));
+
+        governor.reset();
+        assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+        recordUntilChange(governor, SLOW, 1000);
+        assertEquals(QualityGovernor.WINDOW, recordUntilChange(governor, FAST, 10000));
+    }
+
+    @Test
+    public void repeatedOscillationKeepsRetryingAtCap() throws Exception {
+        QualityGovernor governor = new QualityGovernor(BUDGET, QualityGovernor.LEVEL_ATLAS);
+        recordUntilChange(governor, SLOW, 1000);
+        int wait = QualityGovernor.WINDOW;
+        while (wait < QualityGovernor.MAX_UPGRADE_WINDOW) {
+            assertEquals(wait, recordUntilChange(governor, FAST, 10000));
+            recordUntilChange(governor, SLOW, 1000);
+            wait *= 2;
+        }
+        //等待已经到上限还是来回切换，之后按上限的间隔一直尝试升级
+        for (int i = 0; i < 3; i++) {
+            assertEquals(QualityGovernor.MAX_UPGRADE_WINDOW, recordUntilChange(governor, FAST, 100000));
+            assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+            recordUntilChange(governor, SLOW, 1000);
+            assertEquals(QualityGovernor.LEVEL_NO_ANTI_ALIAS, governor.getLevel());
+        }
+
+        governor.reset();
+        recordUntilChange(governor, SLOW, 1000);
+        assertEquals(QualityGovernor.WINDOW, recordUntilChange(governor, FAST, 10000));
+    }
+
+    @Test
+    public void coarsePolylineKeepsEndpoints() throws Exception {
+        PathLengthTable table = MeasuredPathRegistry.arc(0, 0, 100, 45, -359.9f);
+        float[] points = new float[table.getMaxSegmentSize()];
+        int count = table.getSegment(0, table.getLength(), points);
+
+        AwtPathSink fine = new AwtPathSink();
+        SegmentCache.setPolyline(fine, points, count);
+        AwtPathSink coarse = new AwtPathSink();
+        SegmentCache.setPolyline(coarse, points, count, 2);
+
+        float[] fineLast = lastPoint(fine);
+        float[] coarseLast = lastPoint(coarse);
+        assertEquals(count, countPoints(fine));
+        assertEquals(count / 2 + 1, countPoints(coarse));
+        assertEquals(fineLast[0], coarseLast[0], 0f);
+        assertEquals(fineLast[1], coarseLast[1], 0f);
+    }
+
+    private static int countPoints(AwtPathSink sink) {
+        int count = 0;
+        for (PathIterator it = sink.path.getPathIterator(null); !it.isDone(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static float[] lastPoint(AwtPathSink sink) {
+        float[] coords = new float[6];
+        for (PathIterator it = sink.path.getPathIterator(null); !it.isDone(); it.next()) {
+            it.currentSegment(coords);
+        }
+        return coords;
+    }
+}
@@ -0,0 +1,146 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ReloadPipeline的本地单元测试，回调直接在执行任务的线程里跑
+ */
+public class ReloadPipelineTest {
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final List<Boolean> finished = new ArrayList<>();
+    private final List<Throwable> errors = new ArrayList<>();
+    private final ReloadPipeline.Callback callback = new ReloadPipeline.Callback() {
+        @Override
+        public void onReloadFinished(ReloadPipeline.Handle handle, boolean cancelled, Throwable error) {
+            synchronized (finished) {
+                errors.add(error);
+                finished.add(cancelled);
+                finished.notifyAll();
+            }
+        }
+    };
+
+    @Test
+    public void duplicateTriggersAreCoalesced() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final int[] runs = new int[1];
+        Runnable work = new Runnable() {
+            @Override
+            public void run() {
+                runs[0]++;
+                await(release);
+            }
+        };
+        ReloadPipeline pipeline = new ReloadPipeline(null, DIRECT);
+        ReloadPipeline.Handle first = pipeline.submit(work, callback);
+        assertSame(first, pipeline.submit(work, callback));
+        assertSame(first, pipeline.getCurrent());
+
+        release.countDown();
+        waitForFinished(1);
+        assertEquals(1, runs[0]);
+        assertFalse(finished.get(0));
+        assertNull(errors.get(0));
+        assertNull(pipeline.getCurrent());
+
+        //上一个结束后可以再次触发
+        assertNotSame(first, pipeline.submit(work, callback));
+    }
+
+    @Test
+    public void cancelInterruptsRunningWork() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        ReloadPipeline pipeline = new ReloadPipeline(null, DIRECT);
+        ReloadPipeline.Handle handle = pipeline.submit(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        }, callback);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        handle.cancel();
+        waitForFinished(1);
+        assertTrue(handle.isCancelled());
+        assertTrue(finished.get(0));
+        //done()可能比任务里的catch先执行，等一下被中断的任务
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failureIsReported() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("network down");
+        ReloadPipeline pipeline = new ReloadPipeline(null, DIRECT);
+        pipeline.submit(new Runnable() {
+            @Override
+            public void run() {
+                throw failure;
+            }
+        }, callback);
+
+        waitForFinished(1);
+        //抛出异常不算取消，异常原样传给回调
+        assertFalse(finished.get(0));
+        assertSame(failure, errors.get(0));
+    }
+
+    @Test
+    public void customExecutorIsUsed() throws Exception {
+        final List<Runnable> queued = new ArrayList<>();
+        ReloadPipeline pipeline = new ReloadPipeline(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        }, DIRECT);
+        ReloadPipeline.Handle handle = pipeline.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, callback);
+
+        assertEquals(1, queued.size());
+        assertFalse(handle.isDone());
+        queued.get(0).run();
+        assertTrue(handle.isDone());
+        assertEquals(1, finished.size());
+    }
+
+    private void waitForFinished(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        synchronized (finished) {
+            while (finished.size() < count && System.currentTimeMillis() < deadline) {
+                finished.wait(100);
+            }
+        }
+        assertEquals(count, finished.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
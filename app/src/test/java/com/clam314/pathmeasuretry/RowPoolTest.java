@@ -0,0 +1,86 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RowPool给多行派发帧、没有行时停住时钟的本地单元测试
+ */
+public class RowPoolTest {
+    private static final long FRAME = ManualAnimationClock.DEFAULT_FRAME_INTERVAL;
+
+    private static class RecordingRow implements RowPool.Row {
+        final List<Long> frames = new ArrayList<>();
+
+        @Override
+        public void onPoolFrame(long now) {
+            frames.add(now);
+        }
+    }
+
+    @Test
+    public void oneTickerDrivesAllRows() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock();
+        FrameScheduler scheduler = new FrameScheduler(base);
+        RowPool pool = new RowPool(scheduler);
+        RecordingRow[] rows = new RecordingRow[20];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new RecordingRow();
+            pool.register(rows[i]);
+        }
+        //重复登记只算一次
+        pool.register(rows[0]);
+        assertEquals(rows.length, pool.getActiveRowCount());
+        //整个池在调度器上只有一个请求
+        assertEquals(1, scheduler.getRequestedCount());
+
+        base.advance(10 * FRAME, FRAME);
+        for (RecordingRow row : rows) {
+            assertEquals(rows[0].frames, row.frames);
+        }
+        assertFalse(rows[0].frames.isEmpty());
+    }
+
+    @Test
+    public void clockStopsWithoutRows() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock(1000);
+        RowPool pool = new RowPool(new FrameScheduler(base));
+        RecordingRow row = new RecordingRow();
+        pool.register(row);
+        base.advance(5 * FRAME, FRAME);
+        long before = pool.now();
+
+        pool.unregister(row);
+        assertEquals(0, pool.getActiveRowCount());
+        assertFalse(base.hasPendingFrame());
+        //没有行在动画时池的时间不走，重新登记后接着之前的时间
+        base.skip(5000);
+        assertEquals(before, pool.now());
+        pool.register(row);
+        base.step(FRAME);
+        assertTrue(pool.now() - before <= FRAME);
+    }
+
+    @Test
+    public void rowCanUnregisterOthersDuringDispatch() throws Exception {
+        ManualAnimationClock base = new ManualAnimationClock();
+        final RowPool pool = new RowPool(new FrameScheduler(base));
+        final RecordingRow second = new RecordingRow();
+        RowPool.Row first = new RowPool.Row() {
+            @Override
+            public void onPoolFrame(long now) {
+                pool.unregister(second);
+            }
+        };
+        pool.register(first);
+        pool.register(second);
+        base.advance(5 * FRAME, FRAME);
+        //第一行在同一帧里移除了第二行，第二行不会再收到帧
+        assertTrue(second.frames.isEmpty());
+        assertEquals(1, pool.getActiveRowCount());
+    }
+}
@@ -0,0 +1,85 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SearchTimeline的本地单元测试
+ */
+public class SearchTimelineTest {
+    private static final long DURATION = 1000;
+
+    @Test
+    public void walksThroughAllStates() throws Exception {
+        SearchTimeline timeline = new SearchTimeline(DURATION, 2);
+
+        assertState(timeline, 0, SearchView.State.STARING, 0f);
+        assertState(timeline, 500, SearchView.State.STARING, 0.5f);
+        assertState(timeline, 1000, SearchView.State.SEARCHING, 0f);
+        assertState(timeline, 1250, SearchView.State.SEARCHING, 0.25f);
+        assertState(timeline, 2250, SearchView.State.SEARCHING, 0.25f);
+        assertState(timeline, 3000, SearchView.State.ENDING, 0f);
+        assertState(timeline, 3999, SearchView.State.ENDING, 0.999f);
+
+        assertFalse(timeline.update(4000));
+        assertEquals(SearchView.State.NONE, timeline.getState());
+
+        //每个阶段都先加速后减速，前四分之一走得比线性慢
+        timeline.update(250);
+        assertTrue(timeline.getProgress() < 0.25f);
+    }
+
+    @Test
+    public void zeroLoopsSkipsSearching() throws Exception {
+        SearchTimeline timeline = new SearchTimeline(DURATION, 0);
+        assertState(timeline, 1000, SearchView.State.ENDING, 0f);
+    }
+
+    @Test
+    public void infiniteLoopsUntilStopRequested() throws Exception {
+        SearchTimeline timeline = new SearchTimeline(DURATION, SearchTimeline.LOOP_INFINITE);
+        assertState(timeline, 100000 + 300, SearchView.State.SEARCHING, 0.3f);
+
+        //收到停止信号后跑完当前这一圈
+        timeline.requestStop(100000 + 300);
+        assertState(timeline, 100000 + 999, SearchView.State.SEARCHING, 0.999f);
+        assertState(timeline, 101000, SearchView.State.ENDING, 0f);
+        assertFalse(timeline.update(102000));
+    }
+
+    @Test
+    public void stopDuringStartingStillSearchesOnce() throws Exception {
+        SearchTimeline timeline = new SearchTimeline(DURATION, SearchTimeline.LOOP_INFINITE);
+        timeline.requestStop(200);
+        assertState(timeline, 1500, SearchView.State.SEARCHING, 0.5f);
+        assertState(timeline, 2000, SearchView.State.ENDING, 0f);
+    }
+
+    @Test
+    public void stopNeverExtendsConfiguredLoops() throws Exception {
+        SearchTimeline timeline = new SearchTimeline(DURATION, 1);
+        timeline.requestStop(5000);
+        assertState(timeline, 2000, SearchView.State.ENDING, 0f);
+    }
+
+    @Test
+    public void resetClearsStopSignal() throws Exception {
+        SearchTimeline timeline = new SearchTimeline(DURATION, 3);
+        timeline.requestStop(0);
+        timeline.reset();
+        assertState(timeline, 3500, SearchView.State.SEARCHING, 0.5f);
+    }
+
+    //progress为线性的进度，插值后再比较
+    private static void assertState(SearchTimeline timeline, long elapsed, SearchView.State state, float progress) {
+        assertTrue(timeline.update(elapsed));
+        assertEquals(state, timeline.getState());
+        assertEquals(eased(progress), timeline.getProgress(), 1e-4f);
+    }
+
+    //ValueAnimator默认的AccelerateDecelerateInterpolator
+    private static float eased(float linear) {
+        return (float) (Math.cos((linear + 1) * Math.PI) / 2 + 0.5);
+    }
+}
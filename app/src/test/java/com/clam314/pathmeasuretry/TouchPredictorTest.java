@@ -0,0 +1,144 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * TouchPredictor外推和可信度限制的本地单元测试
+ */
+public class TouchPredictorTest {
+    private static final float MAX_OFFSET = 200;
+    private static final long INTERVAL = 8;
+
+    @Test
+    public void noSamplesNoPrediction() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(MAX_OFFSET);
+        float[] out = {-1, -1};
+        assertFalse(predictor.predict(100, out));
+        assertArrayEquals(new float[]{-1, -1}, out, 0);
+
+        predictor.addSample(100, 10, 20);
+        assertTrue(predictor.predict(116, out));
+        assertArrayEquals(new float[]{10, 20}, out, 0);
+    }
+
+    @Test
+    public void constantVelocityIsExtrapolated() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(MAX_OFFSET);
+        //0.5px/ms向右下方移动
+        for (int i = 0; i < 8; i++) {
+            predictor.addSample(i * INTERVAL, 100 + i * INTERVAL * 0.5f, 50 + i * INTERVAL * 0.25f);
+        }
+        long newest = 7 * INTERVAL;
+        float[] out = new float[2];
+        predictor.predict(newest + 16, out);
+        assertEquals(0.5f, predictor.getVelocityX(), 1e-4f);
+        assertEquals(0.25f, predictor.getVelocityY(), 1e-4f);
+        assertEquals(1f, predictor.getConfidence(), 1e-3f);
+        assertEquals(100 + newest * 0.5f + 8, out[0], 0.05f);
+        assertEquals(50 + newest * 0.25f + 4, out[1], 0.05f);
+    }
+
+    @Test
+    public void constantAccelerationIsExtrapolated() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(MAX_OFFSET);
+        float accel = 0.01f;
+        for (int i = 0; i < 8; i++) {
+            float t = i * INTERVAL;
+            predictor.addSample(i * INTERVAL, 0.2f * t + accel / 2 * t * t, 0);
+        }
+        float newest = 7 * INTERVAL;
+        float target = newest + 16;
+        float[] out = new float[2];
+        predictor.predict((long) target, out);
+        assertEquals(accel, predictor.getAccelerationX(), 1e-4f);
+        assertEquals(0.2f * target + accel / 2 * target * target, out[0], 0.1f);
+    }
+
+    @Test
+    public void horizonAndOffsetAreClamped() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(10);
+        for (int i = 0; i < 8; i++) {
+            predictor.addSample(i * INTERVAL, i * INTERVAL * 0.1f, 0);
+        }
+        float newest = 7 * INTERVAL * 0.1f;
+        float[] out = new float[2];
+        //预测时间超过上限，只外推MAX_HORIZON_MILLIS
+        predictor.predict(7 * INTERVAL + 1000, out);
+        assertEquals(newest + TouchPredictor.MAX_HORIZON_MILLIS * 0.1f, out[0], 0.05f);
+
+        //速度很快时位移被限制在maxOffset
+        predictor.reset();
+        for (int i = 0; i < 8; i++) {
+            predictor.addSample(i * INTERVAL, i * INTERVAL * 5f, i * INTERVAL * 5f);
+        }
+        predictor.predict(7 * INTERVAL + 16, out);
+        float dx = out[0] - 7 * INTERVAL * 5f;
+        float dy = out[1] - 7 * INTERVAL * 5f;
+        assertEquals(10f, (float) Math.sqrt(dx * dx + dy * dy), 1e-3f);
+    }
+
+    @Test
+    public void jitterLowersConfidence() throws Exception {
+        Random random = new Random(314);
+        TouchPredictor smooth = new TouchPredictor(MAX_OFFSET);
+        TouchPredictor noisy = new TouchPredictor(MAX_OFFSET);
+        for (int i = 0; i < 8; i++) {
+            float x = i * INTERVAL * 0.5f;
+            smooth.addSample(i * INTERVAL, x, 0);
+            noisy.addSample(i * INTERVAL, x + (random.nextFloat() - 0.5f) * 12, (random.nextFloat() - 0.5f) * 12);
+        }
+        float[] out = new float[2];
+        smooth.predict(7 * INTERVAL + 16, out);
+        noisy.predict(7 * INTERVAL + 16, out);
+        assertTrue(noisy.getConfidence() < smooth.getConfidence() * 0.5f);
+    }
+
+    @Test
+    public void stoppingFingerIsNotOvershot() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(MAX_OFFSET);
+        //减速到最后一个点时速度接近0
+        float[] xs = {0, 30, 52, 66, 74, 78, 79.5f, 80};
+        for (int i = 0; i < xs.length; i++) {
+            predictor.addSample(i * INTERVAL, xs[i], 0);
+        }
+        float[] out = new float[2];
+        predictor.predict((xs.length - 1) * INTERVAL + 16, out);
+        //拟合出的速度反向时不外推，拉出的圆不会往回甩
+        assertTrue(out[0] >= 80);
+        assertTrue(out[0] < 90);
+    }
+
+    @Test
+    public void ringBufferKeepsNewestSamples() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(MAX_OFFSET);
+        //先向左移动很久，再向右移动；窗口和缓冲里只剩下向右的点
+        long time = 0;
+        for (int i = 0; i < 100; i++, time += INTERVAL) {
+            predictor.addSample(time, 1000 - i * 4, 0);
+        }
+        for (int i = 0; i < 10; i++, time += INTERVAL) {
+            predictor.addSample(time, 600 + i * 4, 0);
+        }
+        assertEquals(TouchPredictor.CAPACITY, predictor.getSampleCount());
+        float[] out = new float[2];
+        predictor.predict(time - INTERVAL + 16, out);
+        assertEquals(0.5f, predictor.getVelocityX(), 1e-3f);
+        assertEquals(636 + 8, out[0], 0.1f);
+    }
+
+    @Test
+    public void timeGoingBackwardsStartsNewGesture() throws Exception {
+        TouchPredictor predictor = new TouchPredictor(MAX_OFFSET);
+        predictor.addSample(100, 0, 0);
+        predictor.addSample(108, 4, 0);
+        //同一时间的点覆盖上一个点
+        predictor.addSample(108, 5, 0);
+        assertEquals(2, predictor.getSampleCount());
+        predictor.addSample(50, 9, 9);
+        assertEquals(1, predictor.getSampleCount());
+    }
+}
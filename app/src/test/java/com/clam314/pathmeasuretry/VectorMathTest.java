@@ -0,0 +1,73 @@
+package com.clam314.pathmeasuretry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * VectorMath的精度测试，和Math的double结果比较
+ */
+public class VectorMathTest {
+
+    @Test
+    public void invSqrtRelativeError() throws Exception {
+        Random random = new Random(16);
+        for (int i = 0; i < 100000; i++) {
+            //覆盖1e-6到1e8的范围
+            float x = (float) Math.pow(10, random.nextDouble() * 14 - 6);
+            double expected = 1 / Math.sqrt(x);
+            assertEquals("x=" + x, 0, (VectorMath.invSqrt(x) - expected) / expected, 1e-5);
+        }
+    }
+
+    @Test
+    public void distanceMatchesMath() throws Exception {
+        Random random = new Random(16);
+        for (int i = 0; i < 10000; i++) {
+            float x1 = random.nextFloat() * 2000 - 1000;
+            float y1 = random.nextFloat() * 2000 - 1000;
+            float x2 = random.nextFloat() * 2000 - 1000;
+            float y2 = random.nextFloat() * 2000 - 1000;
+            double expected = Math.hypot(x2 - x1, y2 - y1);
+            assertEquals(expected, VectorMath.dist(x1, y1, x2, y2), expected * 1e-5);
+        }
+        assertEquals(0, VectorMath.dist(3, 4, 3, 4), 0);
+        assertEquals(25, VectorMath.dist2(new float[]{0, 0, 3, 4}, 0, 1), 0);
+    }
+
+    @Test
+    public void directionIsUnitVector() throws Exception {
+        float[] out = {7, 7, 0, 0};
+        assertEquals(5, VectorMath.direction(1, 1, 4, 5, out, 2), 1e-4f);
+        assertEquals(0.6f, out[2], 1e-5f);
+        assertEquals(0.8f, out[3], 1e-5f);
+
+        assertEquals(0, VectorMath.direction(1, 1, 1, 1, out, 0), 0);
+        assertEquals(7, out[0], 0);
+    }
+
+    @Test
+    public void sinAndCosAbsoluteError() throws Exception {
+        for (int i = -200000; i <= 200000; i++) {
+            float x = i * 0.0005f;
+            assertEquals("sin " + x, Math.sin(x), VectorMath.sin(x), 1e-5);
+            assertEquals("cos " + x, Math.cos(x), VectorMath.cos(x), 1e-5);
+        }
+    }
+
+    @Test
+    public void atan2AbsoluteError() throws Exception {
+        Random random = new Random(16);
+        for (int i = 0; i < 100000; i++) {
+            float y = random.nextFloat() * 2 - 1;
+            float x = random.nextFloat() * 2 - 1;
+            assertEquals("atan2 " + y + "," + x, Math.atan2(y, x), VectorMath.atan2(y, x), 2e-5);
+        }
+        assertEquals(Math.PI / 2, VectorMath.atan2(1, 0), 2e-5);
+        assertEquals(Math.PI, VectorMath.atan2(0, -1), 2e-5);
+        assertEquals(-Math.PI / 2, VectorMath.atan2(-1, 0), 2e-5);
+        assertEquals(0, VectorMath.atan2(0, 0), 0);
+    }
+}
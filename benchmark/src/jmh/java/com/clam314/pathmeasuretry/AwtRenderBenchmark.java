@@ -0,0 +1,62 @@
+package com.clam314.pathmeasuretry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过AwtPathSink在JVM上抗锯齿填充PierreBezierCircleView的一帧，包括关键帧插值、生成路径和光栅化
+ * 运行：./gradlew :benchmark:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AwtRenderBenchmark {
+    private static final int SIZE = 240;
+    private static final int FRAMES = 2000;
+
+    private BezierCircleKeyframes keyframes;
+    private float[] points;
+    private AwtPathSink sink;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        keyframes = BezierCircleKeyframes.forRadius(80);
+        points = new float[BezierCircleModel.POINT_SIZE];
+        sink = new AwtPathSink();
+        image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.translate(SIZE / 2, SIZE / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage fillBezierFrame() {
+        //每次取下一帧，整段动画循环
+        frame = (frame + 1) % FRAMES;
+        keyframes.sample((float) frame / FRAMES, 0, points);
+        sink.reset();
+        BezierCircleModel.buildPath(points, sink);
+        graphics.fill(sink.path);
+        return image;
+    }
+}
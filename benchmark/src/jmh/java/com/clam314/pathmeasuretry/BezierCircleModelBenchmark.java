@@ -0,0 +1,72 @@
+package com.clam314.pathmeasuretry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PierreBezierCircleView每帧的model1~model5计算，每个阶段取中间的时间点，
+ * 以及烘焙成关键帧表之后的插值
+ * 运行：./gradlew :benchmark:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BezierCircleModelBenchmark {
+    @Param({"50"})
+    private float radius;
+
+    private BezierCircleModel model;
+    private BezierCircleKeyframes keyframes;
+    private float[] points;
+
+    @Setup
+    public void setUp() {
+        model = new BezierCircleModel(radius);
+        keyframes = new BezierCircleKeyframes(radius, BezierCircleKeyframes.DEFAULT_FRAME_COUNT);
+        points = new float[BezierCircleModel.POINT_SIZE];
+    }
+
+    @Benchmark
+    public float[] model1() {
+        model.model1(0.1f);
+        return model.points;
+    }
+
+    @Benchmark
+    public float[] model2() {
+        model.model2(0.35f);
+        return model.points;
+    }
+
+    @Benchmark
+    public float[] model3() {
+        model.model3(0.65f);
+        return model.points;
+    }
+
+    @Benchmark
+    public float[] model4() {
+        model.model4(0.85f);
+        return model.points;
+    }
+
+    @Benchmark
+    public float[] model5() {
+        model.model5(0.95f);
+        return model.points;
+    }
+
+    @Benchmark
+    public float[] keyframeSample() {
+        keyframes.sample(0.95f, 20f, points);
+        return points;
+    }
+}
@@ -0,0 +1,53 @@
+package com.clam314.pathmeasuretry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用ManualAnimationClock按60fps把PierreBezierCircleView的10秒动画跑完，结果按每帧平均
+ * 包括时钟的派发、插值器和关键帧插值，不包括真正的绘制
+ * 运行：./gradlew :benchmark:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClockAnimatorBenchmark {
+    private static final long DURATION = 10000;
+    //第一帧只记录开始时间
+    private static final int FRAMES = (int) (DURATION / ManualAnimationClock.DEFAULT_FRAME_INTERVAL) + 1;
+
+    private ManualAnimationClock clock;
+    private ClockAnimator animator;
+    private BezierCircleKeyframes keyframes;
+    private float[] points;
+
+    @Setup
+    public void setUp() {
+        keyframes = new BezierCircleKeyframes(50, BezierCircleKeyframes.DEFAULT_FRAME_COUNT);
+        points = new float[BezierCircleModel.POINT_SIZE];
+        clock = new ManualAnimationClock();
+        animator = new ClockAnimator(clock, new ClockAnimator.Listener() {
+            @Override
+            void onAnimationUpdate(ClockAnimator animator) {
+                float time = animator.getAnimatedFraction();
+                keyframes.sample(time, Math.max(0, 670 * (time - 0.2f)), points);
+            }
+        }).setDuration(DURATION).setInterpolator(ClockAnimator.ACCELERATE_DECELERATE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public float[] pierreAnimation() {
+        animator.start();
+        clock.advance(DURATION * 2, ManualAnimationClock.DEFAULT_FRAME_INTERVAL);
+        return points;
+    }
+}
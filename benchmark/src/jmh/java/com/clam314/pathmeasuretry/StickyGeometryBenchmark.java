@@ -0,0 +1,62 @@
+package com.clam314.pathmeasuretry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StickyCircleView每帧调用的几何计算
+ * 运行：./gradlew :benchmark:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StickyGeometryBenchmark {
+    private static final float MAX_MOVE_DISTANCE = 1000f;
+    private static final float DEFAULT_RADIUS = 50f;
+
+    private float downX, downY, moveX, moveY;
+    private float startX, startY;
+    private float[] circleSize;
+    private float[] bridge;
+
+    @Setup
+    public void setUp() {
+        downX = 540;
+        downY = 100;
+        moveX = 610;
+        moveY = 420;
+        startX = 540;
+        startY = 100;
+        circleSize = new float[StickyGeometry.CIRCLE_SIZE];
+        bridge = new float[StickyGeometry.BRIDGE_SIZE];
+        StickyGeometry.calculateCircleSize(downX, downY, moveX, moveY,
+                MAX_MOVE_DISTANCE, DEFAULT_RADIUS, startX, startY, circleSize);
+    }
+
+    @Benchmark
+    public float distance() {
+        return StickyGeometry.getDistanceBetweenTwoPoints(downX, downY, moveX, moveY);
+    }
+
+    @Benchmark
+    public float[] calculateCircleSize() {
+        StickyGeometry.calculateCircleSize(downX, downY, moveX, moveY,
+                MAX_MOVE_DISTANCE, DEFAULT_RADIUS, startX, startY, circleSize);
+        return circleSize;
+    }
+
+    @Benchmark
+    public float[] calculateBezierCurve() {
+        StickyGeometry.calculateBezierCurve(startX, startY, circleSize[StickyGeometry.START_RADIUS],
+                circleSize[StickyGeometry.END_X], circleSize[StickyGeometry.END_Y],
+                circleSize[StickyGeometry.END_RADIUS], bridge);
+        return bridge;
+    }
+}